@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "3.4.0"
     id("io.spring.dependency-management") version "1.1.6"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.github.bytestrick"
@@ -29,6 +30,9 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-validation")
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("org.springframework.boot:spring-boot-starter-mail")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("org.springframework.boot:spring-boot-starter-aop")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
     implementation("org.postgresql:postgresql")
     implementation("com.nimbusds:nimbus-jose-jwt:10.2")
     implementation("me.paulschwarz:spring-dotenv:4.0.0")
@@ -39,10 +43,12 @@ dependencies {
     testImplementation("org.springframework.security:spring-security-test")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("org.mockito:mockito-core:3.+")
+    testImplementation("com.icegreen:greenmail-junit5:2.0.1")
     compileOnly("org.projectlombok:lombok")
     annotationProcessor("org.projectlombok:lombok")
     testCompileOnly("org.projectlombok:lombok:1.18.30")
     testAnnotationProcessor("org.projectlombok:lombok:1.18.30")
+    "jmhImplementation"("org.openjdk.jol:jol-core:0.17")
 }
 
 tasks.withType<Test> {
@@ -56,3 +62,38 @@ tasks.withType<Test> {
         }"
     )
 }
+
+// ./gradlew loadTest [-Ploadtest.<option>=<value>], see TableLoadTest for the options
+testing {
+    suites {
+        register<JvmTestSuite>("loadTest") {
+            useJUnitJupiter()
+            dependencies {
+                implementation(project())
+                implementation("org.springframework.boot:spring-boot-starter-test")
+                implementation("org.springframework.boot:spring-boot-starter-web")
+                implementation("org.springframework.boot:spring-boot-starter-jdbc")
+                implementation("org.springframework.boot:spring-boot-starter-security")
+                implementation("io.micrometer:micrometer-core")
+                implementation("io.zonky.test:embedded-postgres:2.1.0")
+            }
+            targets.all {
+                testTask.configure {
+                    systemProperties(project.properties.filterKeys { it.startsWith("loadtest.") })
+                    systemProperty("loadtest.schema", file("../database/schema.sql").absolutePath)
+                    outputs.upToDateWhen { false }
+                    testLogging.showStandardStreams = true
+                    shouldRunAfter(tasks.test)
+                }
+            }
+        }
+    }
+}
+
+// ./gradlew jmh [-PjmhIncludes=<regex>], results in build/results/jmh/results.json
+jmh {
+    jmhVersion = "1.37"
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    (findProperty("jmhIncludes") as String?)?.let { includes = listOf(it) }
+}
@@ -0,0 +1,73 @@
+package com.github.bytestrick.tabula.controller.dto.table;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of a whole {@link TableContentDTO}, with an {@link ObjectMapper} configured like the one
+ * Spring MVC uses for the responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableContentSerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    @Param({"20"})
+    public int columns;
+
+    private ObjectMapper objectMapper;
+    private TableContentDTO table;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Random random = new Random(42);
+        UUID tableId = UUID.randomUUID();
+        List<ColumnDTO> header = new ArrayList<>(columns);
+        for (int c = 0; c < columns; c++) {
+            header.add(new ColumnDTO(UUID.randomUUID(), tableId, c % 2, "Column " + c, c));
+        }
+
+        List<RowDTO> content = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            UUID rowId = UUID.randomUUID();
+            List<CellDTO> cells = new ArrayList<>(columns);
+            for (ColumnDTO column : header) {
+                String value = random.nextInt(5) == 0 ? "" : "value " + random.nextInt(100_000);
+                cells.add(new CellDTO(tableId, rowId, column.id(), value));
+            }
+            content.add(new RowDTO(rowId, tableId, cells));
+        }
+        table = new TableContentDTO(tableId, header, content);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(table);
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.bytestrick.tabula.model.table;
+
+import com.github.bytestrick.tabula.controller.dto.table.CellDTO;
+import com.github.bytestrick.tabula.controller.dto.table.ColumnDTO;
+import com.github.bytestrick.tabula.controller.dto.table.RowDTO;
+import com.github.bytestrick.tabula.controller.dto.table.TableContentDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory footprint of the content of a table held as a list of {@link Cell}s, as the {@link TableContentDTO}
+ * assembled for the responses, and as a {@link CompactTable}, along with the time to build each of them.
+ * <p>
+ * The retained size of each representation, measured with JOL, is printed at the end of every trial. Each
+ * value is a string of its own, as the JDBC driver returns them; {@code distinctValues} is the number of
+ * different values per column, 8 makes every column dictionary-encoded, 100000 none.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableFootprintBenchmark {
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    @Param({"20"})
+    public int columns;
+
+    @Param({"8", "100000"})
+    public int distinctValues;
+
+    private UUID tableId;
+    private UUID[] columnIds;
+    private UUID[] rowIds;
+    /**
+     * Values of the cells, row by row; one out of five is missing
+     */
+    private String[][] values;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        tableId = UUID.randomUUID();
+        columnIds = new UUID[columns];
+        for (int c = 0; c < columns; c++) {
+            columnIds[c] = UUID.randomUUID();
+        }
+
+        rowIds = new UUID[rows];
+        values = new String[rows][columns];
+        for (int r = 0; r < rows; r++) {
+            rowIds[r] = UUID.randomUUID();
+            for (int c = 0; c < columns; c++) {
+                values[r][c] = random.nextInt(5) == 0 ? "" : "value " + random.nextInt(distinctValues);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void printFootprint() {
+        System.out.printf("%nRetained bytes: List<Cell> %,d, TableContentDTO %,d, CompactTable %,d%n",
+                GraphLayout.parseInstance(cells()).totalSize(),
+                GraphLayout.parseInstance(contentDTO()).totalSize(),
+                GraphLayout.parseInstance(compact()).totalSize());
+    }
+
+    @Benchmark
+    public List<Cell> cells() {
+        List<Cell> cells = new ArrayList<>(rows * columns);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                cells.add(new Cell(null, columnIds[c], rowIds[r], new String(values[r][c])));
+            }
+        }
+        return cells;
+    }
+
+    @Benchmark
+    public TableContentDTO contentDTO() {
+        List<ColumnDTO> header = new ArrayList<>(columns);
+        for (int c = 0; c < columns; c++) {
+            header.add(new ColumnDTO(columnIds[c], tableId, 1, "Column " + c, c));
+        }
+
+        List<RowDTO> content = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            List<CellDTO> cells = new ArrayList<>(columns);
+            for (int c = 0; c < columns; c++) {
+                cells.add(new CellDTO(tableId, rowIds[r], columnIds[c], new String(values[r][c])));
+            }
+            content.add(new RowDTO(rowIds[r], tableId, cells));
+        }
+        return new TableContentDTO(tableId, header, content);
+    }
+
+    @Benchmark
+    public CompactTable compact() {
+        CompactTable.Builder builder = CompactTable.builder(tableId);
+        for (int c = 0; c < columns; c++) {
+            builder.column(columnIds[c], 1, "Column " + c);
+        }
+        for (int r = 0; r < rows; r++) {
+            builder.row(rowIds[r]);
+        }
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                builder.value(r, c, new String(values[r][c]));
+            }
+        }
+        return builder.build();
+    }
+}
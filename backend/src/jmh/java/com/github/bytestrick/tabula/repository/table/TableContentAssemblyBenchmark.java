@@ -0,0 +1,89 @@
+package com.github.bytestrick.tabula.repository.table;
+
+import com.github.bytestrick.tabula.controller.dto.table.ColumnDTO;
+import com.github.bytestrick.tabula.controller.dto.table.RowDTO;
+import com.github.bytestrick.tabula.controller.dto.table.TableContentDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assembly of a {@link TableContentDTO} from the records of a content query, as
+ * {@link TableContentDAO#loadViewport(UUID, int, int, int, int)} receives them, without the database.
+ * <p>
+ * One cell out of five is missing, as cells are stored sparsely, so the gaps are filled too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableContentAssemblyBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    @Param({"20"})
+    public int columns;
+
+    private UUID tableId;
+    private List<ColumnDTO> header;
+    /**
+     * Records of the content query: row id, column id (null for an empty row) and value
+     */
+    private List<String[]> records;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        tableId = UUID.randomUUID();
+        header = new ArrayList<>(columns);
+        for (int c = 0; c < columns; c++) {
+            header.add(new ColumnDTO(UUID.randomUUID(), tableId, c % 2, "Column " + c, c));
+        }
+
+        records = new ArrayList<>(rows * columns);
+        for (int r = 0; r < rows; r++) {
+            String rowId = UUID.randomUUID().toString();
+            boolean empty = true;
+            for (ColumnDTO column : header) {
+                if (random.nextInt(5) != 0) {
+                    records.add(new String[]{rowId, column.id().toString(), "value " + random.nextInt(100_000)});
+                    empty = false;
+                }
+            }
+            if (empty) {
+                records.add(new String[]{rowId, null, null});
+            }
+        }
+    }
+
+    @Benchmark
+    public TableContentDTO assemble() {
+        List<RowDTO> content = new ArrayList<>();
+        TableContentDAO.GapFiller gapFiller = new TableContentDAO.GapFiller(header,
+                new TableContentDAO.RowsAssembler(tableId, header.size(), content));
+
+        for (String[] record : records) {
+            gapFiller.accept(record[0], record[1], record[2]);
+        }
+        gapFiller.finish();
+
+        return new TableContentDTO(tableId, header, content);
+    }
+}
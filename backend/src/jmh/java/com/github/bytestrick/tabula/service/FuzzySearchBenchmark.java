@@ -0,0 +1,157 @@
+package com.github.bytestrick.tabula.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranks a pattern against a set of titles the way {@link FuzzySearchTable} and {@link DataTypeService} do,
+ * with the current kernel and with the full-matrix kernel it replaced.
+ * <p>
+ * Run with {@code ./gradlew jmh}, adding {@code -prof gc} to the JMH arguments to compare the allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FuzzySearchBenchmark {
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    @Param({"5", "12"})
+    public int patternLength;
+
+    @Param({"1000"})
+    public int titles;
+
+    private String pattern;
+    private String[] candidates;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        pattern = randomString(random, patternLength);
+        candidates = new String[titles];
+        for (int i = 0; i < titles; i++) {
+            // a few titles close to the pattern, most of them not
+            candidates[i] = i % 10 == 0
+                    ? mutate(random, pattern)
+                    : randomString(random, 5 + random.nextInt(40));
+        }
+    }
+
+    @Benchmark
+    public void bounded(Blackhole blackhole) {
+        for (String title : candidates) {
+            float threshold = (float) pattern.length() / title.length() * 0.749f;
+            float similarity = FuzzySearch.similarity(pattern, title, threshold);
+            if (similarity >= threshold) {
+                blackhole.consume(similarity);
+            }
+        }
+    }
+
+    @Benchmark
+    public void unbounded(Blackhole blackhole) {
+        for (String title : candidates) {
+            float threshold = (float) pattern.length() / title.length() * 0.749f;
+            float similarity = FuzzySearch.similarity(pattern, title);
+            if (similarity >= threshold) {
+                blackhole.consume(similarity);
+            }
+        }
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        for (String title : candidates) {
+            float threshold = (float) pattern.length() / title.length() * 0.749f;
+            float similarity = LegacyFuzzySearch.similarity(pattern, title);
+            if (similarity >= threshold) {
+                blackhole.consume(similarity);
+            }
+        }
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    private static String mutate(Random random, String s) {
+        StringBuilder builder = new StringBuilder(s.toUpperCase());
+        builder.setCharAt(random.nextInt(builder.length()), 'x');
+        builder.append(randomString(random, random.nextInt(4)));
+        return builder.toString();
+    }
+
+    /**
+     * The kernel replaced by the banded one: full matrix, lower-cased copies and a new row at every call
+     */
+    private static final class LegacyFuzzySearch {
+        static float similarity(String a, String b) {
+            return (1 - (float) distance(a, b) / Math.max(a.length(), b.length()));
+        }
+
+        private static int min(int... a) {
+            int min = a[0];
+
+            for (int i : a)
+                if (i < min)
+                    min = i;
+
+            return min;
+        }
+
+        private static int distance(String a, String b) {
+            if (a.equals(b)) return 0;
+
+            a = a.toLowerCase();
+            b = b.toLowerCase();
+
+            if (a.length() < b.length()) {
+                String ts = a;
+                a = b;
+                b = ts;
+            }
+
+            int lenA = a.length();
+            int lenB = b.length();
+            if (lenB == 0) return lenA;
+
+            int[] cost = new int[lenB + 1];
+
+            for (int i = 0; i <= lenB; i += 1) {
+                cost[i] = i;
+            }
+
+            for (int i = 1; i <= lenA; i += 1) {
+                cost[0] = i;
+                int prv = i - 1;
+
+                for (int j = 1; j <= lenB; j += 1) {
+                    int act = prv + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                    cost[j] = min(1 + (prv = cost[j]), 1 + cost[j - 1], act);
+                }
+            }
+
+            return cost[lenB];
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.exception.InvalidJwtException;
+import com.github.bytestrick.tabula.model.Pair;
+import com.github.bytestrick.tabula.repository.InvalidJwtDao;
+import com.nimbusds.jose.JOSEException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation and verification of the tokens sent with every authenticated request.
+ * <p>
+ * The database is replaced by an empty {@link InvalidJwtDao}, so {@code verify} measures the parsing,
+ * the HMAC and the {@link RevokedJwtCache} lookup, which is all a valid token costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtProviderBenchmark {
+    private JwtProvider jwtProvider;
+    private String token;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException, JOSEException {
+        InvalidJwtDao invalidJwtDao = new InvalidJwtDao(null) {
+            @Override
+            public boolean exists(String token) {
+                return false;
+            }
+
+            @Override
+            public List<Pair<String, Instant>> findNotExpired() {
+                return List.of();
+            }
+        };
+        RevokedJwtCache revokedJwtCache = new RevokedJwtCache(invalidJwtDao);
+        revokedJwtCache.load();
+        VerifiedJwtCache verifiedJwtCache = new VerifiedJwtCache(revokedJwtCache, Duration.ofMinutes(5), 10_000);
+
+        jwtProvider = new JwtProvider(invalidJwtDao, revokedJwtCache, verifiedJwtCache);
+        Field jwtSecret = JwtProvider.class.getDeclaredField("jwtSecret");
+        jwtSecret.setAccessible(true);
+        jwtSecret.set(jwtProvider, "benchmark-secret-of-at-least-256-bits!!");
+        jwtProvider.init();
+
+        token = create();
+    }
+
+    @Benchmark
+    public String create() throws JOSEException {
+        return jwtProvider.create(Map.of(), "user@example.com", Duration.ZERO, Duration.ofHours(24));
+    }
+
+    @Benchmark
+    public String verify() throws InvalidJwtException {
+        return jwtProvider.verify(token);
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.model.Pair;
+import com.github.bytestrick.tabula.repository.table.OrderKeys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planning of a move of rows ({@link TableService#planMove(List, List, int)}): a scattered selection moved
+ * towards the top of the table, both when the keys have room for it and when the table must be rebalanced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovePlanningBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    @Param({"10", "1000"})
+    public int moved;
+
+    private List<Pair<UUID, Long>> spacedKeys;
+    private List<Pair<UUID, Long>> denseKeys;
+    private List<Integer> sortedIndexesToMove;
+    private int delta;
+
+    @Setup
+    public void setup() {
+        spacedKeys = new ArrayList<>(rows);
+        denseKeys = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            UUID id = UUID.randomUUID();
+            spacedKeys.add(new Pair<>(id, (i + 1) * OrderKeys.GAP));
+            // no gap left between neighbours: every move triggers a rebalance
+            denseKeys.add(new Pair<>(id, (long) i));
+        }
+
+        // every step-th row, from the bottom half, ascending as for a negative delta
+        int step = Math.max(1, rows / 2 / moved);
+        sortedIndexesToMove = new ArrayList<>(moved);
+        for (int i = 0; i < moved && rows / 2 + i * step < rows; i++) {
+            sortedIndexesToMove.add(rows / 2 + i * step);
+        }
+        delta = -rows / 4;
+    }
+
+    @Benchmark
+    public List<Pair<UUID, Long>> planMove() {
+        return TableService.planMove(spacedKeys, sortedIndexesToMove, delta);
+    }
+
+    @Benchmark
+    public List<Pair<UUID, Long>> planMoveWithRebalance() {
+        return TableService.planMove(denseKeys, sortedIndexesToMove, delta);
+    }
+}
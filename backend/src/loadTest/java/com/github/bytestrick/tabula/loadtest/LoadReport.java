@@ -0,0 +1,86 @@
+package com.github.bytestrick.tabula.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies measured by the clients of the load test, per endpoint, and the report built from them.
+ */
+class LoadReport {
+    private final Map<String, Samples> samples = new TreeMap<>();
+
+    private static class Samples {
+        long[] latencies = new long[1024];
+        int count;
+        int errors;
+
+        void add(long latency, boolean error) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+            if (error) {
+                errors++;
+            }
+        }
+    }
+
+    /**
+     * @param endpoint key of the endpoint, see {@link SqlStatements#endpoint(String, String)}
+     * @param nanos    time from the sending of the request to the reading of the whole response
+     * @param error    whether the response status was not 2xx
+     */
+    synchronized void record(String endpoint, long nanos, boolean error) {
+        samples.computeIfAbsent(endpoint, key -> new Samples()).add(nanos, error);
+    }
+
+    synchronized int errors() {
+        return samples.values().stream().mapToInt(s -> s.errors).sum();
+    }
+
+    /**
+     * One line per endpoint with requests, errors, p50 and p99 latency, throughput over {@code elapsed}
+     * and the average number of SQL statements per request between two snapshots
+     */
+    synchronized String format(Duration elapsed, SqlStatements before, SqlStatements after) {
+        StringBuilder report = new StringBuilder(String.format("%-50s %9s %7s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "p50 ms", "p99 ms", "req/s", "SQL/req"));
+        double seconds = elapsed.toNanos() / 1e9;
+
+        for (Map.Entry<String, Samples> entry : samples.entrySet()) {
+            Samples s = entry.getValue();
+            long[] sorted = Arrays.copyOf(s.latencies, s.count);
+            Arrays.sort(sorted);
+            double sqlPerRequest = after.perRequest(entry.getKey(), before);
+
+            report.append(String.format("%-50s %9d %7d %9.2f %9.2f %9.1f %9.1f%n",
+                    entry.getKey(), s.count, s.errors,
+                    percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6,
+                    s.count / seconds, sqlPerRequest));
+        }
+        return report.toString();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.clamp(index, 0, sorted.length - 1)];
+    }
+
+    static void write(Path path, String report) {
+        try {
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.bytestrick.tabula.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * PostgreSQL database the load test runs against.
+ * <p>
+ * By default an embedded server is started in a temporary directory and dropped with the JVM. When
+ * {@code loadtest.datasource.url} is set, the local database it points to is used instead, with
+ * {@code loadtest.datasource.username} and {@code loadtest.datasource.password}; it should be empty, as the
+ * seeded data is not removed.
+ * <p>
+ * In both cases {@code database/schema.sql} (the {@code loadtest.schema} property) is applied if the
+ * {@code users} table does not exist yet.
+ */
+final class LoadTestDatabase {
+    private static LoadTestDatabase instance;
+
+    final String url;
+    final String username;
+    final String password;
+
+    private LoadTestDatabase(String url, String username, String password) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    static synchronized LoadTestDatabase get() {
+        if (instance == null) {
+            instance = start();
+            instance.applySchema();
+        }
+        return instance;
+    }
+
+    private static LoadTestDatabase start() {
+        String url = System.getProperty("loadtest.datasource.url");
+        if (url != null) {
+            return new LoadTestDatabase(url,
+                    System.getProperty("loadtest.datasource.username", "postgres"),
+                    System.getProperty("loadtest.datasource.password", "postgres"));
+        }
+
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                }
+            }));
+            return new LoadTestDatabase(postgres.getJdbcUrl("postgres", "postgres"), "postgres", "postgres");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start the embedded PostgreSQL", e);
+        }
+    }
+
+    DataSource dataSource() {
+        return new DriverManagerDataSource(url, username, password);
+    }
+
+    private void applySchema() {
+        try (Connection connection = dataSource().getConnection()) {
+            try (ResultSet tables = connection.getMetaData().getTables(null, null, "users", null)) {
+                if (tables.next()) {
+                    return;
+                }
+            }
+            ScriptUtils.executeSqlScript(connection,
+                    new FileSystemResource(System.getProperty("loadtest.schema", "../database/schema.sql")));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not apply the schema to " + url, e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.bytestrick.tabula.loadtest;
+
+import com.github.bytestrick.tabula.config.SqlStatementCountFilter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Snapshot of the {@value SqlStatementCountFilter#METRIC} summaries of the application, per endpoint, so that
+ * the statements of a run are the difference between the snapshots taken before and after it.
+ */
+class SqlStatements {
+    /**
+     * Requests and statements of each endpoint
+     */
+    private final Map<String, double[]> totals = new HashMap<>();
+
+    static SqlStatements snapshot(MeterRegistry meterRegistry) {
+        SqlStatements snapshot = new SqlStatements();
+        for (DistributionSummary summary : meterRegistry.find(SqlStatementCountFilter.METRIC).summaries()) {
+            String endpoint = endpoint(summary.getId().getTag("method"), summary.getId().getTag("uri"));
+            snapshot.totals.put(endpoint, new double[]{summary.count(), summary.totalAmount()});
+        }
+        return snapshot;
+    }
+
+    /**
+     * Endpoint key of a request: its method and the pattern of the mapping, e.g.
+     * {@code GET /tables/{tableId}/content}
+     */
+    static String endpoint(String method, String uri) {
+        return method + " " + uri;
+    }
+
+    /**
+     * Average statements per request of an endpoint, since an earlier snapshot
+     */
+    double perRequest(String endpoint, SqlStatements since) {
+        double[] now = totals.getOrDefault(endpoint, new double[2]);
+        double[] before = since.totals.getOrDefault(endpoint, new double[2]);
+        double requests = now[0] - before[0];
+        return requests == 0 ? 0 : (now[1] - before[1]) / requests;
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.bytestrick.tabula.loadtest;
+
+import com.github.bytestrick.tabula.controller.dto.table.CellDTO;
+import com.github.bytestrick.tabula.controller.dto.table.ColumnDTO;
+import com.github.bytestrick.tabula.controller.dto.table.RowDTO;
+import com.github.bytestrick.tabula.controller.dto.table.TableViewportDTO;
+import com.github.bytestrick.tabula.model.table.CompactTable;
+import com.github.bytestrick.tabula.repository.table.OrderKeys;
+import com.github.bytestrick.tabula.repository.table.TableContentDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the windows loaded by {@link TableContentDAO#loadViewport} against the same windows cut from the
+ * {@link CompactTable} the DAO loads for {@code HotTableCache}, on the database of the load test
+ * (see {@link LoadTestDatabase}).
+ */
+class TableContentDAOTest {
+    private static final int TEXTUAL = 1;
+    private static final int ROWS = 5;
+    private static final int COLUMNS = 6;
+
+    private final DataSource dataSource = LoadTestDatabase.get().dataSource();
+    private final JdbcClient jdbcClient = JdbcClient.create(dataSource);
+    private final TableContentDAO tableContentDAO = new TableContentDAO(jdbcClient, new JdbcTemplate(dataSource));
+    private final UUID tableId = UUID.randomUUID();
+
+    /**
+     * A table whose cells hold their row and column index, e.g. "3:4", but for the first row, which has no cells
+     */
+    @BeforeEach
+    void seedTable() {
+        jdbcClient.sql("INSERT INTO tbl_table (id, title) VALUES (:id, 'viewport')")
+                .param("id", tableId)
+                .update();
+
+        List<UUID> columnIds = new ArrayList<>();
+        for (int j = 0; j < COLUMNS; ++j) {
+            UUID columnId = UUID.randomUUID();
+            columnIds.add(columnId);
+            jdbcClient.sql("""
+                    INSERT INTO tbl_column (id, tbl_table, data_type, column_order, column_name)
+                    VALUES (:id, :tableId, :dataType, :columnOrder, :columnName)
+                """)
+                    .param("id", columnId)
+                    .param("tableId", tableId)
+                    .param("dataType", TEXTUAL)
+                    .param("columnOrder", (j + 1) * OrderKeys.GAP)
+                    .param("columnName", "c" + j)
+                    .update();
+        }
+
+        for (int i = 0; i < ROWS; ++i) {
+            UUID rowId = UUID.randomUUID();
+            jdbcClient.sql("INSERT INTO tbl_row (id, tbl_table, row_order) VALUES (:id, :tableId, :rowOrder)")
+                    .param("id", rowId)
+                    .param("tableId", tableId)
+                    .param("rowOrder", (i + 1) * OrderKeys.GAP)
+                    .update();
+
+            if (i == 0)
+                continue;
+
+            for (int j = 0; j < COLUMNS; ++j) {
+                jdbcClient.sql("""
+                        INSERT INTO cell (id, tbl_row, tbl_column, value)
+                        VALUES (:id, :rowId, :columnId, :value)
+                    """)
+                        .param("id", UUID.randomUUID())
+                        .param("rowId", rowId)
+                        .param("columnId", columnIds.get(j))
+                        .param("value", i + ":" + j)
+                        .update();
+            }
+        }
+    }
+
+    /**
+     * The window as {@code CompactTableViews#viewport} cuts it from the cached table
+     */
+    private static TableViewportDTO cached(CompactTable table, int fromRow, int toRow, int fromColumn, int toColumn) {
+        List<ColumnDTO> header = new ArrayList<>();
+        for (int j = fromColumn; j < Math.min(toColumn, table.getColumnsNumber()); ++j)
+            header.add(new ColumnDTO(table.getColumnId(j), table.getId(), table.getDataType(j),
+                    table.getColumnName(j), j));
+
+        List<RowDTO> rows = new ArrayList<>();
+        for (int i = fromRow; i < Math.min(toRow, table.getRowsNumber()); ++i) {
+            List<CellDTO> cells = new ArrayList<>();
+            for (ColumnDTO column : header)
+                cells.add(new CellDTO(table.getId(), table.getRowId(i), column.id(),
+                        table.getValue(i, column.columnIndex())));
+
+            rows.add(new RowDTO(table.getRowId(i), table.getId(), cells));
+        }
+
+        return new TableViewportDTO(table.getId(), table.getRowsNumber(), table.getColumnsNumber(),
+                fromRow, fromColumn, header, rows);
+    }
+
+    @Test
+    void viewportsMatchTheCachedContent() {
+        CompactTable table = tableContentDAO.loadCompactTable(tableId);
+
+        for (int[] window : new int[][]{{0, ROWS, 0, COLUMNS}, {0, 2, 2, 5}, {3, 10, 4, 10}, {1, 4, 5, 6}}) {
+            TableViewportDTO viewport = tableContentDAO.loadViewport(tableId, window[0], window[1],
+                    window[2], window[3]);
+
+            assertThat(viewport).isEqualTo(cached(table, window[0], window[1], window[2], window[3]));
+        }
+    }
+
+    @Test
+    void headerIndexesStartAtTheFirstColumnOfTheWindow() {
+        TableViewportDTO viewport = tableContentDAO.loadViewport(tableId, 0, 1, 2, 5);
+
+        assertThat(viewport.header()).extracting(ColumnDTO::columnIndex).containsExactly(2, 3, 4);
+        assertThat(viewport.header()).extracting(ColumnDTO::columnName).containsExactly("c2", "c3", "c4");
+    }
+}
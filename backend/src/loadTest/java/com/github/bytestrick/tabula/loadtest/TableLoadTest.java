@@ -0,0 +1,407 @@
+package com.github.bytestrick.tabula.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.bytestrick.tabula.controller.dto.table.CellPatchDTO;
+import com.github.bytestrick.tabula.controller.dto.table.ColumnCreateDTO;
+import com.github.bytestrick.tabula.controller.dto.table.ColumnCreatedDTO;
+import com.github.bytestrick.tabula.controller.dto.table.ColumnDTO;
+import com.github.bytestrick.tabula.controller.dto.table.ColumnsCreateDTO;
+import com.github.bytestrick.tabula.controller.dto.table.ColumnsDeleteDTO;
+import com.github.bytestrick.tabula.controller.dto.table.MovesRowsOrColumnsDTO;
+import com.github.bytestrick.tabula.controller.dto.table.RowCreateDTO;
+import com.github.bytestrick.tabula.controller.dto.table.RowCreatedDTO;
+import com.github.bytestrick.tabula.controller.dto.table.RowDTO;
+import com.github.bytestrick.tabula.controller.dto.table.RowsCreateDTO;
+import com.github.bytestrick.tabula.controller.dto.table.RowsDeleteDTO;
+import com.github.bytestrick.tabula.controller.dto.table.TableContentDTO;
+import com.github.bytestrick.tabula.controller.dto.table.TableCreateDTO;
+import com.github.bytestrick.tabula.controller.dto.table.TableCreatedDTO;
+import com.github.bytestrick.tabula.model.Country;
+import com.github.bytestrick.tabula.model.User;
+import com.github.bytestrick.tabula.repository.UserDao;
+import com.github.bytestrick.tabula.service.JwtProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Replays a mixed workload against the {@code TableController} endpoints of the whole application, served over
+ * HTTP by an embedded or local PostgreSQL (see {@link LoadTestDatabase}), and reports per endpoint the p50 and
+ * p99 latency, the throughput and the SQL statements per request (see {@link com.github.bytestrick.tabula.config.SqlStatementCountFilter}).
+ * <p>
+ * Run it with {@code ./gradlew loadTest}; the report is printed and written to
+ * {@code build/reports/load-test/report.txt}. The shape of the data and of the workload is set with
+ * {@code -Ploadtest.<option>=<value>}:
+ * <ul>
+ *     <li>{@code users}, {@code tables-per-user}: seeded users, each with its tables (4, 2)</li>
+ *     <li>{@code rows}, {@code columns}: size of every seeded table (500, 20)</li>
+ *     <li>{@code clients}: concurrent clients, spread over the seeded tables (8)</li>
+ *     <li>{@code warmup}, {@code duration}: time the workload runs before and while it is measured (10s, 30s)</li>
+ *     <li>{@code mix}: weight of each operation, as {@code operation:weight,...}, see {@link #DEFAULT_MIX}</li>
+ * </ul>
+ * The test fails if any request of the measured run is answered with an error.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class TableLoadTest {
+    private static final String DEFAULT_MIX = "open:30,patch:30,insert-row:8,delete-row:6,move-rows:8,"
+            + "insert-column:3,delete-column:3,move-columns:4,search:8";
+    private static final int TEXTUAL = 1;
+    private static final int MAX_ROWS_PER_REQUEST = 10_000;
+    private static final List<String> WORDS = List.of("budget", "inventory", "students", "expenses", "projects",
+            "customers", "invoices", "schedule", "grades", "recipes", "contacts", "shipments");
+
+    private static final String OPEN = "GET /tables/{tableId}/content";
+    private static final String PATCH_CELLS = "PATCH /tables/{tableId}/content/cells";
+    private static final String INSERT_ROW = "POST /tables/{tableId}/content/rows";
+    private static final String DELETE_ROWS = "DELETE /tables/{tableId}/content/rows";
+    private static final String MOVE_ROWS = "PATCH /tables/{tableId}/content/rows";
+    private static final String INSERT_COLUMN = "POST /tables/{tableId}/content/columns";
+    private static final String DELETE_COLUMNS = "DELETE /tables/{tableId}/content/columns";
+    private static final String MOVE_COLUMNS = "PATCH /tables/{tableId}/content/columns";
+    private static final String SEARCH = "GET /tables";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserDao userDao;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private JwtProvider jwtProvider;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        LoadTestDatabase database = LoadTestDatabase.get();
+        registry.add("spring.datasource.url", () -> database.url);
+        registry.add("spring.datasource.username", () -> database.username);
+        registry.add("spring.datasource.password", () -> database.password);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> Math.max(10, intOption("clients", 8) + 2));
+        registry.add("app.jwt.secret", () -> UUID.randomUUID() + "-" + UUID.randomUUID());
+        // no mail is sent: the users are seeded already verified
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.username", () -> "");
+        registry.add("spring.mail.password", () -> "");
+        registry.add("spring.devtools.restart.enabled", () -> false);
+    }
+
+    private static String option(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+
+    private static int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, String.valueOf(defaultValue)));
+    }
+
+    private static Duration durationOption(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(option(name, defaultValue));
+    }
+
+    @Test
+    void mixedWorkload() throws Exception {
+        int users = intOption("users", 4);
+        int tablesPerUser = intOption("tables-per-user", 2);
+        int rows = intOption("rows", 500);
+        int columns = intOption("columns", 20);
+        int clients = intOption("clients", 8);
+        Map<String, Integer> mix = parseMix(option("mix", DEFAULT_MIX));
+
+        List<Client> seeded = seed(users, tablesPerUser, rows, columns);
+        System.out.printf("Seeded %d users with %d tables of %d x %d cells%n", users, seeded.size(), rows, columns);
+
+        run(seeded, clients, mix, durationOption("warmup", "10s"), new LoadReport());
+
+        SqlStatements before = SqlStatements.snapshot(meterRegistry);
+        LoadReport report = new LoadReport();
+        Duration duration = durationOption("duration", "30s");
+        run(seeded, clients, mix, duration, report);
+
+        String text = String.format("%d clients, %d x %d cells per table, %s%n%n", clients, rows, columns, duration)
+                + report.format(duration, before, SqlStatements.snapshot(meterRegistry));
+        System.out.println(text);
+        LoadReport.write(Path.of("build", "reports", "load-test", "report.txt"), text);
+
+        assertThat(report.errors()).as(text).isZero();
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(parts[0], Integer.parseInt(parts[1]));
+        }
+        return weights;
+    }
+
+    /**
+     * A client of the workload, bound to one table. The seeded rows and columns are never deleted, only
+     * the ones the client inserted itself, so that clients never get in each other's way.
+     */
+    private class Client {
+        final String token;
+        final UUID tableId;
+        final String title;
+        final List<UUID> rowIds = new ArrayList<>();
+        final List<UUID> columnIds = new ArrayList<>();
+        final List<UUID> insertedRows = new ArrayList<>();
+        final List<UUID> insertedColumns = new ArrayList<>();
+
+        Client(String token, UUID tableId, String title) {
+            this.token = token;
+            this.tableId = tableId;
+            this.title = title;
+        }
+
+        int rows() {
+            return rowIds.size() + insertedRows.size();
+        }
+
+        int columns() {
+            return columnIds.size() + insertedColumns.size();
+        }
+
+        HttpResponse<byte[]> send(String method, String path, Object body, LoadReport report, String endpoint)
+                throws IOException, InterruptedException {
+            URI uri = URI.create("http://localhost:" + port + "/api/v1" + path);
+            HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                    .header("Authorization", "Bearer " + token)
+                    .header("Accept", "application/json");
+            if (body == null) {
+                request.method(method, HttpRequest.BodyPublishers.noBody());
+            } else {
+                request.header("Content-Type", "application/json")
+                        .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+            }
+
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            long elapsed = System.nanoTime() - start;
+
+            boolean error = response.statusCode() / 100 != 2;
+            if (report != null) {
+                report.record(endpoint, elapsed, error);
+            }
+            if (error && report == null) {
+                throw new IllegalStateException(method + " " + path + ": " + response.statusCode() + " "
+                        + new String(response.body(), StandardCharsets.UTF_8));
+            }
+            return response;
+        }
+
+        <T> T read(HttpResponse<byte[]> response, Class<T> type) throws IOException {
+            return response.statusCode() / 100 == 2 ? objectMapper.readValue(response.body(), type) : null;
+        }
+    }
+
+    /**
+     * Creates the users directly in the database, already verified, and their tables through the API
+     */
+    private List<Client> seed(int users, int tablesPerUser, int rows, int columns) throws Exception {
+        Random random = new Random(42);
+        String encodedPassword = passwordEncoder.encode("load-test");
+        List<Client> clients = new ArrayList<>();
+
+        for (int u = 0; u < users; u++) {
+            String email = "load-test-" + UUID.randomUUID() + "@example.com";
+            userDao.save(User.builder()
+                    .id(UUID.randomUUID())
+                    .email(email)
+                    .encodedPassword(encodedPassword)
+                    .roles(List.of(new SimpleGrantedAuthority("USER")))
+                    .name("Load")
+                    .surname("Test")
+                    .country(new Country("Italy", "🇮🇹", "IT", 39))
+                    .enabled(true)
+                    .build());
+            String token = jwtProvider.create(Map.of(), email, Duration.ZERO, Duration.ofHours(24));
+
+            for (int t = 0; t < tablesPerUser; t++) {
+                String title = WORDS.get(random.nextInt(WORDS.size())) + " " + u + "-" + t;
+                clients.add(seedTable(token, title, rows, columns, random));
+            }
+        }
+        return clients;
+    }
+
+    private Client seedTable(String token, String title, int rows, int columns, Random random) throws Exception {
+        Client seeder = new Client(token, null, title);
+        TableCreatedDTO table = seeder.read(seeder.send("POST", "/tables",
+                new TableCreateDTO(title, "Seeded by the load test", LocalDateTime.now()), null, null),
+                TableCreatedDTO.class);
+        String content = "/tables/" + table.id() + "/content";
+
+        // a new table has one row and one column already
+        if (columns > 1) {
+            seeder.send("POST", content + "/columns/bulk",
+                    new ColumnsCreateDTO(TEXTUAL, null, columns - 1, null), null, null);
+        }
+        for (int created = 1; created < rows; created += MAX_ROWS_PER_REQUEST) {
+            int count = Math.min(MAX_ROWS_PER_REQUEST, rows - created);
+            List<List<String>> values = new ArrayList<>(count);
+            for (int r = 0; r < count; r++) {
+                List<String> row = new ArrayList<>(columns);
+                for (int c = 0; c < columns; c++) {
+                    // one cell out of five is left empty
+                    row.add(random.nextInt(5) == 0 ? "" : "value " + random.nextInt(100_000));
+                }
+                values.add(row);
+            }
+            seeder.send("POST", content + "/rows/bulk", new RowsCreateDTO(null, count, values), null, null);
+        }
+
+        Client client = new Client(token, table.id(), title);
+        TableContentDTO loaded = seeder.read(seeder.send("GET", content, null, null, null), TableContentDTO.class);
+        loaded.header().stream().map(ColumnDTO::id).forEach(client.columnIds::add);
+        loaded.content().stream().map(RowDTO::id).forEach(client.rowIds::add);
+        return client;
+    }
+
+    private void run(List<Client> tables, int clients, Map<String, Integer> mix, Duration duration,
+                     LoadReport report) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                Client client = tables.get(i % tables.size());
+                Random random = new Random(i);
+                futures.add(executor.submit(() -> {
+                    // clients sharing a table take turns, as they share its inserted rows and columns
+                    while (System.nanoTime() < deadline) {
+                        synchronized (client) {
+                            perform(client, pick(mix, totalWeight, random), random, report);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    private static String pick(Map<String, Integer> mix, int totalWeight, Random random) {
+        int draw = random.nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            draw -= entry.getValue();
+            if (draw < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private void perform(Client client, String operation, Random random, LoadReport report) throws Exception {
+        String content = "/tables/" + client.tableId + "/content";
+
+        switch (operation) {
+            case "open" -> client.send("GET", content, null, report, OPEN);
+            case "patch" -> {
+                List<CellPatchDTO> patches = new ArrayList<>();
+                for (int i = 1 + random.nextInt(5); i > 0; i--) {
+                    patches.add(new CellPatchDTO(
+                            client.rowIds.get(random.nextInt(client.rowIds.size())),
+                            client.columnIds.get(random.nextInt(client.columnIds.size())),
+                            TEXTUAL, "patched " + random.nextInt(100_000)));
+                }
+                client.send("PATCH", content + "/cells", patches, report, PATCH_CELLS);
+            }
+            case "insert-row" -> insertRow(client, random, report);
+            case "delete-row" -> {
+                if (client.insertedRows.isEmpty()) {
+                    insertRow(client, random, report);
+                    return;
+                }
+                UUID rowId = client.insertedRows.removeLast();
+                client.send("DELETE", content + "/rows", new RowsDeleteDTO(List.of(rowId)), report, DELETE_ROWS);
+            }
+            case "move-rows" -> {
+                int from = random.nextInt(client.rows());
+                int to = random.nextInt(client.rows());
+                UUID rowId = client.rowIds.get(random.nextInt(client.rowIds.size()));
+                client.send("PATCH", content + "/rows",
+                        new MovesRowsOrColumnsDTO(List.of(rowId), from, to), report, MOVE_ROWS);
+            }
+            case "insert-column" -> insertColumn(client, random, report);
+            case "delete-column" -> {
+                if (client.insertedColumns.isEmpty()) {
+                    insertColumn(client, random, report);
+                    return;
+                }
+                UUID columnId = client.insertedColumns.removeLast();
+                client.send("DELETE", content + "/columns",
+                        new ColumnsDeleteDTO(List.of(columnId)), report, DELETE_COLUMNS);
+            }
+            case "move-columns" -> {
+                int from = random.nextInt(client.columns());
+                int to = random.nextInt(client.columns());
+                UUID columnId = client.columnIds.get(random.nextInt(client.columnIds.size()));
+                client.send("PATCH", content + "/columns",
+                        new MovesRowsOrColumnsDTO(List.of(columnId), from, to), report, MOVE_COLUMNS);
+            }
+            case "search" -> {
+                // the word of the title with a typo
+                StringBuilder pattern = new StringBuilder(client.title.substring(0, client.title.indexOf(' ')));
+                pattern.setCharAt(random.nextInt(pattern.length()), 'x');
+                client.send("GET", "/tables?limit=50&pattern="
+                        + URLEncoder.encode(pattern.toString(), StandardCharsets.UTF_8), null, report, SEARCH);
+            }
+            default -> throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    private void insertRow(Client client, Random random, LoadReport report) throws Exception {
+        RowCreatedDTO row = client.read(client.send("POST", "/tables/" + client.tableId + "/content/rows",
+                new RowCreateDTO(random.nextInt(client.rows() + 1), false), report, INSERT_ROW), RowCreatedDTO.class);
+        if (row != null) {
+            client.insertedRows.add(row.id());
+        }
+    }
+
+    private void insertColumn(Client client, Random random, LoadReport report) throws Exception {
+        ColumnCreatedDTO column = client.read(client.send("POST", "/tables/" + client.tableId + "/content/columns",
+                new ColumnCreateDTO(TEXTUAL, random.nextInt(client.columns() + 1), false), report, INSERT_COLUMN),
+                ColumnCreatedDTO.class);
+        if (column != null) {
+            client.insertedColumns.add(column.id());
+        }
+    }
+}
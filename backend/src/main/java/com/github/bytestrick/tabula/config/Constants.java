@@ -7,4 +7,10 @@ public class Constants {
      */
     public static final String PASSWORD_REGEXP =
             "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[!#$%&'()*+,\\-./:;<=>?@\\[\\\\\\]^_`{|}~]).{10,}$";
+
+    /**
+     * Media type of the columnar JSON representation of a table's content.
+     * <p>It is duplicated in the frontend.
+     */
+    public static final String TABLE_COLUMNAR_JSON_VALUE = "application/vnd.tabula.columnar+json";
 }
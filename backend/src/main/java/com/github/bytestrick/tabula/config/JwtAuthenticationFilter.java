@@ -2,6 +2,7 @@ package com.github.bytestrick.tabula.config;
 
 import com.github.bytestrick.tabula.exception.InvalidJwtException;
 import com.github.bytestrick.tabula.service.JwtProvider;
+import com.github.bytestrick.tabula.service.VerifiedJwtCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,13 +19,21 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.text.ParseException;
 
+/**
+ * Authenticates the requests that carry a JSON Web Token.
+ * <p>
+ * Tokens seen before are served from the {@link VerifiedJwtCache}; the others are verified by {@link JwtProvider}
+ * and the details of their subject are loaded, then both are cached.
+ */
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtProvider jwtProvider;
     private final UserDetailsService userDetailsService;
+    private final VerifiedJwtCache verifiedJwtCache;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -33,13 +42,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = JwtProvider.fromRequest(request);
         if (token != null) {
             try {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(jwtProvider.verify(token));
+                UserDetails userDetails = verifiedJwtCache.get(token);
+                if (userDetails == null) {
+                    userDetails = userDetailsService.loadUserByUsername(jwtProvider.verify(token));
+                    verifiedJwtCache.put(token, userDetails, JwtProvider.getExpiration(token).toInstant());
+                }
                 UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities()
                 );
                 auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(auth);
-            } catch (InvalidJwtException e) {
+            } catch (InvalidJwtException | ParseException e) {
                 log.warn("Could not authenticate request: {}", e.getMessage());
             }
         }
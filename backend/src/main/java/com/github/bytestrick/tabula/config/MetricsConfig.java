@@ -0,0 +1,102 @@
+package com.github.bytestrick.tabula.config;
+
+import com.github.bytestrick.tabula.service.CellWriteBuffer;
+import com.github.bytestrick.tabula.service.HotTableCache;
+import com.github.bytestrick.tabula.service.VerifiedJwtCache;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Metrics of the application, besides the ones of Spring Boot Actuator ({@code http.server.requests} per mapping,
+ * {@code hikaricp.*} for the connection pool, JVM and system metrics), exported at
+ * {@code /actuator/prometheus}:
+ * <ul>
+ *     <li>{@code tabula.dao}, a timer per method of the DAOs annotated with {@code @Timed}</li>
+ *     <li>{@value SqlStatementCountFilter#METRIC}, the SQL statements run by each request</li>
+ *     <li>{@code tabula.jwt.verified.cache.*}, the hits, misses and size of the {@link VerifiedJwtCache}</li>
+ *     <li>{@code tabula.cells.buffer.*}, registered by the {@link CellWriteBuffer} itself</li>
+ *     <li>{@code tabula.tables.cache.*}, the hits, misses, evictions and weight of the {@link HotTableCache}</li>
+ * </ul>
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Serve the {@code @Timed} annotations
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * Wrap the data source so that {@link SqlStatementCounter} sees every statement
+     */
+    @Bean
+    static BeanPostProcessor sqlStatementCountingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? SqlStatementCounter.wrap(dataSource) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementCountFilter> sqlStatementCountFilter(
+            MeterRegistry meterRegistry,
+            @Value("${app.metrics.sql-statement-budget:50}") int statementBudget) {
+        FilterRegistrationBean<SqlStatementCountFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementCountFilter(meterRegistry, statementBudget));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder verifiedJwtCacheMetrics(VerifiedJwtCache verifiedJwtCache) {
+        return registry -> {
+            FunctionCounter.builder("tabula.jwt.verified.cache.requests", verifiedJwtCache, VerifiedJwtCache::getHits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("tabula.jwt.verified.cache.requests", verifiedJwtCache,
+                            VerifiedJwtCache::getMisses)
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("tabula.jwt.verified.cache.size", verifiedJwtCache, VerifiedJwtCache::size)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder hotTableCacheMetrics(HotTableCache hotTableCache) {
+        return registry -> {
+            FunctionCounter.builder("tabula.tables.cache.requests", hotTableCache, HotTableCache::getHits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("tabula.tables.cache.requests", hotTableCache, HotTableCache::getMisses)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("tabula.tables.cache.evictions", hotTableCache, HotTableCache::getEvictions)
+                    .register(registry);
+            Gauge.builder("tabula.tables.cache.size", hotTableCache, HotTableCache::size)
+                    .register(registry);
+            Gauge.builder("tabula.tables.cache.weight", hotTableCache, HotTableCache::getWeight)
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("tabula.tables.cache.max.weight", hotTableCache, HotTableCache::getMaxWeight)
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
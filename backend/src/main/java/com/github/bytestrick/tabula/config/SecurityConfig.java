@@ -2,6 +2,7 @@ package com.github.bytestrick.tabula.config;
 
 import com.github.bytestrick.tabula.service.DaoUserDetailsService;
 import com.github.bytestrick.tabula.service.JwtProvider;
+import com.github.bytestrick.tabula.service.VerifiedJwtCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -30,6 +31,7 @@ import java.util.List;
 public class SecurityConfig {
     private final UserDetailsService userDetailsService;
     private final JwtProvider jwtProvider;
+    private final VerifiedJwtCache verifiedJwtCache;
 
     /**
      * Configure the {@link CorsConfigurationSource} to allow requests from the Angular application.
@@ -59,18 +61,23 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/test/no-auth/**").permitAll()
+                        // served on the management port only, see application.properties
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated()
                 )
                 .exceptionHandling(handler -> handler
                         .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
                 )
-                .addFilterBefore(jwtAuthenticationFilter(jwtProvider, userDetailsService), UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(jwtAuthenticationFilter(jwtProvider, userDetailsService, verifiedJwtCache),
+                        UsernamePasswordAuthenticationFilter.class)
                 .build();
     }
 
     @Bean
-    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtProvider jwtProvider, UserDetailsService userDetailsService) {
-        return new JwtAuthenticationFilter(jwtProvider, userDetailsService);
+    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtProvider jwtProvider,
+                                                           UserDetailsService userDetailsService,
+                                                           VerifiedJwtCache verifiedJwtCache) {
+        return new JwtAuthenticationFilter(jwtProvider, userDetailsService, verifiedJwtCache);
     }
 
 
@@ -0,0 +1,62 @@
+package com.github.bytestrick.tabula.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records the number of SQL statements run by each request in the {@value #METRIC} summary, tagged with the method
+ * and the mapping of the request, as {@code http.server.requests} is, and logs the requests that run more than
+ * {@code app.metrics.sql-statement-budget} statements.
+ * <p>
+ * It runs ahead of the security filters, so the statements run to authenticate the request are counted too.
+ * The statements run after the response is handed to another thread, by a {@code StreamingResponseBody},
+ * are not.
+ */
+@Slf4j
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+    public static final String METRIC = "tabula.http.sql.statements";
+
+    private final MeterRegistry meterRegistry;
+    private final int statementBudget;
+
+    public SqlStatementCountFilter(MeterRegistry meterRegistry, int statementBudget) {
+        this.meterRegistry = meterRegistry;
+        this.statementBudget = statementBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = SqlStatementCounter.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+            DistributionSummary.builder(METRIC)
+                    .description("SQL statements run by a request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(statements);
+
+            if (statements > statementBudget) {
+                log.warn("{} {} ran {} SQL statements, over the budget of {}", request.getMethod(),
+                        request.getRequestURI(), statements, statementBudget);
+            }
+        }
+    }
+}
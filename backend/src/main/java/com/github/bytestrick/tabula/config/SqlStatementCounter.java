@@ -0,0 +1,104 @@
+package com.github.bytestrick.tabula.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counts the SQL statements executed by a thread between {@link #start()} and {@link #stop()}.
+ * <p>
+ * The statements are counted by the {@link DataSource} returned by {@link #wrap(DataSource)}: every
+ * {@code execute*} call on the statements of its connections is one statement, a batch included, as it is one
+ * round trip. Statements executed by a thread without an open count are not counted.
+ */
+public final class SqlStatementCounter {
+    private static final ThreadLocal<int[]> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    /**
+     * Open a count on the current thread, discarding the one already open
+     */
+    public static void start() {
+        CURRENT.set(new int[1]);
+    }
+
+    /**
+     * Close the count of the current thread
+     *
+     * @return the statements executed since {@link #start()}, {@code 0} if no count was open
+     */
+    public static int stop() {
+        int[] count = CURRENT.get();
+        CURRENT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    public static DataSource wrap(DataSource dataSource) {
+        return dataSource instanceof CountingDataSource ? dataSource : new CountingDataSource(dataSource);
+    }
+
+    private static void increment() {
+        int[] count = CURRENT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    private static class CountingDataSource extends DelegatingDataSource {
+        CountingDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return proxy(Connection.class, super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return proxy(Connection.class, super.getConnection(username, password));
+        }
+    }
+
+    /**
+     * Proxy of a connection, which wraps the statements it creates, or of a statement, which counts its executions
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(SqlStatementCounter.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (target instanceof Statement && method.getName().startsWith("execute")) {
+                        increment();
+                    }
+                    Object result = invoke(method, target, args);
+                    if (target instanceof Connection && result instanceof Statement statement) {
+                        return proxy(statementType(method), statement);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * {@code Statement}, {@code PreparedStatement} or {@code CallableStatement}, as declared by the method
+     */
+    @SuppressWarnings("unchecked")
+    private static Class<Statement> statementType(Method method) {
+        return (Class<Statement>) method.getReturnType();
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
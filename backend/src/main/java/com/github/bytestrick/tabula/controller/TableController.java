@@ -1,5 +1,6 @@
 package com.github.bytestrick.tabula.controller;
 
+import com.github.bytestrick.tabula.config.Constants;
 import com.github.bytestrick.tabula.controller.dto.InformativeResponse;
 import com.github.bytestrick.tabula.controller.dto.table.TableContentDTO;
 import com.github.bytestrick.tabula.controller.dto.table.*;
@@ -7,31 +8,94 @@ import com.github.bytestrick.tabula.service.TableService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/tables")
 @RequiredArgsConstructor
 public class TableController {
 
+    /**
+     * Tables and their content are served with an ETag and must be revalidated on every use, so a client that
+     * already has their current version gets HTTP 304 Not Modified instead of a new copy.
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final TableService tableService;
 
 
+    /**
+     * Serves a representation of the content of a table, unless the client already has its current version.
+     * <p>
+     *  The ETag is the version of the table, read before the content: a change committed in between yields
+     *  content newer than its ETag, which is revalidated on the next request, never the other way round.
+     * </p>
+     *
+     * @param representation Tells apart the representations of a version, which need different strong ETags.
+     * @param body           Loads the content, only if the client does not already have it.
+     * @return HTTP 304 Not Modified if the {@code If-None-Match} header matches the current version,
+     * HTTP 200 OK with the content otherwise.
+     */
+    private <T> ResponseEntity<T> tableContent(UUID tableId, String representation, WebRequest request,
+                                               MediaType contentType, Supplier<T> body) {
+        String eTag = "\"" + tableService.getTableVersion(tableId) + "-" + representation + "\"";
+        boolean notModified = request.checkNotModified(eTag);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity
+                .status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(eTag)
+                .cacheControl(REVALIDATE)
+                .varyBy(HttpHeaders.ACCEPT);
+        return notModified ? response.build() : response.contentType(contentType).body(body.get());
+    }
+
+
+    /**
+     * Serves a page of tables with an ETag derived from their ids and versions, HTTP 304 Not Modified is sent
+     * instead if the {@code If-None-Match} header matches it.
+     */
+    private static ResponseEntity<List<TableCreatedDTO>> tables(List<TableCreatedDTO> tables) {
+        StringBuilder versions = new StringBuilder();
+        for (TableCreatedDTO table : tables) {
+            versions.append(table.id()).append(':').append(table.version()).append(',');
+        }
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(versions.toString().getBytes(StandardCharsets.UTF_8));
+            String eTag = "\"" + Base64.getEncoder().withoutPadding().encodeToString(hash) + "\"";
+            return ResponseEntity.ok().eTag(eTag).cacheControl(REVALIDATE).body(tables);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+
     @GetMapping("after/{tableId}")
     public ResponseEntity<List<TableCreatedDTO>> getTablesAfter(@PathVariable UUID tableId,
                                                                 @RequestParam int quantity) {
-        return ResponseEntity.ok().body(tableService.getNextTables(tableId, quantity));
+        return tables(tableService.getNextTables(tableId, quantity));
     }
 
 
     @GetMapping("last")
     public ResponseEntity<List<TableCreatedDTO>> getTablesFromEnd(@RequestParam int quantity) {
-        return ResponseEntity.ok().body(tableService.getLastTables(quantity));
+        return tables(tableService.getLastTables(quantity));
     }
 
 
@@ -55,8 +119,9 @@ public class TableController {
 
 
     @GetMapping
-    public ResponseEntity<List<TableCreatedDTO>> fuzzySearch(@RequestParam String pattern) {
-        return ResponseEntity.ok(tableService.fuzzySearch(pattern));
+    public ResponseEntity<List<TableCreatedDTO>> fuzzySearch(@RequestParam String pattern,
+                                                             @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(tableService.fuzzySearch(pattern, limit));
     }
 
 
@@ -64,11 +129,89 @@ public class TableController {
      * REST controller endpoint for retrieving a complete table.
      *
      * @param tableId UUID of the table to fetch.
-     * @return HTTP 200 OK with a {@link TableContentDTO} containing the table’s metadata and content.
+     * @return HTTP 200 OK with a {@link TableContentDTO} containing the table’s metadata and content,
+     * or HTTP 304 Not Modified if {@code If-None-Match} has the current ETag.
      */
     @GetMapping("/{tableId}/content")
-    public ResponseEntity<TableContentDTO> getTableContent(@PathVariable UUID tableId) {
-        return ResponseEntity.ok(tableService.getTable(tableId));
+    public ResponseEntity<TableContentDTO> getTableContent(@PathVariable UUID tableId, WebRequest request) {
+        return tableContent(tableId, "json", request, MediaType.APPLICATION_JSON,
+                () -> tableService.getTable(tableId));
+    }
+
+
+    /**
+     * REST controller endpoint for retrieving a complete table in the compact columnar JSON form,
+     * selected with {@code Accept: application/vnd.tabula.columnar+json}.
+     *
+     * @param tableId UUID of the table to fetch.
+     * @return HTTP 200 OK with a {@link TableColumnarContentDTO} containing the table’s content,
+     * or HTTP 304 Not Modified if {@code If-None-Match} has the current ETag.
+     */
+    @GetMapping(value = "/{tableId}/content", produces = Constants.TABLE_COLUMNAR_JSON_VALUE)
+    public ResponseEntity<TableColumnarContentDTO> getTableContentColumnar(@PathVariable UUID tableId,
+                                                                           WebRequest request) {
+        return tableContent(tableId, "columnar", request, MediaType.valueOf(Constants.TABLE_COLUMNAR_JSON_VALUE),
+                () -> tableService.getTableColumnar(tableId));
+    }
+
+
+    /**
+     * REST controller endpoint for retrieving a complete table in the binary columnar form,
+     * selected with {@code Accept: application/octet-stream}. The layout is described
+     * in {@link com.github.bytestrick.tabula.service.TableContentBinaryEncoder}.
+     *
+     * @param tableId UUID of the table to fetch.
+     * @return HTTP 200 OK with the binary encoding of the table’s content,
+     * or HTTP 304 Not Modified if {@code If-None-Match} has the current ETag.
+     */
+    @GetMapping(value = "/{tableId}/content", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> getTableContentBinary(@PathVariable UUID tableId,
+                                                                       WebRequest request) {
+        return tableContent(tableId, "binary", request, MediaType.APPLICATION_OCTET_STREAM,
+                () -> tableService.getTableBinary(tableId));
+    }
+
+
+    /**
+     * REST controller endpoint for retrieving a complete table as a stream.
+     * The body has the same shape of the one of {@link #getTableContent(UUID)}, but it is written
+     * while it is read from the database, so large tables do not need to fit in memory.
+     *
+     * @param tableId UUID of the table to fetch.
+     * @return HTTP 200 OK with the table’s content serialized as a {@link TableContentDTO},
+     * or HTTP 304 Not Modified if {@code If-None-Match} has the current ETag.
+     */
+    @GetMapping("/{tableId}/content/stream")
+    public ResponseEntity<StreamingResponseBody> streamTableContent(@PathVariable UUID tableId, WebRequest request) {
+        return tableContent(tableId, "stream", request, MediaType.APPLICATION_JSON,
+                () -> tableService.streamTable(tableId));
+    }
+
+
+    /**
+     * REST controller endpoint for retrieving a window of a table, used to render large tables
+     * a viewport at a time.
+     *
+     * @param tableId    UUID of the table to fetch.
+     * @param fromRow    Zero-based index of the first row (inclusive).
+     * @param toRow      Zero-based index of the last row (exclusive).
+     * @param fromColumn Optional zero-based index of the first column (inclusive); defaults to the first column.
+     * @param toColumn   Optional zero-based index of the last column (exclusive); defaults to past the last column.
+     * @return HTTP 200 OK with a {@link TableViewportDTO} containing the cells of the window
+     * and the total number of rows and columns of the table, or HTTP 304 Not Modified if {@code If-None-Match}
+     * has the current ETag.
+     */
+    @GetMapping("/{tableId}/content/viewport")
+    public ResponseEntity<TableViewportDTO> getTableViewport(
+            @PathVariable UUID tableId,
+            @RequestParam int fromRow,
+            @RequestParam int toRow,
+            @RequestParam(required = false) Integer fromColumn,
+            @RequestParam(required = false) Integer toColumn,
+            WebRequest request) {
+
+        return tableContent(tableId, "viewport", request, MediaType.APPLICATION_JSON,
+                () -> tableService.getTableViewport(tableId, fromRow, toRow, fromColumn, toColumn));
     }
 
 
@@ -91,6 +234,23 @@ public class TableController {
     }
 
 
+    /**
+     * REST controller endpoint for creating several new rows at once in the specified table,
+     * optionally pre-filled with values (e.g. CSV import).
+     *
+     * @param tableId       UUID of the table in which to insert the rows.
+     * @param rowsCreateDTO Payload containing the optional insertion index, the number of rows and their values.
+     * @return HTTP 201 Created with a {@link RowsCreatedDTO} listing the ids of the new rows.
+     */
+    @PostMapping("/{tableId}/content/rows/bulk")
+    public ResponseEntity<RowsCreatedDTO> addNewRows(
+            @PathVariable UUID tableId, @Valid @RequestBody RowsCreateDTO rowsCreateDTO) {
+
+        RowsCreatedDTO rowsCreatedDTO = tableService.addNewRows(tableId, rowsCreateDTO);
+        return ResponseEntity.status(HttpStatus.CREATED).body(rowsCreatedDTO);
+    }
+
+
     /**
      * REST controller endpoint for moving rows within a table.
      *
@@ -144,6 +304,24 @@ public class TableController {
     }
 
 
+    /**
+     * REST controller endpoint for creating several new columns of the same data type at once
+     * in the specified table, optionally pre-filled with values.
+     *
+     * @param tableId          UUID of the table in which to insert the columns.
+     * @param columnsCreateDTO Payload containing dataTypeId, optional columnIndex, the number of columns
+     *                         and their values.
+     * @return HTTP 201 Created with a {@link ColumnsCreatedDTO} listing the ids of the new columns.
+     */
+    @PostMapping("/{tableId}/content/columns/bulk")
+    public ResponseEntity<ColumnsCreatedDTO> addNewColumns(
+            @PathVariable UUID tableId, @Valid @RequestBody ColumnsCreateDTO columnsCreateDTO) {
+
+        ColumnsCreatedDTO columnsCreatedDTO = tableService.addNewColumns(tableId, columnsCreateDTO);
+        return ResponseEntity.status(HttpStatus.CREATED).body(columnsCreatedDTO);
+    }
+
+
     /**
      * REST controller endpoint for deleting one or more columns from a specified table.
      *
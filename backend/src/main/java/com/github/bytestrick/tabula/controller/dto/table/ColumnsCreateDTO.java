@@ -0,0 +1,25 @@
+package com.github.bytestrick.tabula.controller.dto.table;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) sent by the frontend to the backend
+ * to request creation of several new columns of the same data type in a table at once.
+ *
+ * @param dataTypeId  Numeric code identifying the columns’ data type; must be zero or positive.
+ * @param columnIndex Optional zero-based position at which to insert the first new column;
+ *                    if {@code null}, the columns are appended at the end.
+ * @param count       Number of columns to create; must be between 1 and 1000.
+ * @param cellsValues Optional values of the new columns: the i-th list holds the values of the i-th
+ *                    new column, in row order. Missing columns or values are left empty.
+ */
+public record ColumnsCreateDTO(
+        @PositiveOrZero int dataTypeId,
+        @PositiveOrZero Integer columnIndex,
+        @Positive @Max(1000) int count,
+        List<List<String>> cellsValues
+) {}
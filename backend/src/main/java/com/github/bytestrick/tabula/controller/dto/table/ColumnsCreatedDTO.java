@@ -0,0 +1,20 @@
+package com.github.bytestrick.tabula.controller.dto.table;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object (DTO) sent by the backend to the frontend
+ * after several new columns have been created in a table.
+ *
+ * @param tableId     The unique identifier (UUID) of the table to which the columns belong.
+ * @param dataTypeId  Numeric code identifying the columns’ data type.
+ * @param columnIndex Zero-based position of the first new column within the table.
+ * @param ids         The unique identifiers (UUID) of the new columns, in index order.
+ */
+public record ColumnsCreatedDTO(
+        UUID tableId,
+        int dataTypeId,
+        int columnIndex,
+        List<UUID> ids
+) {}
@@ -9,7 +9,7 @@ import java.util.List;
  * of the columns that have been removed, so that the client view can be synchronized.
  * </p>
  *
- * @param indexes   Indexes of the deleted columns.
+ * @param indexes   Indexes that the deleted columns had before the deletion, in ascending order.
  */
 public record ColumnsDeletedDTO(
         List<Integer> indexes
@@ -0,0 +1,26 @@
+package com.github.bytestrick.tabula.controller.dto.table;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) sent by the frontend to the backend
+ * to request creation of several new rows in a table at once (e.g. CSV import).
+ *
+ * <p>If {@code rowIndex} is {@code null}, the rows are appended at the end;
+ * otherwise the first new row is inserted at {@code rowIndex} and the others follow it.</p>
+ *
+ * @param rowIndex    optional zero-based index at which to insert the first new row;
+ *                    if {@code null}, the rows are appended at the end
+ * @param count       number of rows to create; must be between 1 and 10000
+ * @param cellsValues optional values of the new rows: the i-th list holds the values of the i-th new row,
+ *                    in column order. Missing rows or values are left empty.
+ */
+public record RowsCreateDTO(
+        @PositiveOrZero Integer rowIndex,
+        @Positive @Max(10000) int count,
+        List<List<String>> cellsValues
+) {}
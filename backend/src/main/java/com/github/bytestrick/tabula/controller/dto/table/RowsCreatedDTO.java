@@ -0,0 +1,18 @@
+package com.github.bytestrick.tabula.controller.dto.table;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object (DTO) sent by the backend to the frontend
+ * after several new rows have been created in a table.
+ *
+ * @param tableId  the unique identifier (UUID) of the table to which the rows belong
+ * @param rowIndex zero-based position of the first new row within the table
+ * @param ids      the unique identifiers (UUID) of the new rows, in index order
+ */
+public record RowsCreatedDTO(
+        UUID tableId,
+        int rowIndex,
+        List<UUID> ids
+) {}
@@ -10,7 +10,7 @@ import java.util.List;
  * of the rows that have been removed, so that the client view can be synchronized.
  * </p>
  *
- * @param indexes   Indexes of the deleted rows.
+ * @param indexes   Indexes that the deleted rows had before the deletion, in ascending order.
  */
 public record RowsDeletedDTO(
         List<Integer> indexes
@@ -0,0 +1,27 @@
+package com.github.bytestrick.tabula.controller.dto.table;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object (DTO) representing the content of a table in columnar form.
+ * <p>
+ * Compact alternative to {@link TableContentDTO}: the header and the row ids are sent once
+ * and the cells are reduced to their values, so no UUID is repeated for every cell.
+ * </p>
+ *
+ * @param id      the unique identifier (UUID) of the table; must not be {@code null}
+ * @param header  list of {@link ColumnDTO} ordered by column index; must not be {@code null}
+ * @param rowIds  UUIDs of the rows ordered by row index; must not be {@code null}
+ * @param values  values of the cells in row-major order: the value of the cell at row {@code r}
+ *                and column {@code c} is at position {@code r * header.size() + c}; a missing
+ *                cell is an empty string; must not be {@code null}
+ */
+public record TableColumnarContentDTO(
+        @NotNull UUID id,
+        @NotNull List<ColumnDTO> header,
+        @NotNull List<UUID> rowIds,
+        @NotNull List<String> values
+) {}
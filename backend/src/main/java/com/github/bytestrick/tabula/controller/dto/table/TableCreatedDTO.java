@@ -11,5 +11,6 @@ public record TableCreatedDTO(
         String title,
         String description,
         LocalDateTime creationDate,
-        LocalDateTime lastEditDate
+        LocalDateTime lastEditDate,
+        long version
 ) {}
\ No newline at end of file
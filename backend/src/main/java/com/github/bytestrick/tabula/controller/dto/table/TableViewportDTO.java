@@ -0,0 +1,29 @@
+package com.github.bytestrick.tabula.controller.dto.table;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object (DTO) representing a rectangular window (viewport) of a table.
+ * Sent by the backend so that the frontend can render only the visible part of large tables.
+ *
+ * @param id             the unique identifier (UUID) of the table; must not be {@code null}
+ * @param rowsNumber     total number of rows of the table, not only of the viewport
+ * @param columnsNumber  total number of columns of the table, not only of the viewport
+ * @param fromRow        zero-based index of the first row of the viewport
+ * @param fromColumn     zero-based index of the first column of the viewport
+ * @param header         list of {@link ColumnDTO} of the columns inside the viewport; must not be {@code null}
+ * @param content        list of {@link RowDTO} of the rows inside the viewport, each one carrying only the
+ *                       cells of the columns inside the viewport; must not be {@code null}
+ */
+public record TableViewportDTO(
+        @NotNull UUID id,
+        int rowsNumber,
+        int columnsNumber,
+        int fromRow,
+        int fromColumn,
+        @NotNull List<ColumnDTO> header,
+        @NotNull List<RowDTO> content
+) {}
@@ -0,0 +1,26 @@
+package com.github.bytestrick.tabula.model;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Principal of an authenticated request.
+ * <p>
+ * It is resolved once per request by {@link com.github.bytestrick.tabula.config.JwtAuthenticationFilter} and
+ * carried in the {@code SecurityContext}, so that the services can read the id of the authenticated user
+ * without querying the {@code users} table again.
+ */
+@Getter
+public class AuthenticatedUser extends User {
+    private final UUID id;
+
+    public AuthenticatedUser(UUID id, String email, String encodedPassword,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(email, encodedPassword, authorities);
+        this.id = id;
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.bytestrick.tabula.model;
+
+import org.springframework.mail.SimpleMailMessage;
+
+import java.util.UUID;
+
+/**
+ * A mail waiting in the outbox to be sent
+ *
+ * @param attempts how many times sending it has failed
+ */
+public record OutboxMail(UUID id, String recipient, String subject, String text, int attempts) {
+
+    public SimpleMailMessage toMessage() {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(recipient);
+        message.setSubject(subject);
+        message.setText(text);
+        return message;
+    }
+}
@@ -16,7 +16,7 @@ import java.util.UUID;
 
 @Data
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class User {
     @NotNull
     private final UUID id;
@@ -10,7 +10,7 @@ import java.util.UUID;
  * <p>
  *  Properties:
  *  <ul>
- *      <li>{@code id} – unique UUID of the cell.</li>
+ *      <li>{@code id} – unique UUID of the cell; {@code null} for an empty cell, which has no record.</li>
  *      <li>{@code columnId} – UUID of the column this cell belongs to.</li>
  *      <li>{@code rowId} – UUID of the row this cell belongs to.</li>
  *      <li>{@code value} – String content stored in the cell.</li>
@@ -0,0 +1,202 @@
+package com.github.bytestrick.tabula.model.table;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable values of the cells of one column of a {@link CompactTable}, in row order.
+ * <p>
+ *  A column holding at most {@link #MAX_DICTIONARY_SIZE} distinct values is dictionary-encoded: every distinct
+ *  value is stored once and each cell is reduced to a one-byte code. Any other column keeps a plain array of
+ *  values. Missing values are stored as the empty string, which is never duplicated.
+ * </p>
+ */
+final class ColumnValues {
+
+    static final int MAX_DICTIONARY_SIZE = 256;
+
+    /** Size of an array header and of a reference, with compressed oops. */
+    private static final long ARRAY_BYTES = 16;
+    private static final long REFERENCE_BYTES = 4;
+    /** Size of a {@link String} and of its backing array, without the characters. */
+    private static final long STRING_BYTES = 40;
+
+    /** Distinct values, {@code null} if the column is not dictionary-encoded. */
+    private final String[] dictionary;
+    /** Index in {@link #dictionary} of the value of each cell, as an unsigned byte. */
+    private final byte[] codes;
+    /** Value of each cell, {@code null} if the column is dictionary-encoded. */
+    private final String[] values;
+
+    private ColumnValues(String[] dictionary, byte[] codes, String[] values) {
+        this.dictionary = dictionary;
+        this.codes = codes;
+        this.values = values;
+    }
+
+    /**
+     * Encodes the values of a column, {@code null} stands for a missing value.
+     * The array is not copied and may be kept, the caller must not change it afterwards.
+     */
+    static ColumnValues of(String[] values) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        byte[] codes = new byte[values.length];
+
+        for (int i = 0; i < values.length; ++i) {
+            String value = normalized(values[i]);
+            Integer code = dictionary.get(value);
+
+            if (code == null) {
+                if (dictionary.size() == MAX_DICTIONARY_SIZE)
+                    return plain(values);
+
+                code = dictionary.size();
+                dictionary.put(value, code);
+            }
+            codes[i] = (byte) (int) code;
+        }
+
+        String[] distinct = new String[dictionary.size()];
+        dictionary.forEach((value, code) -> distinct[code] = value);
+        return new ColumnValues(distinct, codes, null);
+    }
+
+    /** A column of {@code size} missing values. */
+    static ColumnValues empty(int size) {
+        return new ColumnValues(new String[]{""}, new byte[size], null);
+    }
+
+    private static ColumnValues plain(String[] values) {
+        for (int i = 0; i < values.length; ++i)
+            values[i] = normalized(values[i]);
+
+        return new ColumnValues(null, null, values);
+    }
+
+    private static String normalized(String value) {
+        return value == null || value.isEmpty() ? "" : value;
+    }
+
+    int size() {
+        return values != null ? values.length : codes.length;
+    }
+
+    String get(int row) {
+        return values != null ? values[row] : dictionary[codes[row] & 0xFF];
+    }
+
+    boolean isDictionaryEncoded() {
+        return dictionary != null;
+    }
+
+    /**
+     * Returns the values with the cell at {@code rows[k]} set to {@code newValues[k]}.
+     */
+    ColumnValues with(int[] rows, String[] newValues) {
+        if (values != null) {
+            String[] changed = values.clone();
+            for (int k = 0; k < rows.length; ++k)
+                changed[rows[k]] = normalized(newValues[k]);
+
+            return new ColumnValues(null, null, changed);
+        }
+
+        String[] changedDictionary = dictionary;
+        byte[] changedCodes = codes.clone();
+
+        for (int k = 0; k < rows.length; ++k) {
+            String value = normalized(newValues[k]);
+            int code = indexOf(changedDictionary, value);
+
+            if (code < 0) {
+                if (changedDictionary.length == MAX_DICTIONARY_SIZE) {
+                    String[] decoded = toArray();
+                    for (int l = 0; l < rows.length; ++l)
+                        decoded[rows[l]] = newValues[l];
+
+                    return of(decoded);
+                }
+
+                code = changedDictionary.length;
+                changedDictionary = Arrays.copyOf(changedDictionary, code + 1);
+                changedDictionary[code] = value;
+            }
+            changedCodes[rows[k]] = (byte) code;
+        }
+
+        return new ColumnValues(changedDictionary, changedCodes, null);
+    }
+
+    /**
+     * Returns the values of the given rows, in the given order; a negative row stands for a missing value.
+     */
+    ColumnValues select(int[] rows) {
+        if (values != null) {
+            String[] selected = new String[rows.length];
+            for (int i = 0; i < rows.length; ++i)
+                selected[i] = rows[i] < 0 ? "" : values[rows[i]];
+
+            return new ColumnValues(null, null, selected);
+        }
+
+        String[] selectedDictionary = dictionary;
+        int missingCode = indexOf(dictionary, "");
+
+        if (missingCode < 0 && Arrays.stream(rows).anyMatch(row -> row < 0)) {
+            if (dictionary.length == MAX_DICTIONARY_SIZE) {
+                String[] selected = new String[rows.length];
+                for (int i = 0; i < rows.length; ++i)
+                    selected[i] = rows[i] < 0 ? "" : get(rows[i]);
+
+                return of(selected);
+            }
+
+            missingCode = dictionary.length;
+            selectedDictionary = Arrays.copyOf(dictionary, missingCode + 1);
+            selectedDictionary[missingCode] = "";
+        }
+
+        byte[] selectedCodes = new byte[rows.length];
+        for (int i = 0; i < rows.length; ++i)
+            selectedCodes[i] = rows[i] < 0 ? (byte) missingCode : codes[rows[i]];
+
+        return new ColumnValues(selectedDictionary, selectedCodes, null);
+    }
+
+    /**
+     * Rough estimate of the heap taken by the values, in bytes: compact strings take one byte per character
+     * as long as they are Latin-1, the shared empty string is free.
+     */
+    long estimatedBytes() {
+        long bytes = 32;
+        String[] strings = values != null ? values : dictionary;
+
+        bytes += ARRAY_BYTES + REFERENCE_BYTES * strings.length;
+        for (String value : strings) {
+            if (!value.isEmpty())
+                bytes += STRING_BYTES + value.length();
+        }
+
+        if (codes != null)
+            bytes += ARRAY_BYTES + codes.length;
+
+        return bytes;
+    }
+
+    private String[] toArray() {
+        String[] decoded = new String[size()];
+        for (int i = 0; i < decoded.length; ++i)
+            decoded[i] = get(i);
+
+        return decoded;
+    }
+
+    private static int indexOf(String[] dictionary, String value) {
+        for (int code = 0; code < dictionary.length; ++code) {
+            if (dictionary[code].equals(value))
+                return code;
+        }
+        return -1;
+    }
+}
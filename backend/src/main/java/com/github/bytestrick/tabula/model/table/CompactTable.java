@@ -0,0 +1,362 @@
+package com.github.bytestrick.tabula.model.table;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable, compact in-memory representation of the whole content of a table, meant to be held for long.
+ * <p>
+ *  Properties:
+ *  <ul>
+ *      <li>{@code id} – UUID of the table.</li>
+ *      <li>{@code columnIdsMsb}, {@code columnIdsLsb} – most and least significant bits of the UUIDs of the
+ *          columns, in display order.</li>
+ *      <li>{@code dataTypes}, {@code columnNames} – data type identifier and name of each column.</li>
+ *      <li>{@code rowIdsMsb}, {@code rowIdsLsb} – most and least significant bits of the UUIDs of the rows,
+ *          in display order.</li>
+ *      <li>{@code columns} – the values of the cells, column by column, dictionary-encoded when a column
+ *          holds few distinct values.</li>
+ *  </ul>
+ * </p>
+ * Unlike a list of {@link Row}s of {@link Cell}s, no object is kept per row or per cell: a table of a million
+ * cells takes a few arrays per column. Missing cells hold the empty string.
+ * <p>
+ *  The {@code with...} methods return a changed copy that shares the arrays of the columns it does not change,
+ *  so a table can be read by several threads while it is being changed.
+ * </p>
+ */
+public final class CompactTable {
+
+    private final UUID id;
+    private final long[] columnIdsMsb;
+    private final long[] columnIdsLsb;
+    private final int[] dataTypes;
+    private final String[] columnNames;
+    private final long[] rowIdsMsb;
+    private final long[] rowIdsLsb;
+    private final ColumnValues[] columns;
+
+    private CompactTable(UUID id, long[] columnIdsMsb, long[] columnIdsLsb, int[] dataTypes, String[] columnNames,
+                         long[] rowIdsMsb, long[] rowIdsLsb, ColumnValues[] columns) {
+        this.id = id;
+        this.columnIdsMsb = columnIdsMsb;
+        this.columnIdsLsb = columnIdsLsb;
+        this.dataTypes = dataTypes;
+        this.columnNames = columnNames;
+        this.rowIdsMsb = rowIdsMsb;
+        this.rowIdsLsb = rowIdsLsb;
+        this.columns = columns;
+    }
+
+    public static Builder builder(UUID id) {
+        return new Builder(id);
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public int getRowsNumber() {
+        return rowIdsMsb.length;
+    }
+
+    public int getColumnsNumber() {
+        return columnIdsMsb.length;
+    }
+
+    public UUID getRowId(int row) {
+        return new UUID(rowIdsMsb[row], rowIdsLsb[row]);
+    }
+
+    public UUID getColumnId(int column) {
+        return new UUID(columnIdsMsb[column], columnIdsLsb[column]);
+    }
+
+    public int getDataType(int column) {
+        return dataTypes[column];
+    }
+
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    /**
+     * @return the value of the cell, the empty string if it is missing.
+     */
+    public String getValue(int row, int column) {
+        return columns[column].get(row);
+    }
+
+    /**
+     * @return the zero-based index of the column, -1 if the table has no such column.
+     */
+    public int indexOfColumn(UUID columnId) {
+        return indexOf(columnIdsMsb, columnIdsLsb, columnId);
+    }
+
+    /**
+     * @return the zero-based index of the row, -1 if the table has no such row.
+     */
+    public int indexOfRow(UUID rowId) {
+        return indexOf(rowIdsMsb, rowIdsLsb, rowId);
+    }
+
+    /**
+     * Whether the values of a column are dictionary-encoded, see {@link ColumnValues}.
+     */
+    public boolean isDictionaryEncoded(int column) {
+        return columns[column].isDictionaryEncoded();
+    }
+
+    /**
+     * Rough estimate of the heap taken by the table, in bytes.
+     */
+    public long getEstimatedBytes() {
+        // the arrays of the table and, per column and per row, its entries in them
+        long bytes = 160 + 32L * columns.length + 16L * rowIdsMsb.length;
+        for (int j = 0; j < columns.length; ++j) {
+            bytes += columns[j].estimatedBytes();
+            if (columnNames[j] != null)
+                bytes += 40 + columnNames[j].length();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the table with the cell at row {@code rows[k]} and column {@code columns[k]} set to
+     * {@code values[k]}; a {@code null} value empties the cell.
+     */
+    public CompactTable withValues(int[] rows, int[] columns, String[] values) {
+        Map<Integer, List<Integer>> changesByColumn = new HashMap<>();
+        for (int k = 0; k < columns.length; ++k)
+            changesByColumn.computeIfAbsent(columns[k], column -> new ArrayList<>()).add(k);
+
+        ColumnValues[] changed = this.columns.clone();
+        changesByColumn.forEach((column, changes) -> {
+            int[] columnRows = new int[changes.size()];
+            String[] columnValues = new String[changes.size()];
+
+            for (int l = 0; l < columnRows.length; ++l) {
+                columnRows[l] = rows[changes.get(l)];
+                columnValues[l] = values[changes.get(l)];
+            }
+            changed[column] = changed[column].with(columnRows, columnValues);
+        });
+
+        return new CompactTable(id, columnIdsMsb, columnIdsLsb, dataTypes, columnNames,
+                rowIdsMsb, rowIdsLsb, changed);
+    }
+
+    /**
+     * Returns the table with empty rows inserted starting at {@code index}.
+     */
+    public CompactTable withRowsInserted(int index, List<UUID> rowIds) {
+        int rowsNumber = getRowsNumber() + rowIds.size();
+        int[] sources = new int[rowsNumber];
+        long[] msb = new long[rowsNumber];
+        long[] lsb = new long[rowsNumber];
+
+        for (int i = 0; i < rowsNumber; ++i) {
+            int inserted = i - index;
+            if (inserted >= 0 && inserted < rowIds.size()) {
+                sources[i] = -1;
+                msb[i] = rowIds.get(inserted).getMostSignificantBits();
+                lsb[i] = rowIds.get(inserted).getLeastSignificantBits();
+            } else {
+                sources[i] = inserted < 0 ? i : i - rowIds.size();
+                msb[i] = rowIdsMsb[sources[i]];
+                lsb[i] = rowIdsLsb[sources[i]];
+            }
+        }
+
+        return new CompactTable(id, columnIdsMsb, columnIdsLsb, dataTypes, columnNames, msb, lsb,
+                selected(sources));
+    }
+
+    /**
+     * Returns the table made of the rows at the given indexes, in the given order; the other rows are left out.
+     */
+    public CompactTable withRows(int[] sources) {
+        long[] msb = new long[sources.length];
+        long[] lsb = new long[sources.length];
+
+        for (int i = 0; i < sources.length; ++i) {
+            msb[i] = rowIdsMsb[sources[i]];
+            lsb[i] = rowIdsLsb[sources[i]];
+        }
+
+        return new CompactTable(id, columnIdsMsb, columnIdsLsb, dataTypes, columnNames, msb, lsb,
+                selected(sources));
+    }
+
+    /**
+     * Returns the table with empty columns of the same data type and name inserted starting at {@code index}.
+     */
+    public CompactTable withColumnsInserted(int index, List<UUID> columnIds, int dataType, String name) {
+        int columnsNumber = getColumnsNumber() + columnIds.size();
+        int[] sources = new int[columnsNumber];
+        long[] msb = new long[columnsNumber];
+        long[] lsb = new long[columnsNumber];
+        int[] types = new int[columnsNumber];
+        String[] names = new String[columnsNumber];
+        ColumnValues[] values = new ColumnValues[columnsNumber];
+
+        for (int j = 0; j < columnsNumber; ++j) {
+            int inserted = j - index;
+            if (inserted >= 0 && inserted < columnIds.size()) {
+                msb[j] = columnIds.get(inserted).getMostSignificantBits();
+                lsb[j] = columnIds.get(inserted).getLeastSignificantBits();
+                types[j] = dataType;
+                names[j] = name;
+                values[j] = ColumnValues.empty(getRowsNumber());
+            } else {
+                sources[j] = inserted < 0 ? j : j - columnIds.size();
+                msb[j] = columnIdsMsb[sources[j]];
+                lsb[j] = columnIdsLsb[sources[j]];
+                types[j] = dataTypes[sources[j]];
+                names[j] = columnNames[sources[j]];
+                values[j] = columns[sources[j]];
+            }
+        }
+
+        return new CompactTable(id, msb, lsb, types, names, rowIdsMsb, rowIdsLsb, values);
+    }
+
+    /**
+     * Returns the table made of the columns at the given indexes, in the given order; the other columns are
+     * left out.
+     */
+    public CompactTable withColumns(int[] sources) {
+        long[] msb = new long[sources.length];
+        long[] lsb = new long[sources.length];
+        int[] types = new int[sources.length];
+        String[] names = new String[sources.length];
+        ColumnValues[] values = new ColumnValues[sources.length];
+
+        for (int j = 0; j < sources.length; ++j) {
+            msb[j] = columnIdsMsb[sources[j]];
+            lsb[j] = columnIdsLsb[sources[j]];
+            types[j] = dataTypes[sources[j]];
+            names[j] = columnNames[sources[j]];
+            values[j] = columns[sources[j]];
+        }
+
+        return new CompactTable(id, msb, lsb, types, names, rowIdsMsb, rowIdsLsb, values);
+    }
+
+    /**
+     * Returns the table with the data type and the name of a column replaced, its values are kept.
+     */
+    public CompactTable withColumn(int column, int dataType, String name) {
+        int[] types = dataTypes.clone();
+        String[] names = columnNames.clone();
+        types[column] = dataType;
+        names[column] = name;
+
+        return new CompactTable(id, columnIdsMsb, columnIdsLsb, types, names, rowIdsMsb, rowIdsLsb, columns);
+    }
+
+    /**
+     * Returns the table with every cell of a column emptied.
+     */
+    public CompactTable withColumnCleared(int column) {
+        ColumnValues[] values = columns.clone();
+        values[column] = ColumnValues.empty(getRowsNumber());
+
+        return new CompactTable(id, columnIdsMsb, columnIdsLsb, dataTypes, columnNames, rowIdsMsb, rowIdsLsb,
+                values);
+    }
+
+    private ColumnValues[] selected(int[] rows) {
+        ColumnValues[] selected = new ColumnValues[columns.length];
+        for (int j = 0; j < columns.length; ++j)
+            selected[j] = columns[j].select(rows);
+
+        return selected;
+    }
+
+    private static int indexOf(long[] msb, long[] lsb, UUID id) {
+        long mostSignificantBits = id.getMostSignificantBits();
+        long leastSignificantBits = id.getLeastSignificantBits();
+
+        for (int i = 0; i < msb.length; ++i) {
+            if (msb[i] == mostSignificantBits && lsb[i] == leastSignificantBits)
+                return i;
+        }
+        return -1;
+    }
+
+
+    /**
+     * Collects the header first, then the row ids and finally the values of the cells, which can be set in any
+     * order; the cells never set are missing.
+     */
+    public static final class Builder {
+
+        private final UUID id;
+        private final List<UUID> columnIds = new ArrayList<>();
+        private final List<Integer> dataTypes = new ArrayList<>();
+        private final List<String> columnNames = new ArrayList<>();
+        private final List<UUID> rowIds = new ArrayList<>();
+        private String[][] values;
+
+        private Builder(UUID id) {
+            this.id = id;
+        }
+
+        public Builder column(UUID columnId, int dataType, String name) {
+            ensureNoValues();
+            columnIds.add(columnId);
+            dataTypes.add(dataType);
+            columnNames.add(name);
+            return this;
+        }
+
+        public Builder row(UUID rowId) {
+            ensureNoValues();
+            rowIds.add(rowId);
+            return this;
+        }
+
+        public Builder value(int row, int column, String value) {
+            if (values == null)
+                values = new String[columnIds.size()][rowIds.size()];
+
+            values[column][row] = value;
+            return this;
+        }
+
+        public CompactTable build() {
+            long[] columnIdsMsb = new long[columnIds.size()];
+            long[] columnIdsLsb = new long[columnIds.size()];
+            ColumnValues[] columns = new ColumnValues[columnIds.size()];
+
+            for (int j = 0; j < columns.length; ++j) {
+                columnIdsMsb[j] = columnIds.get(j).getMostSignificantBits();
+                columnIdsLsb[j] = columnIds.get(j).getLeastSignificantBits();
+                columns[j] = values == null ? ColumnValues.empty(rowIds.size()) : ColumnValues.of(values[j]);
+            }
+
+            long[] rowIdsMsb = new long[rowIds.size()];
+            long[] rowIdsLsb = new long[rowIds.size()];
+
+            for (int i = 0; i < rowIdsMsb.length; ++i) {
+                rowIdsMsb[i] = rowIds.get(i).getMostSignificantBits();
+                rowIdsLsb[i] = rowIds.get(i).getLeastSignificantBits();
+            }
+
+            values = null;
+            return new CompactTable(id, columnIdsMsb, columnIdsLsb,
+                    dataTypes.stream().mapToInt(Integer::intValue).toArray(),
+                    columnNames.toArray(String[]::new), rowIdsMsb, rowIdsLsb, columns);
+        }
+
+        private void ensureNoValues() {
+            if (values != null)
+                throw new IllegalStateException("Columns and rows must be added before the values");
+        }
+    }
+}
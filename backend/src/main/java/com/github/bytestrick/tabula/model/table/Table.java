@@ -21,6 +21,7 @@ import java.util.UUID;
  *     <li>{@code description} – an optional description of the table;</li>
  *     <li>{@code creationDate} – the timestamp when the table was first created;</li>
  *     <li>{@code lastEditDate} – the timestamp of the most recent modification;</li>
+ *     <li>{@code version} – bumped by every change of the table or of its content;</li>
  *     <li>{@code userId} – the {@link UUID} of the user who owns or created the table;</li>
  *     <li>{@code columns} – a list of {@link ColumnProxy} instances representing each column in the table;</li>
  *     <li>{@code rows} – a list of {@link RowProxy} instances representing each row in the table.</li>
@@ -46,6 +47,7 @@ public class Table {
     private String description;
     private LocalDateTime creationDate;
     private LocalDateTime lastEditDate;
+    private long version;
     private UUID userId;
 
     private List<ColumnProxy> columns;
@@ -1,11 +1,14 @@
 package com.github.bytestrick.tabula.repository;
 
+import com.github.bytestrick.tabula.model.Pair;
 import com.github.bytestrick.tabula.service.JwtProvider;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Repository;
 
 import java.text.ParseException;
+import java.time.Instant;
+import java.util.List;
 
 @Repository
 @RequiredArgsConstructor
@@ -25,5 +28,15 @@ public class InvalidJwtDao {
                 .query()
                 .optionalValue().isPresent();
     }
-}
 
+    /**
+     * Find the revoked tokens that have not expired yet, with their expiration
+     */
+    public List<Pair<String, Instant>> findNotExpired() {
+        return jdbcClient.sql("SELECT token, expiration_date FROM invalid_jwts WHERE expiration_date > now()")
+                .query((rs, rowNum) -> new Pair<>(
+                        rs.getString("token"),
+                        rs.getTimestamp("expiration_date").toInstant()))
+                .list();
+    }
+}
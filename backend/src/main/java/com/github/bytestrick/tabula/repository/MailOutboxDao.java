@@ -0,0 +1,76 @@
+package com.github.bytestrick.tabula.repository;
+
+import com.github.bytestrick.tabula.model.OutboxMail;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class MailOutboxDao {
+    private final JdbcClient jdbcClient;
+
+    /**
+     * Store a mail whose first attempt, if not made before, is due after {@code delay}
+     */
+    public void save(OutboxMail mail, Duration delay) {
+        jdbcClient.sql("""
+                        INSERT INTO mail_outbox (id, recipient, subject, text, attempts, next_attempt)
+                        VALUES (:id, :recipient, :subject, :text, :attempts, now() + make_interval(secs => :delay))
+                        """)
+                .param("id", mail.id())
+                .param("recipient", mail.recipient())
+                .param("subject", mail.subject())
+                .param("text", mail.text())
+                .param("attempts", mail.attempts())
+                .param("delay", delay.toMillis() / 1000.0)
+                .update();
+    }
+
+    /**
+     * Find the mails whose next attempt is due, the most overdue first
+     */
+    public List<OutboxMail> findDue(int limit) {
+        return jdbcClient.sql("""
+                        SELECT id, recipient, subject, text, attempts
+                        FROM mail_outbox
+                        WHERE next_attempt <= now()
+                        ORDER BY next_attempt
+                        LIMIT :limit
+                        """)
+                .param("limit", limit)
+                .query((rs, rowNum) -> new OutboxMail(
+                        rs.getObject("id", UUID.class),
+                        rs.getString("recipient"),
+                        rs.getString("subject"),
+                        rs.getString("text"),
+                        rs.getInt("attempts")))
+                .list();
+    }
+
+    /**
+     * Record a failed attempt and postpone the next one by {@code delay}
+     */
+    public void reschedule(UUID id, int attempts, Duration delay) {
+        jdbcClient.sql("""
+                        UPDATE mail_outbox
+                        SET attempts = :attempts, next_attempt = now() + make_interval(secs => :delay)
+                        WHERE id = :id
+                        """)
+                .param("id", id)
+                .param("attempts", attempts)
+                .param("delay", delay.toMillis() / 1000.0)
+                .update();
+    }
+
+    public void delete(Collection<UUID> ids) {
+        jdbcClient.sql("DELETE FROM mail_outbox WHERE id IN (:ids)")
+                .param("ids", ids)
+                .update();
+    }
+}
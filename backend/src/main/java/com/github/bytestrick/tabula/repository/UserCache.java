@@ -0,0 +1,116 @@
+package com.github.bytestrick.tabula.repository;
+
+import com.github.bytestrick.tabula.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived cache of the users read by {@link UserDao#findByEmail(String)}, keyed by email.
+ * <p>
+ * It is disabled unless {@code app.user-cache.ttl} is a positive duration. {@link UserDao} evicts a user
+ * whenever it writes it, so the cache can only serve stale data for changes made outside this application.
+ * Copies of the cached users are returned, as callers are free to modify them.
+ * <p>
+ * A write evicts the user at once and, when it runs in a transaction, again after the transaction commits: until
+ * then, concurrent reads still find the previous row. Moreover a user read before an eviction is not cached, see
+ * {@link #put(User, long)}, so a read that started before the commit cannot bring the previous row back either.
+ */
+@Component
+public class UserCache {
+    /**
+     * Number of entries above which the expired ones are purged when a new one is added
+     */
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final Duration ttl;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    /**
+     * Number of evictions so far
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    private record Entry(User user, long expiresAt) {
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    public UserCache(@Value("${app.user-cache.ttl:0s}") Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public boolean isEnabled() {
+        return ttl.isPositive();
+    }
+
+    public Optional<User> get(String email) {
+        Entry entry = entries.get(email);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(email, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.user().toBuilder().build());
+    }
+
+    /**
+     * To be taken before reading a user from the database, and passed to {@link #put(User, long)}
+     */
+    public long stamp() {
+        return evictions.get();
+    }
+
+    /**
+     * Cache a user read after {@code stamp} was taken, unless any user was evicted meanwhile: the user may have
+     * been read before a change that has since committed
+     */
+    public void put(User user, long stamp) {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (entries.size() >= PURGE_THRESHOLD) {
+            entries.values().removeIf(entry -> entry.isExpired(now));
+        }
+        Entry entry = new Entry(user.toBuilder().build(), now + ttl.toNanos());
+        entries.put(user.getEmail(), entry);
+        // checked after the put, as an eviction counts first and removes then
+        if (evictions.get() != stamp) {
+            entries.remove(user.getEmail(), entry);
+        }
+    }
+
+    public void evict(String email) {
+        evictNowAndAfterCommit(() -> entries.remove(email));
+    }
+
+    public void evict(UUID id) {
+        evictNowAndAfterCommit(() -> entries.values().removeIf(entry -> entry.user().getId().equals(id)));
+    }
+
+    private void evictNowAndAfterCommit(Runnable eviction) {
+        evictions.incrementAndGet();
+        eviction.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictions.incrementAndGet();
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserDao {
     private final JdbcClient jdbcClient;
+    private final UserCache userCache;
 
     /**
      * Map all the colums from the {@code users} table to all the fields of a {@link User} object.
@@ -60,13 +61,23 @@ public class UserDao {
         return null;
     }
 
+    /**
+     * Find a user by email, going through the {@link UserCache} when it is enabled.
+     */
     public Optional<User> findByEmail(String email) {
+        Optional<User> cached = userCache.get(email);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        long stamp = userCache.stamp();
         SqlRowSet row = jdbcClient.sql("SELECT * FROM users WHERE email = :email")
                 .param("email", email)
                 .query()
                 .rowSet();
         if (row.next()) {
-            return Optional.of(buildUserFromRow(row));
+            User user = buildUserFromRow(row);
+            userCache.put(user, stamp);
+            return Optional.of(user);
         }
         return Optional.empty();
     }
@@ -82,6 +93,7 @@ public class UserDao {
         jdbcClient.sql("DELETE FROM users WHERE email = :email")
                 .param("email", email)
                 .update();
+        userCache.evict(email);
     }
 
     public void save(User user) {
@@ -112,6 +124,7 @@ public class UserDao {
         jdbcClient.sql("UPDATE users SET enabled = TRUE, otp = NULL, otp_expiration = NULL WHERE email = :email")
                 .param("email", user.getEmail())
                 .update();
+        userCache.evict(user.getEmail());
     }
 
     @Transactional
@@ -121,6 +134,7 @@ public class UserDao {
                 .param("expiration", user.getOtpExpiration())
                 .param("email", user.getEmail())
                 .update();
+        userCache.evict(user.getEmail());
     }
 
     @Transactional
@@ -129,6 +143,7 @@ public class UserDao {
                 .param("id", id)
                 .param("pw", encodedPassword)
                 .update();
+        userCache.evict(id);
     }
 
     @Transactional
@@ -137,6 +152,7 @@ public class UserDao {
                 .param("encoded_password", encodedPassword)
                 .param("email", email)
                 .update();
+        userCache.evict(email);
     }
 
     @Transactional
@@ -157,5 +173,7 @@ public class UserDao {
                 .param("country_name", country.name())
                 .param("new_email", newEmail)
                 .update();
+        userCache.evict(email);
+        userCache.evict(newEmail);
     }
 }
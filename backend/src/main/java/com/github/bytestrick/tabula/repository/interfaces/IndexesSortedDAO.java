@@ -1,11 +1,14 @@
 package com.github.bytestrick.tabula.repository.interfaces;
 
+import com.github.bytestrick.tabula.model.Pair;
+
 import java.util.List;
 import java.util.UUID;
 
 /**
  * DAO interface for retrieving sorted indexes of entities (rows, columns)
- * based on their UUIDs.
+ * based on their UUIDs, and for reordering them through their ordering keys
+ * (see {@link com.github.bytestrick.tabula.repository.table.OrderKeys}).
  */
 public interface IndexesSortedDAO {
 
@@ -29,4 +32,23 @@ public interface IndexesSortedDAO {
      * @return        A list of indexes (zero-based) sorted in descending order.
      */
     List<Integer> findIndexesFromIdsSortedDescending(UUID tableId, List<UUID> ids);
+
+
+    /**
+     * Returns the UUIDs and the ordering keys of all the entities of a table, in index order.
+     *
+     * @param tableId The unique identifier of the table containing the entities.
+     * @return        A list of (UUID, ordering key) pairs sorted by ordering key; the position in the list
+     *                is the zero-based index of the entity.
+     */
+    List<Pair<UUID, Long>> findOrderKeys(UUID tableId);
+
+
+    /**
+     * Assigns new ordering keys to a batch of entities of the same table, in as few statements as possible.
+     *
+     * @param tableId   The unique identifier of the table containing the entities.
+     * @param orderKeys The (UUID, new ordering key) pairs of the entities to update.
+     */
+    void updateOrderKeys(UUID tableId, List<Pair<UUID, Long>> orderKeys);
 }
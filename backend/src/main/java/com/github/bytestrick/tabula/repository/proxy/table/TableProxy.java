@@ -19,11 +19,12 @@ public class TableProxy extends Table {
                       String description,
                       LocalDateTime creationDate,
                       LocalDateTime lastEditDate,
+                      long version,
                       UUID userId,
                       RowDAO rowDAO,
                       ColumnDAO columnDAO) {
 
-        super(id, title, description, creationDate, lastEditDate, userId, null, null);
+        super(id, title, description, creationDate, lastEditDate, version, userId, null, null);
 
         this.rowDAO = rowDAO;
         this.columnDAO = columnDAO;
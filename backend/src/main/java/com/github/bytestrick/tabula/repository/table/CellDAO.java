@@ -1,34 +1,76 @@
 package com.github.bytestrick.tabula.repository.table;
 
 import com.github.bytestrick.tabula.model.table.Cell;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Repository;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Handles operations related to the 'cell' table.
+ * <p>
+ *  Cells are stored sparsely: only non-empty cells have a record, a missing record means an empty value.
+ *  Writes of a non-empty value are upserts on {@code (tbl_row, tbl_column)}, writes of an empty value
+ *  delete the record, and the reads returning whole rows or columns fill the gaps with empty cells.
+ * </p>
+ * <p>
+ *  Along with the value, the cells of Numeric and Monetary columns keep a typed copy of it, so that numeric
+ *  operations can run in the database and use its indexes: {@code numeric_value} for the Numeric ones, and
+ *  {@code minor_units} and {@code currency} for the Monetary ones. Every write derives them from the data type of
+ *  the column, with the {@code cell_*} functions of the schema; they are {@code NULL} when the value does not parse.
+ * </p>
+ */
 @RequiredArgsConstructor
+@Timed("tabula.dao")
 @Repository
 public class CellDAO {
     private final JdbcClient jdbcClient;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /** Writes nothing if the column does not exist. */
+    private static final String UPSERT_CELL = """
+                INSERT INTO cell (id, tbl_row, tbl_column, value, numeric_value, minor_units, currency)
+                SELECT gen_random_uuid(), :rowId, mc.id, :newValue,
+                       CASE dt.name WHEN 'Numeric' THEN cell_numeric_value(:newValue) END,
+                       CASE dt.name WHEN 'Monetary' THEN cell_minor_units(:newValue) END,
+                       CASE dt.name WHEN 'Monetary' THEN cell_currency(:newValue) END
+                FROM tbl_column mc
+                LEFT JOIN data_type dt ON dt.id = mc.data_type
+                WHERE mc.id = :columnId
+                ON CONFLICT (tbl_row, tbl_column) DO UPDATE
+                    SET value = EXCLUDED.value,
+                        numeric_value = EXCLUDED.numeric_value,
+                        minor_units = EXCLUDED.minor_units,
+                        currency = EXCLUDED.currency
+            """;
+
+    private static final String DELETE_CELL = """
+                DELETE FROM cell
+                WHERE tbl_row = :rowId and tbl_column = :columnId
+            """;
 
     /**
-     * Updates the value of a single cell identified by its row and column UUIDs.
+     * Sets the value of a single cell identified by its row and column UUIDs.
+     * An empty value removes the cell record.
      *
      * @param rowId     UUID of the row containing the cell.
      * @param columnId  UUID of the column containing the cell.
      * @param newValue  New string value to set in the cell.
      */
     public void updateCell(UUID rowId, UUID columnId, String newValue) {
-        jdbcClient.sql("""
-                UPDATE cell
-                SET value = :newValue
-                WHERE tbl_row = :rowId and tbl_column = :columnId
-            """)
+        jdbcClient.sql(isEmpty(newValue) ? DELETE_CELL : UPSERT_CELL)
                 .param("newValue", newValue)
                 .param("rowId", rowId)
                 .param("columnId", columnId)
@@ -36,12 +78,50 @@ public class CellDAO {
     }
 
     /**
-     * Retrieves the IDs of all columns that have cells in the given row.
+     * Sets the values of many cells with at most two JDBC batches: one upserting the non-empty values
+     * and one deleting the cells set to an empty value.
+     * <p>
+     *  Each {@link Cell} identifies the target by {@code rowId} and {@code columnId}; its {@code id} is ignored.
+     *  When the same cell appears more than once only its last value is written.
+     * </p>
+     *
+     * @param cells Cells carrying the row UUID, the column UUID and the new value.
+     */
+    public void updateCells(List<Cell> cells) {
+        if (cells.isEmpty())
+            return;
+
+        // an upsert batch may not touch the same cell twice, keep the last value of each cell
+        Map<List<UUID>, Cell> lastWrites = new LinkedHashMap<>();
+        for (Cell cell : cells)
+            lastWrites.put(List.of(cell.getRowId(), cell.getColumnId()), cell);
+
+        List<SqlParameterSource> upserts = new ArrayList<>();
+        List<SqlParameterSource> deletes = new ArrayList<>();
+
+        for (Cell cell : lastWrites.values()) {
+            SqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("newValue", cell.getValue())
+                    .addValue("rowId", cell.getRowId())
+                    .addValue("columnId", cell.getColumnId());
+
+            (isEmpty(cell.getValue()) ? deletes : upserts).add(params);
+        }
+
+        if (!upserts.isEmpty())
+            namedParameterJdbcTemplate.batchUpdate(UPSERT_CELL, upserts.toArray(SqlParameterSource[]::new));
+
+        if (!deletes.isEmpty())
+            namedParameterJdbcTemplate.batchUpdate(DELETE_CELL, deletes.toArray(SqlParameterSource[]::new));
+    }
+
+    /**
+     * Retrieves the IDs of all columns that have a non-empty cell in the given row.
      *
      * @param rowId
      *   UUID of the row whose column IDs are to be fetched.
      * @return
-     *   List of UUIDs representing each column that has a cell in the specified row.
+     *   List of UUIDs representing each column that has a non-empty cell in the specified row.
      */
     public List<UUID> findRowCellsColumnsIds(UUID rowId) {
         return jdbcClient.sql("""
@@ -55,12 +135,12 @@ public class CellDAO {
     }
 
     /**
-     * Retrieves the IDs of all rows that have cells in the given column.
+     * Retrieves the IDs of all rows that have a non-empty cell in the given column.
      *
      * @param columnId
      *   UUID of the column whose row IDs are to be fetched.
      * @return
-     *   List of UUIDs representing each row that has a cell in the specified column.
+     *   List of UUIDs representing each row that has a non-empty cell in the specified column.
      */
     public List<UUID> findColumnCellsRowsIds(UUID columnId) {
         return jdbcClient.sql("""
@@ -75,17 +155,19 @@ public class CellDAO {
 
     /**
      * Retrieves all cells belonging to a specific row, ordered by their column index.
+     * Missing cells are returned as empty cells with a {@code null} id.
      *
      * @param rowId UUID of the row whose cells are to be fetched.
      * @return      List of {@link Cell} objects in ascending order of their column positions.
      */
     public List<Cell> findRowCells(UUID rowId) {
         return jdbcClient.sql("""
-                SELECT c.*
-                FROM cell c
-                INNER JOIN tbl_column mc on mc.id = c.tbl_column
-                WHERE c.tbl_row = :rowId
-                ORDER BY mc.column_index
+                SELECT c.id, mc.id AS tbl_column, mr.id AS tbl_row, COALESCE(c.value, '') AS value
+                FROM tbl_row mr
+                INNER JOIN tbl_column mc ON mc.tbl_table = mr.tbl_table
+                LEFT JOIN cell c ON c.tbl_row = mr.id AND c.tbl_column = mc.id
+                WHERE mr.id = :rowId
+                ORDER BY mc.column_order
             """)
                 .param("rowId", rowId)
                 .query(new CellMapper()).list();
@@ -93,32 +175,34 @@ public class CellDAO {
 
     /**
      * Retrieves all cells belonging to a specific column, ordered by their row index.
+     * Missing cells are returned as empty cells with a {@code null} id.
      *
      * @param columnId UUID of the column whose cells are to be fetched.
      * @return         List of {@link Cell} objects in ascending order of their row positions.
      */
     public List<Cell> findColumnCells(UUID columnId) {
         return jdbcClient.sql("""
-                SELECT c.*
-                FROM cell c
-                INNER JOIN tbl_row mr on mr.id = c.tbl_row
-                WHERE c.tbl_column = :columnId
-                ORDER BY mr.row_index
+                SELECT c.id, mc.id AS tbl_column, mr.id AS tbl_row, COALESCE(c.value, '') AS value
+                FROM tbl_column mc
+                INNER JOIN tbl_row mr ON mr.tbl_table = mc.tbl_table
+                LEFT JOIN cell c ON c.tbl_row = mr.id AND c.tbl_column = mc.id
+                WHERE mc.id = :columnId
+                ORDER BY mr.row_order
             """)
                 .param("columnId", columnId)
                 .query(new CellMapper()).list();
     }
 
     /**
-     * Resets the value of all cells in a given column to the empty string.
+     * Resets the value of all cells in a given column to the empty string, i.e. removes their records,
+     * typed copies included.
      *
      * @param columnId
      *   UUID of the column whose cells should be cleared.
      */
     public void resetColumnCellsValues(UUID columnId) {
         jdbcClient.sql("""
-                UPDATE cell
-                SET value = ''
+                DELETE FROM cell
                 WHERE tbl_column = :columnId
             """)
                 .param("columnId", columnId)
@@ -126,53 +210,54 @@ public class CellDAO {
     }
 
     /**
-     * Updates the value of a cell in a specific row.
+     * Copies every non-empty cell of a row into another row of the same table.
      *
-     * @param rowId       UUID of the row containing the cell to update.
-     * @param columnIndex Zero-based index of the column within that row.
-     * @param value       New string value to set in the cell.
+     * @param sourceRowId UUID of the row whose cells are copied.
+     * @param targetRowId UUID of the row receiving the values; it is expected to be empty.
      */
-    public void setRowCellValue(UUID rowId, int columnIndex, String value) {
+    public void copyRowCells(UUID sourceRowId, UUID targetRowId) {
         jdbcClient.sql("""
-                UPDATE cell
-                SET value = :newValue
-                WHERE tbl_row = :rowId AND tbl_column = (SELECT id
-                                                         FROM tbl_column
-                                                         WHERE column_index = :columnIndex)
+                INSERT INTO cell (id, tbl_row, tbl_column, value, numeric_value, minor_units, currency)
+                SELECT gen_random_uuid(), :targetRowId, tbl_column, value, numeric_value, minor_units, currency
+                FROM cell
+                WHERE tbl_row = :sourceRowId
             """)
-                .param("rowId", rowId)
-                .param("columnIndex", columnIndex)
-                .param("newValue", value)
+                .param("sourceRowId", sourceRowId)
+                .param("targetRowId", targetRowId)
                 .update();
     }
 
     /**
-     * Updates the value of a cell in a specific column.
+     * Copies every non-empty cell of a column into another column of the same table, which must have the same
+     * data type.
      *
-     * @param columnId UUID of the column containing the cell to update.
-     * @param rowIndex Zero-based index of the row within that column.
-     * @param value    New string value to set in the cell.
+     * @param sourceColumnId UUID of the column whose cells are copied.
+     * @param targetColumnId UUID of the column receiving the values; it is expected to be empty.
      */
-    public void setColumnCellValue(UUID columnId, int rowIndex, String value) {
+    public void copyColumnCells(UUID sourceColumnId, UUID targetColumnId) {
         jdbcClient.sql("""
-                UPDATE cell
-                SET value = :newValue
-                WHERE tbl_column = :columnId AND tbl_row = (SELECT id
-                                                            FROM tbl_row
-                                                            WHERE row_index = :rowIndex)
+                INSERT INTO cell (id, tbl_row, tbl_column, value, numeric_value, minor_units, currency)
+                SELECT gen_random_uuid(), tbl_row, :targetColumnId, value, numeric_value, minor_units, currency
+                FROM cell
+                WHERE tbl_column = :sourceColumnId
             """)
-                .param("columnId", columnId)
-                .param("rowIndex", rowIndex)
-                .param("newValue", value)
+                .param("sourceColumnId", sourceColumnId)
+                .param("targetColumnId", targetColumnId)
                 .update();
     }
 
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
     private static class CellMapper implements RowMapper<Cell> {
 
         @Override
         public Cell mapRow(ResultSet rs, int rowNum) throws SQLException {
+            String id = rs.getString("id");
+
             return new Cell(
-                    UUID.fromString(rs.getString("id")),
+                    id == null ? null : UUID.fromString(id),
                     UUID.fromString(rs.getString("tbl_column")),
                     UUID.fromString(rs.getString("tbl_row")),
                     rs.getString("value")
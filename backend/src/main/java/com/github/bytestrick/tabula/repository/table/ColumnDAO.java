@@ -1,8 +1,9 @@
 package com.github.bytestrick.tabula.repository.table;
 
+import com.github.bytestrick.tabula.model.Pair;
 import com.github.bytestrick.tabula.repository.interfaces.IndexesSortedDAO;
 import com.github.bytestrick.tabula.repository.proxy.table.ColumnProxy;
-import com.github.bytestrick.tabula.repository.proxy.table.RowProxy;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.JdbcClient;
@@ -11,7 +12,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
 import java.util.UUID;
 
 /**
@@ -20,110 +27,110 @@ import java.util.UUID;
  *   Database Notes:
  *   <ul>
  *      <li>
- *          Trigger 'after_column_insertion' is defined on 'my_column' table.
- *          It automatically creates a 'cell' record for each existing row
- *          when a new column is inserted in 'my_column'.
+ *          Cells are stored sparsely (see {@link CellDAO}): inserting a column in 'my_column'
+ *          creates no 'cell' record, its cells are empty until a value is written.
  *      </li>
  *      <li>
  *          The 'cell' table has a foreign key on 'my_column' with ON DELETE CASCADE.
  *          Deleting a column from 'my_column' will automatically delete
  *          all associated 'cell' records.
  *      </li>
+ *      <li>
+ *          Columns are ordered by the sparse key {@code column_order} (see {@link OrderKeys}), the zero-based
+ *          {@code column_index} exposed by this DAO is derived from it. Inserting, deleting or moving a column
+ *          only writes the columns involved, the other columns keep their keys.
+ *      </li>
  *   </ul>
  * </p>
  */
 @RequiredArgsConstructor
+@Timed("tabula.dao")
 @Repository
 public class ColumnDAO implements IndexesSortedDAO {
     private final JdbcClient jdbcClient;
     private final CellDAO cellDAO;
 
+    /** Maximum number of columns whose ordering keys are updated by a single statement. */
+    private static final int ORDER_KEYS_BATCH_SIZE = 10_000;
+
+    /** Columns of a table with their zero-based index, derived from their ordering key. */
+    private static final String INDEXED_COLUMNS = """
+                SELECT id, tbl_table, data_type, column_name, column_order,
+                       (row_number() OVER (ORDER BY column_order) - 1)::int AS column_index
+                FROM tbl_column
+                WHERE tbl_table = :tableId
+            """;
+
     /**
-     * DAO method to remove a single column and reindex subsequent columns in the same table.
+     * DAO method to remove a set of columns with a single statement.
      * <p>
-     *  Steps:
-     *  <ol>
-     *      <li>Retrieve the current {@code column_index} of the column to delete.</li>
-     *      <li>Perform the DELETE operation for the given column UUID and table ID.</li>
-     *      <li>Update all columns with {@code column_index} greater than the deleted index,
-     *          decrementing their index by one.</li>
-     *  </ol>
+     *  The indexes of the deleted columns are computed by the same statement, before the deletion.
+     *  The following columns keep their ordering keys, so their indexes decrease without being updated.
      * </p>
-     * @param id        UUID of the column to delete.
-     * @param tableId   UUID of the table containing the column.
-     * @return          The original integer index of the deleted column.
+     * @param tableId   UUID of the table containing the columns.
+     * @param ids       UUIDs of the columns to delete.
+     * @return          The original integer indexes of the deleted columns, in ascending order.
      */
-    @Transactional
-    public int deleteColumn(UUID id, UUID tableId) {
-        int deletedColumnIndex = jdbcClient.sql("""
+    public List<Integer> deleteColumns(UUID tableId, Collection<UUID> ids) {
+        return jdbcClient.sql("WITH indexed_columns AS (" + INDEXED_COLUMNS + """
+                ), deleted AS (
+                    DELETE FROM tbl_column c
+                    USING indexed_columns i
+                    WHERE c.id = i.id AND c.id = ANY(CAST(:ids AS uuid[]))
+                    RETURNING i.column_index
+                )
                 SELECT column_index
-                FROM tbl_column
-                WHERE id = :id
-            """)
-                .param("id", id)
-                .query(Integer.class)
-                .single();
-
-        jdbcClient.sql("""
-                DELETE FROM tbl_column
-                WHERE id = :id AND tbl_table = :tableId
-            """)
-                .param("id", id)
-                .param("tableId", tableId)
-                .update();
-
-        jdbcClient.sql("""
-                UPDATE tbl_column
-                SET column_index = column_index - 1
-                WHERE tbl_table = :tableId AND column_index > :deletedColumnIndex
+                FROM deleted
+                ORDER BY column_index
             """)
                 .param("tableId", tableId)
-                .param("deletedColumnIndex", deletedColumnIndex)
-                .update();
-
-        return deletedColumnIndex;
+                .param("ids", uuidArray(ids))
+                .query(Integer.class)
+                .list();
     }
 
     /**
      * DAO method to append a new column at the end of the specified table.
      * <p>
-     *  Calculates the next {@code column_index} as one greater than the current maximum index
-     *  (or 0 if the table is empty), inserts the new column with its data type, and returns a proxy object
-     *  representing the newly created column.
+     *  Gives the new column a key {@link OrderKeys#GAP} greater than the current maximum key
+     *  (or {@link OrderKeys#GAP} if the table is empty), inserts the new column with its data type,
+     *  and returns a proxy object representing the newly created column.
      * </p>
      * @param tableId     UUID of the table to which the new column will be appended.
      * @param newColumnId UUID of the new column to insert.
      * @param dataTypeId  Integer identifier of the data type for the new column.
      * @return            {@link ColumnProxy}
      */
+    @Transactional
     public ColumnProxy appendColumn(UUID tableId, UUID newColumnId, int dataTypeId) {
-        int columnIndex = jdbcClient.sql("""
-                SELECT COALESCE(MAX(column_index), -1) + 1
+        Pair<Integer, Long> position = jdbcClient.sql("""
+                SELECT COUNT(*)::int AS column_index, COALESCE(MAX(column_order), 0) + :gap AS column_order
                 FROM tbl_column
                 WHERE tbl_table = :tableId
             """)
                 .param("tableId", tableId)
-                .query(Integer.class)
+                .param("gap", OrderKeys.GAP)
+                .query((rs, rowNum) -> new Pair<>(rs.getInt("column_index"), rs.getLong("column_order")))
                 .single();
 
         jdbcClient.sql("""
-            INSERT INTO tbl_column (id, tbl_table, data_type, column_index)
-            VALUES (:id, :tableId, :dataTypeId, :columnIndex)
+            INSERT INTO tbl_column (id, tbl_table, data_type, column_order)
+            VALUES (:id, :tableId, :dataTypeId, :columnOrder)
             """)
                 .param("id", newColumnId)
                 .param("tableId", tableId)
                 .param("dataTypeId", dataTypeId)
-                .param("columnIndex", columnIndex)
+                .param("columnOrder", position.getSecond())
                 .update();
 
-        return new ColumnProxy(newColumnId, tableId, dataTypeId, "", columnIndex, cellDAO);
+        return new ColumnProxy(newColumnId, tableId, dataTypeId, "", position.getFirst(), cellDAO);
     }
 
     /**
      * DAO method to insert a new column at a specific index within the specified table.
      * <p>
-     *  Shifts existing columns with indexes greater than or equal to the provided index
-     *  by incrementing their {@code column_index}, then inserts the new column at the target position.
+     *  Gives the new column a key between the ones of the columns at {@code columnIndex - 1} and
+     *  {@code columnIndex} (see {@link #allocateOrderKeys(UUID, int, int)}), then inserts it.
      * </p>
      * @param tableId     UUID of the table into which the new column will be inserted.
      * @param newColumnId UUID of the new column to insert.
@@ -133,26 +140,110 @@ public class ColumnDAO implements IndexesSortedDAO {
      */
     @Transactional
     public ColumnProxy insertColumnAt(UUID tableId, UUID newColumnId, int dataTypeId, int columnIndex) {
+        OrderKeys.Range keys = allocateOrderKeys(tableId, columnIndex, 1);
+
         jdbcClient.sql("""
-                UPDATE tbl_column
-                SET column_index = column_index + 1
-                WHERE tbl_table = :tableId AND column_index >= :columnIndex
+                INSERT INTO tbl_column (id, tbl_table, data_type, column_order)
+                VALUES (:id, :tableId, :dataTypeId, :columnOrder)
             """)
-                .param("columnIndex", columnIndex)
+                .param("id", newColumnId)
                 .param("tableId", tableId)
+                .param("dataTypeId", dataTypeId)
+                .param("columnOrder", keys.first())
                 .update();
 
-        jdbcClient.sql("""
-                INSERT INTO tbl_column (id, tbl_table, data_type, column_index)
-                VALUES (:id, :tableId, :dataTypeId, :columnIndex)
+        return new ColumnProxy(newColumnId, tableId, dataTypeId, null, columnIndex, cellDAO);
+    }
+
+    /**
+     * DAO method to insert {@code count} new columns starting at a specific index within the specified table.
+     * <p>
+     *  Allocates {@code count} keys between the ones of the columns at {@code columnIndex - 1} and
+     *  {@code columnIndex} (see {@link #allocateOrderKeys(UUID, int, int)}), then inserts all the new columns
+     *  with a single INSERT ... SELECT over {@code generate_series}. The column ids are generated by the database.
+     * </p>
+     * @param tableId     UUID of the table into which the new columns will be inserted.
+     * @param dataTypeId  Integer identifier of the data type of the new columns.
+     * @param columnIndex Target index of the first new column; the others follow it.
+     * @param count       Number of columns to insert; must be positive.
+     * @return            UUIDs of the new columns, ordered by their index.
+     */
+    @Transactional
+    public List<UUID> insertColumnsAt(UUID tableId, int dataTypeId, int columnIndex, int count) {
+        OrderKeys.Range keys = allocateOrderKeys(tableId, columnIndex, count);
+
+        List<Pair<UUID, Long>> insertedColumns = jdbcClient.sql("""
+                INSERT INTO tbl_column (id, tbl_table, data_type, column_order)
+                SELECT gen_random_uuid(), :tableId, :dataTypeId, :firstKey + :step * g.i
+                FROM generate_series(0, :count - 1) AS g(i)
+                RETURNING id, column_order
             """)
-                .param("id", newColumnId)
                 .param("tableId", tableId)
                 .param("dataTypeId", dataTypeId)
+                .param("firstKey", keys.first())
+                .param("step", keys.step())
+                .param("count", count)
+                .query(new OrderKeyMapper())
+                .list();
+
+        return insertedColumns.stream()
+                .sorted((a, b) -> Long.compare(a.getSecond(), b.getSecond()))
+                .map(Pair::getFirst)
+                .toList();
+    }
+
+    /**
+     * Allocates {@code count} increasing ordering keys for columns about to be inserted at {@code columnIndex}.
+     * <p>
+     *  The keys are taken between the ones of the columns currently at {@code columnIndex - 1} and
+     *  {@code columnIndex}. If there is no room between them, the table is first rebalanced with one UPDATE
+     *  that renumbers every column as {@code rank * GAP}, leaving a hole of {@code count} ranks at
+     *  {@code columnIndex}.
+     * </p>
+     *
+     * @param tableId     UUID of the table.
+     * @param columnIndex zero-based index of the first column to insert; at most the number of columns.
+     * @param count       number of keys needed.
+     * @return the keys to give to the new columns, in index order.
+     */
+    private OrderKeys.Range allocateOrderKeys(UUID tableId, int columnIndex, int count) {
+        List<Long> neighbours = jdbcClient.sql("""
+                SELECT column_order
+                FROM tbl_column
+                WHERE tbl_table = :tableId
+                ORDER BY column_order
+                OFFSET :offset LIMIT :limit
+            """)
+                .param("tableId", tableId)
+                .param("offset", Math.max(columnIndex - 1, 0))
+                .param("limit", columnIndex == 0 ? 1 : 2)
+                .query(Long.class)
+                .list();
+
+        Long lower = columnIndex == 0 || neighbours.isEmpty() ? null : neighbours.getFirst();
+        Long upper = columnIndex == 0
+                ? (neighbours.isEmpty() ? null : neighbours.getFirst())
+                : (neighbours.size() < 2 ? null : neighbours.get(1));
+
+        OrderKeys.Range keys = OrderKeys.between(lower, upper, count);
+        if (keys != null)
+            return keys;
+
+        jdbcClient.sql("""
+                UPDATE tbl_column c
+                SET column_order = (o.rank + CASE WHEN o.rank > :columnIndex THEN :count ELSE 0 END) * :gap
+                FROM (SELECT id, row_number() OVER (ORDER BY column_order) AS rank
+                      FROM tbl_column
+                      WHERE tbl_table = :tableId) o
+                WHERE c.id = o.id
+            """)
                 .param("columnIndex", columnIndex)
+                .param("count", count)
+                .param("gap", OrderKeys.GAP)
+                .param("tableId", tableId)
                 .update();
 
-        return new ColumnProxy(newColumnId, tableId, dataTypeId, null, columnIndex, cellDAO);
+        return OrderKeys.afterRebalance(columnIndex);
     }
 
     /**
@@ -163,12 +254,7 @@ public class ColumnDAO implements IndexesSortedDAO {
      *                sorted by {@code column_index} in ascending order.
      */
     public List<ColumnProxy> findAllColumn(UUID tableId) {
-        return jdbcClient.sql("""
-                SELECT *
-                FROM tbl_column
-                WHERE tbl_table = :tableId
-                ORDER BY column_index
-            """)
+        return jdbcClient.sql(INDEXED_COLUMNS + "ORDER BY column_order")
                 .param("tableId", tableId)
                 .query(new ColumnMapper()).list();
     }
@@ -203,7 +289,9 @@ public class ColumnDAO implements IndexesSortedDAO {
         return jdbcClient.sql("""
                 SELECT id
                 FROM tbl_column
-                WHERE tbl_table = :tableId AND column_index = :columnIndex
+                WHERE tbl_table = :tableId
+                ORDER BY column_order
+                OFFSET :columnIndex LIMIT 1
             """)
                 .param("tableId", tableId)
                 .param("columnIndex", columnIndex)
@@ -212,25 +300,63 @@ public class ColumnDAO implements IndexesSortedDAO {
     }
 
     /**
-     * Updates the {@code column_index} of an existing column.
+     * Implementation of the {@code findOrderKeys} method of {@link IndexesSortedDAO}.
+     * <p>Retrieves the ids and the ordering keys of all the columns of a table, in index order.</p>
      *
-     * @param columnId
-     *   UUID of the column to move.
-     * @param newColumnIndex
-     *   New zero-based index for the column.
      * @param tableId
-     *   UUID of the table containing the column.
+     *   UUID of the table.
+     * @return
+     *   Pairs of column UUID and {@code column_order}, sorted by {@code column_order}.
      */
-    public void updateColumnIndex(UUID columnId, int newColumnIndex, UUID tableId) {
-        jdbcClient.sql("""
-                UPDATE tbl_column
-                SET column_index = :newColumnIndex
-                WHERE id = :columnId AND tbl_table = :tableId;
+    @Override
+    public List<Pair<UUID, Long>> findOrderKeys(UUID tableId) {
+        return jdbcClient.sql("""
+                SELECT id, column_order
+                FROM tbl_column
+                WHERE tbl_table = :tableId
+                ORDER BY column_order
             """)
-                .param("newColumnIndex", newColumnIndex)
                 .param("tableId", tableId)
-                .param("columnId", columnId)
-                .update();
+                .query(new OrderKeyMapper())
+                .list();
+    }
+
+    /**
+     * Implementation of the {@code updateOrderKeys} method of {@link IndexesSortedDAO}.
+     * <p>
+     *  Updates the ordering keys of the given columns with one
+     *  {@code UPDATE ... FROM (VALUES ...)} statement per {@link #ORDER_KEYS_BATCH_SIZE} columns,
+     *  which keeps the number of bind parameters within the limit of the driver.
+     * </p>
+     *
+     * @param tableId
+     *   UUID of the table containing the columns.
+     * @param orderKeys
+     *   Pairs of column UUID and new ordering key.
+     */
+    @Override
+    public void updateOrderKeys(UUID tableId, List<Pair<UUID, Long>> orderKeys) {
+        for (int from = 0; from < orderKeys.size(); from += ORDER_KEYS_BATCH_SIZE) {
+            List<Pair<UUID, Long>> batch = orderKeys.subList(from, Math.min(from + ORDER_KEYS_BATCH_SIZE, orderKeys.size()));
+            StringJoiner values = new StringJoiner(", ");
+            Map<String, Object> params = new HashMap<>();
+
+            for (int i = 0; i < batch.size(); ++i) {
+                values.add("(:id" + i + "::uuid, :key" + i + "::bigint)");
+                params.put("id" + i, batch.get(i).getFirst());
+                params.put("key" + i, batch.get(i).getSecond());
+            }
+
+            jdbcClient.sql("""
+                UPDATE tbl_column t
+                SET column_order = v.column_order
+                FROM (VALUES %s) AS v(id, column_order)
+                WHERE t.id = v.id AND t.tbl_table = :tableId
+            """.formatted(values))
+                    .params(params)
+                    .param("tableId", tableId)
+                    .update();
+        }
     }
 
     /**
@@ -256,7 +382,7 @@ public class ColumnDAO implements IndexesSortedDAO {
     }
 
     /**
-     * Returns the zero-based index of the given column UUID.
+     * Returns the zero-based index of the given column UUID, as the number of columns with a smaller ordering key.
      *
      * @param tableId
      *   UUID of the table.
@@ -267,9 +393,11 @@ public class ColumnDAO implements IndexesSortedDAO {
      */
     public int findColumnIndexById(UUID tableId, UUID columnId) {
         return jdbcClient.sql("""
-                SELECT column_index
+                SELECT COUNT(*)::int
                 FROM tbl_column
-                WHERE tbl_table = :tableId AND id = :columnId
+                WHERE tbl_table = :tableId AND column_order < (SELECT column_order
+                                                               FROM tbl_column
+                                                               WHERE tbl_table = :tableId AND id = :columnId)
             """)
                 .param("tableId", tableId)
                 .param("columnId", columnId)
@@ -296,6 +424,25 @@ public class ColumnDAO implements IndexesSortedDAO {
                 .single();
     }
 
+    /**
+     * Retrieves, among the given UUIDs, the ones of the columns that exist within a table.
+     *
+     * @param tableId   Id of the table.
+     * @param columnIds Ids to check.
+     * @return The ids in {@code columnIds} associated with the table {@code tableId}, in no particular order.
+     */
+    public Set<UUID> findExistingColumnIds(UUID tableId, Collection<UUID> columnIds) {
+        return new HashSet<>(jdbcClient.sql("""
+                SELECT id
+                FROM tbl_column
+                WHERE tbl_table = :tableId AND id = ANY(CAST(:columnIds AS uuid[]))
+            """)
+                .param("tableId", tableId)
+                .param("columnIds", uuidArray(columnIds))
+                .query(UUID.class)
+                .list());
+    }
+
     /**
      * Check to see if the column exists within a table.
      *
@@ -328,15 +475,7 @@ public class ColumnDAO implements IndexesSortedDAO {
      *   Zero-based index of the specified column.
      */
     public Integer findColumnIndexFromId(UUID tableId, UUID columnId) {
-        return jdbcClient.sql("""
-                SELECT column_index
-                FROM tbl_column
-                WHERE tbl_table = :tableId AND id =:columnId
-            """)
-                .param("tableId", tableId)
-                .param("columnId", columnId)
-                .query(Integer.class)
-                .single();
+        return findColumnIndexById(tableId, columnId);
     }
 
     /**
@@ -377,14 +516,13 @@ public class ColumnDAO implements IndexesSortedDAO {
      */
     @Override
     public List<Integer> findIndexesFromIdsSortedAscending(UUID tableId, List<UUID> ids) {
-        return jdbcClient.sql("""
-                SELECT column_index
-                FROM tbl_column
-                WHERE tbl_table = :tableId AND id IN (:columnsIds)
+        return jdbcClient.sql("SELECT column_index FROM (" + INDEXED_COLUMNS + """
+                ) c
+                WHERE id = ANY(CAST(:columnsIds AS uuid[]))
                 ORDER BY column_index
             """)
                 .param("tableId", tableId)
-                .param("columnsIds", ids)
+                .param("columnsIds", uuidArray(ids))
                 .query(Integer.class)
                 .list();
     }
@@ -402,14 +540,13 @@ public class ColumnDAO implements IndexesSortedDAO {
      */
     @Override
     public List<Integer> findIndexesFromIdsSortedDescending(UUID tableId, List<UUID> ids) {
-        return jdbcClient.sql("""
-                SELECT column_index
-                FROM tbl_column
-                WHERE tbl_table = :tableId AND id IN (:columnsIds)
+        return jdbcClient.sql("SELECT column_index FROM (" + INDEXED_COLUMNS + """
+                ) c
+                WHERE id = ANY(CAST(:columnsIds AS uuid[]))
                 ORDER BY column_index DESC
             """)
                 .param("tableId", tableId)
-                .param("columnsIds", ids)
+                .param("columnsIds", uuidArray(ids))
                 .query(Integer.class)
                 .list();
     }
@@ -423,9 +560,11 @@ public class ColumnDAO implements IndexesSortedDAO {
      */
     public ColumnProxy findColumnByIndex(UUID tableId, int columnIndex) {
         return jdbcClient.sql("""
-                SELECT *
+                SELECT id, tbl_table, data_type, column_name, :columnIndex AS column_index
                 FROM tbl_column
-                WHERE tbl_table = :tableId AND column_index = :columnIndex
+                WHERE tbl_table = :tableId
+                ORDER BY column_order
+                OFFSET :columnIndex LIMIT 1
             """)
                 .param("tableId", tableId)
                 .param("columnIndex", columnIndex)
@@ -447,4 +586,21 @@ public class ColumnDAO implements IndexesSortedDAO {
             );
         }
     }
+
+    private static class OrderKeyMapper implements RowMapper<Pair<UUID, Long>> {
+
+        @Override
+        public Pair<UUID, Long> mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return new Pair<>(UUID.fromString(rs.getString("id")), rs.getLong("column_order"));
+        }
+    }
+
+
+    /**
+     * The ids as a {@code text[]} to be cast to {@code uuid[]}: bound as a single array parameter, the statement
+     * is the same for any number of ids and stays below the limit of 32767 bind parameters of the driver.
+     */
+    private static String[] uuidArray(Collection<UUID> ids) {
+        return ids.stream().map(UUID::toString).toArray(String[]::new);
+    }
 }
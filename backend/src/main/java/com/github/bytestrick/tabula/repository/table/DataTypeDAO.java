@@ -1,12 +1,14 @@
 package com.github.bytestrick.tabula.repository.table;
 
 import com.github.bytestrick.tabula.model.table.DataType;
+import io.micrometer.core.annotation.Timed;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
+@Timed("tabula.dao")
 @Repository
 @RequiredArgsConstructor
 public class DataTypeDAO {
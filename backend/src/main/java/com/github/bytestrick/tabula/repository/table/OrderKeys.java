@@ -0,0 +1,66 @@
+package com.github.bytestrick.tabula.repository.table;
+
+/**
+ * Arithmetic of the ordering keys of rows ({@code row_order}) and columns ({@code column_order}).
+ * <p>
+ *  Rows and columns are not stored with their dense zero-based index, but with a sparse {@code BIGINT} key:
+ *  the display order is the order of the keys and the index is derived from it when read.
+ *  Consecutive keys are normally {@link #GAP} apart, so a new row or column can be given a key
+ *  between its neighbours without renumbering anything else. Only when the gap between two neighbours
+ *  is exhausted the whole table is rebalanced, giving back to every key a distance of {@link #GAP}.
+ * </p>
+ */
+public final class OrderKeys {
+
+    /** Distance between consecutive keys after a rebalance, and between appended keys. */
+    public static final long GAP = 1L << 16;
+
+    private OrderKeys() {}
+
+
+    /**
+     * An arithmetic progression of {@code count} keys: {@code first}, {@code first + step}, ...
+     *
+     * @param first the first key.
+     * @param step  the distance between consecutive keys; always positive.
+     */
+    public record Range(long first, long step) {
+
+        /** @return the {@code i}-th key of the progression. */
+        public long get(int i) {
+            return first + step * i;
+        }
+    }
+
+
+    /**
+     * Computes {@code count} increasing keys strictly between {@code lower} and {@code upper}.
+     *
+     * @param lower key of the preceding neighbour; {@code null} if the keys go first.
+     * @param upper key of the following neighbour; {@code null} if the keys go last.
+     * @param count number of keys needed; must be positive.
+     * @return the keys, or {@code null} if there is no room between the neighbours and a rebalance is needed.
+     */
+    public static Range between(Long lower, Long upper, int count) {
+        if (upper == null)
+            return new Range((lower == null ? 0 : lower) + GAP, GAP);
+
+        if (lower == null)
+            return new Range(upper - GAP * count, GAP);
+
+        long step = (upper - lower) / (count + 1);
+        return step >= 1 ? new Range(lower + step, step) : null;
+    }
+
+    /**
+     * Keys given by a rebalance to the {@code count} elements inserted at {@code index}: the rebalance
+     * renumbers the elements as {@code rank * GAP}, with one-based ranks, leaving the ranks from
+     * {@code index + 1} to {@code index + count} to the new elements.
+     *
+     * @param index zero-based index of the first inserted element.
+     * @return the keys of the inserted elements.
+     */
+    public static Range afterRebalance(int index) {
+        return new Range((index + 1) * GAP, GAP);
+    }
+}
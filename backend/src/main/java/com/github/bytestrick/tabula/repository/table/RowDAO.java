@@ -1,7 +1,9 @@
 package com.github.bytestrick.tabula.repository.table;
 
+import com.github.bytestrick.tabula.model.Pair;
 import com.github.bytestrick.tabula.repository.interfaces.IndexesSortedDAO;
 import com.github.bytestrick.tabula.repository.proxy.table.RowProxy;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.JdbcClient;
@@ -10,7 +12,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
 import java.util.UUID;
 
 /**
@@ -19,78 +27,75 @@ import java.util.UUID;
  *  Database Notes:
  *  <ul>
  *      <li>
- *          Trigger 'after_row_insertion' is defined on 'my_row' table.
- *          It automatically creates a 'cell' record for each existing column
- *          when a new row is inserted on 'my_row'.
+ *          Cells are stored sparsely (see {@link CellDAO}): inserting a row on 'my_row'
+ *          creates no 'cell' record, its cells are empty until a value is written.
  *      </li>
  *      <li>
  *          The 'cell' table has a foreign key on 'my_row' with ON DELETE CASCADE.
  *          Deleting a row from 'my_row' will automatically delete
  *          all associated 'cell' records.
  *      </li>
+ *      <li>
+ *          Rows are ordered by the sparse key {@code row_order} (see {@link OrderKeys}), the zero-based
+ *          {@code row_index} exposed by this DAO is derived from it. Inserting, deleting or moving a row
+ *          only writes the rows involved, the other rows keep their keys.
+ *      </li>
  *   </ul>
  * </p>
  */
 @RequiredArgsConstructor
+@Timed("tabula.dao")
 @Repository
 public class RowDAO implements IndexesSortedDAO {
 
     private final JdbcClient jdbcClient;
     private final CellDAO cellDAO;
 
+    /** Maximum number of rows whose ordering keys are updated by a single statement. */
+    private static final int ORDER_KEYS_BATCH_SIZE = 10_000;
+
+    /** Rows of a table with their zero-based index, derived from their ordering key. */
+    private static final String INDEXED_ROWS = """
+                SELECT id, tbl_table, row_order, (row_number() OVER (ORDER BY row_order) - 1)::int AS row_index
+                FROM tbl_row
+                WHERE tbl_table = :tableId
+            """;
+
 
     /**
-     * DAO method to remove a single row and reindex subsequent rows in the same table.
+     * DAO method to remove a set of rows with a single statement.
      * <p>
-     *  Steps:
-     *  <ol>
-     *      <li>Retrieve the current {@code row_index} of the row to delete.</li>
-     *      <li>Perform the DELETE operation for the given row UUID and table ID.</li>
-     *      <li>Update all rows with {@code row_index} greater than the deleted index,
-     *          decrementing their index by one.</li>
-     *  </ol>
+     *  The indexes of the deleted rows are computed by the same statement, before the deletion.
+     *  The following rows keep their ordering keys, so their indexes decrease without being updated.
      * </p>
-     * @param tableId  UUID of the table containing the row.
-     * @param id       UUID of the row to delete.
-     * @return         The original integer index of the deleted row.
+     * @param tableId  UUID of the table containing the rows.
+     * @param ids      UUIDs of the rows to delete.
+     * @return         The original integer indexes of the deleted rows, in ascending order.
      */
-    @Transactional
-    public int deleteRow(UUID tableId, UUID id) {
-        int deletedRowIndex = jdbcClient.sql("""
+    public List<Integer> deleteRows(UUID tableId, Collection<UUID> ids) {
+        return jdbcClient.sql("WITH indexed_rows AS (" + INDEXED_ROWS + """
+                ), deleted AS (
+                    DELETE FROM tbl_row r
+                    USING indexed_rows i
+                    WHERE r.id = i.id AND r.id = ANY(CAST(:ids AS uuid[]))
+                    RETURNING i.row_index
+                )
                 SELECT row_index
-                FROM tbl_row
-                WHERE id = :id
-            """)
-                .param("id", id)
-                .query(Integer.class)
-                .single();
-
-        jdbcClient.sql("""
-                DELETE FROM tbl_row
-                WHERE id = :id AND tbl_table = :tableId
-            """)
-                .param("id", id)
-                .param("tableId", tableId)
-                .update();
-
-        jdbcClient.sql("""
-                UPDATE tbl_row
-                SET row_index = row_index - 1
-                WHERE tbl_table = :tableId AND row_index > :deletedRowIndex
+                FROM deleted
+                ORDER BY row_index
             """)
                 .param("tableId", tableId)
-                .param("deletedRowIndex", deletedRowIndex)
-                .update();
-
-        return deletedRowIndex;
+                .param("ids", uuidArray(ids))
+                .query(Integer.class)
+                .list();
     }
 
 
     /**
      * DAO method to append a new row at the end of the specified table.
      * <p>
-     *  Calculates the next {@code row_index} as one greater than the current maximum index
-     *  (or 0 if the table is empty), inserts the new row, and returns a proxy object
+     *  Gives the new row a key {@link OrderKeys#GAP} greater than the current maximum key
+     *  (or {@link OrderKeys#GAP} if the table is empty), inserts it, and returns a proxy object
      *  representing the newly created row.
      * </p>
      * @param tableId  UUID of the table to which the new row will be appended.
@@ -99,25 +104,46 @@ public class RowDAO implements IndexesSortedDAO {
      */
     @Transactional
     public RowProxy appendNewRow(UUID tableId, UUID newRowId) {
-        int rowIndex = jdbcClient.sql("""
-                SELECT COALESCE(MAX(row_index), -1) + 1
+        Pair<Integer, Long> position = jdbcClient.sql("""
+                SELECT COUNT(*)::int AS row_index, COALESCE(MAX(row_order), 0) + :gap AS row_order
                 FROM tbl_row
                 WHERE tbl_table = :tableId
             """)
                 .param("tableId", tableId)
-                .query(Integer.class)
+                .param("gap", OrderKeys.GAP)
+                .query((rs, rowNum) -> new Pair<>(rs.getInt("row_index"), rs.getLong("row_order")))
                 .single();
 
         jdbcClient.sql("""
-                INSERT INTO tbl_row (id, tbl_table, row_index)
-                VALUES (:id, :tableId, :rowIndex)
+                INSERT INTO tbl_row (id, tbl_table, row_order)
+                VALUES (:id, :tableId, :rowOrder)
             """)
                 .param("id", newRowId)
                 .param("tableId", tableId)
-                .param("rowIndex", rowIndex)
+                .param("rowOrder", position.getSecond())
                 .update();
 
-        return new RowProxy(newRowId, tableId, rowIndex, cellDAO);
+        return new RowProxy(newRowId, tableId, position.getFirst(), cellDAO);
+    }
+
+
+    /**
+     * Retrieves, among the given UUIDs, the ones of the rows that exist within a table.
+     *
+     * @param tableId Id of the table.
+     * @param rowIds  Ids to check.
+     * @return The ids in {@code rowIds} associated with the table {@code tableId}, in no particular order.
+     */
+    public Set<UUID> findExistingRowIds(UUID tableId, Collection<UUID> rowIds) {
+        return new HashSet<>(jdbcClient.sql("""
+                SELECT id
+                FROM tbl_row
+                WHERE tbl_table = :tableId AND id = ANY(CAST(:rowIds AS uuid[]))
+            """)
+                .param("tableId", tableId)
+                .param("rowIds", uuidArray(rowIds))
+                .query(UUID.class)
+                .list());
     }
 
 
@@ -146,8 +172,8 @@ public class RowDAO implements IndexesSortedDAO {
     /**
      * DAO method to insert a new row at a specific index within the specified table.
      * <p>
-     *  Shifts existing rows with indexes greater than or equal to the provided index
-     *  by incrementing their {@code row_index}, then inserts the new row at the target position.
+     *  Gives the new row a key between the ones of the rows at {@code rowIndex - 1} and {@code rowIndex}
+     *  (see {@link #allocateOrderKeys(UUID, int, int)}), then inserts it.
      * </p>
      * @param tableId  UUID of the table into which the new row will be inserted.
      * @param newRowId UUID of the new row to insert.
@@ -156,25 +182,108 @@ public class RowDAO implements IndexesSortedDAO {
      */
     @Transactional
     public RowProxy insertNewRowAt(UUID tableId, UUID newRowId, int rowIndex) {
+        OrderKeys.Range keys = allocateOrderKeys(tableId, rowIndex, 1);
+
         jdbcClient.sql("""
-                UPDATE tbl_row
-                SET row_index = row_index + 1
-                WHERE tbl_table = :tableId AND row_index >= :rowIndex
+                INSERT INTO tbl_row (id, tbl_table, row_order)
+                VALUES (:id, :tableId, :rowOrder)
             """)
-                .param("rowIndex", rowIndex)
+                .param("id", newRowId)
                 .param("tableId", tableId)
+                .param("rowOrder", keys.first())
                 .update();
 
-        jdbcClient.sql("""
-                INSERT INTO tbl_row (id, tbl_table, row_index)
-                VALUES (:id, :tableId, :rowIndex)
+        return new RowProxy(newRowId, tableId, rowIndex, cellDAO);
+    }
+
+
+    /**
+     * DAO method to insert {@code count} new rows starting at a specific index within the specified table.
+     * <p>
+     *  Allocates {@code count} keys between the ones of the rows at {@code rowIndex - 1} and {@code rowIndex}
+     *  (see {@link #allocateOrderKeys(UUID, int, int)}), then inserts all the new rows with a single
+     *  INSERT ... SELECT over {@code generate_series}. The row ids are generated by the database.
+     * </p>
+     * @param tableId  UUID of the table into which the new rows will be inserted.
+     * @param rowIndex Target index of the first new row; the others follow it.
+     * @param count    Number of rows to insert; must be positive.
+     * @return         UUIDs of the new rows, ordered by their index.
+     */
+    @Transactional
+    public List<UUID> insertNewRowsAt(UUID tableId, int rowIndex, int count) {
+        OrderKeys.Range keys = allocateOrderKeys(tableId, rowIndex, count);
+
+        List<Pair<UUID, Long>> insertedRows = jdbcClient.sql("""
+                INSERT INTO tbl_row (id, tbl_table, row_order)
+                SELECT gen_random_uuid(), :tableId, :firstKey + :step * g.i
+                FROM generate_series(0, :count - 1) AS g(i)
+                RETURNING id, row_order
+            """)
+                .param("tableId", tableId)
+                .param("firstKey", keys.first())
+                .param("step", keys.step())
+                .param("count", count)
+                .query(new OrderKeyMapper())
+                .list();
+
+        return insertedRows.stream()
+                .sorted((a, b) -> Long.compare(a.getSecond(), b.getSecond()))
+                .map(Pair::getFirst)
+                .toList();
+    }
+
+
+    /**
+     * Allocates {@code count} increasing ordering keys for rows about to be inserted at {@code rowIndex}.
+     * <p>
+     *  The keys are taken between the ones of the rows currently at {@code rowIndex - 1} and {@code rowIndex}.
+     *  If there is no room between them, the table is first rebalanced with one UPDATE that renumbers every
+     *  row as {@code rank * GAP}, leaving a hole of {@code count} ranks at {@code rowIndex}.
+     * </p>
+     *
+     * @param tableId  UUID of the table.
+     * @param rowIndex zero-based index of the first row to insert; at most the number of rows.
+     * @param count    number of keys needed.
+     * @return the keys to give to the new rows, in index order.
+     */
+    private OrderKeys.Range allocateOrderKeys(UUID tableId, int rowIndex, int count) {
+        List<Long> neighbours = jdbcClient.sql("""
+                SELECT row_order
+                FROM tbl_row
+                WHERE tbl_table = :tableId
+                ORDER BY row_order
+                OFFSET :offset LIMIT :limit
             """)
-                .param("id", newRowId)
                 .param("tableId", tableId)
+                .param("offset", Math.max(rowIndex - 1, 0))
+                .param("limit", rowIndex == 0 ? 1 : 2)
+                .query(Long.class)
+                .list();
+
+        Long lower = rowIndex == 0 || neighbours.isEmpty() ? null : neighbours.getFirst();
+        Long upper = rowIndex == 0
+                ? (neighbours.isEmpty() ? null : neighbours.getFirst())
+                : (neighbours.size() < 2 ? null : neighbours.get(1));
+
+        OrderKeys.Range keys = OrderKeys.between(lower, upper, count);
+        if (keys != null)
+            return keys;
+
+        jdbcClient.sql("""
+                UPDATE tbl_row r
+                SET row_order = (o.rank + CASE WHEN o.rank > :rowIndex THEN :count ELSE 0 END) * :gap
+                FROM (SELECT id, row_number() OVER (ORDER BY row_order) AS rank
+                      FROM tbl_row
+                      WHERE tbl_table = :tableId) o
+                WHERE r.id = o.id
+            """)
                 .param("rowIndex", rowIndex)
+                .param("count", count)
+                .param("gap", OrderKeys.GAP)
+                .param("tableId", tableId)
                 .update();
 
-        return new RowProxy(newRowId, tableId, rowIndex, cellDAO);
+        return OrderKeys.afterRebalance(rowIndex);
     }
 
 
@@ -186,12 +295,7 @@ public class RowDAO implements IndexesSortedDAO {
      *                sorted by {@code row_index} in ascending order.
      */
     public List<RowProxy> findAllRows(UUID tableId) {
-        return jdbcClient.sql("""
-                SELECT *
-                FROM tbl_row
-                WHERE tbl_table = :tableId
-                ORDER BY row_index
-            """)
+        return jdbcClient.sql(INDEXED_ROWS + "ORDER BY row_order")
                 .param("tableId", tableId)
                 .query(new TblRowMapper()).list();
     }
@@ -208,7 +312,9 @@ public class RowDAO implements IndexesSortedDAO {
         return jdbcClient.sql("""
                 SELECT id
                 FROM tbl_row
-                WHERE tbl_table = :tableId AND row_index = :rowIndex
+                WHERE tbl_table = :tableId
+                ORDER BY row_order
+                OFFSET :rowIndex LIMIT 1
             """)
                 .param("tableId", tableId)
                 .param("rowIndex", rowIndex)
@@ -218,25 +324,64 @@ public class RowDAO implements IndexesSortedDAO {
 
 
     /**
-     * Updates the index of an existing row.
+     * Implementation of the {@code findOrderKeys} method of {@link IndexesSortedDAO}.
+     * <p>Retrieves the ids and the ordering keys of all the rows of a table, in index order.</p>
      *
-     * @param rowId
-     *   UUID of the row to update.
-     * @param newRowIndex
-     *   The new zero-based index to assign.
      * @param tableId
-     *   UUID of the table containing the row.
+     *   UUID of the table containing the rows.
+     * @return
+     *   Pairs of row UUID and {@code row_order}, sorted by {@code row_order}.
      */
-    public void updateRowIndex(UUID rowId, int newRowIndex, UUID tableId) {
-        jdbcClient.sql("""
-                UPDATE tbl_row
-                SET row_index = :newRowIndex
-                WHERE id = :rowId AND tbl_table = :tableId;
+    @Override
+    public List<Pair<UUID, Long>> findOrderKeys(UUID tableId) {
+        return jdbcClient.sql("""
+                SELECT id, row_order
+                FROM tbl_row
+                WHERE tbl_table = :tableId
+                ORDER BY row_order
             """)
-                .param("newRowIndex", newRowIndex)
                 .param("tableId", tableId)
-                .param("rowId", rowId)
-                .update();
+                .query(new OrderKeyMapper())
+                .list();
+    }
+
+
+    /**
+     * Implementation of the {@code updateOrderKeys} method of {@link IndexesSortedDAO}.
+     * <p>
+     *  Updates the ordering keys of the given rows with one
+     *  {@code UPDATE ... FROM (VALUES ...)} statement per {@link #ORDER_KEYS_BATCH_SIZE} rows,
+     *  which keeps the number of bind parameters within the limit of the driver.
+     * </p>
+     *
+     * @param tableId
+     *   UUID of the table containing the rows.
+     * @param orderKeys
+     *   Pairs of row UUID and new ordering key.
+     */
+    @Override
+    public void updateOrderKeys(UUID tableId, List<Pair<UUID, Long>> orderKeys) {
+        for (int from = 0; from < orderKeys.size(); from += ORDER_KEYS_BATCH_SIZE) {
+            List<Pair<UUID, Long>> batch = orderKeys.subList(from, Math.min(from + ORDER_KEYS_BATCH_SIZE, orderKeys.size()));
+            StringJoiner values = new StringJoiner(", ");
+            Map<String, Object> params = new HashMap<>();
+
+            for (int i = 0; i < batch.size(); ++i) {
+                values.add("(:id" + i + "::uuid, :key" + i + "::bigint)");
+                params.put("id" + i, batch.get(i).getFirst());
+                params.put("key" + i, batch.get(i).getSecond());
+            }
+
+            jdbcClient.sql("""
+                UPDATE tbl_row t
+                SET row_order = v.row_order
+                FROM (VALUES %s) AS v(id, row_order)
+                WHERE t.id = v.id AND t.tbl_table = :tableId
+            """.formatted(values))
+                    .params(params)
+                    .param("tableId", tableId)
+                    .update();
+        }
     }
 
 
@@ -273,14 +418,13 @@ public class RowDAO implements IndexesSortedDAO {
      */
     @Override
     public List<Integer> findIndexesFromIdsSortedAscending(UUID tableId, List<UUID> ids) {
-        return jdbcClient.sql("""
-                SELECT row_index
-                FROM tbl_row
-                WHERE tbl_table = :tableId AND id IN (:rowIds)
+        return jdbcClient.sql("SELECT row_index FROM (" + INDEXED_ROWS + """
+                ) r
+                WHERE id = ANY(CAST(:rowIds AS uuid[]))
                 ORDER BY row_index
             """)
                 .param("tableId", tableId)
-                .param("rowIds", ids)
+                .param("rowIds", uuidArray(ids))
                 .query(Integer.class)
                 .list();
     }
@@ -299,20 +443,19 @@ public class RowDAO implements IndexesSortedDAO {
      */
     @Override
     public List<Integer> findIndexesFromIdsSortedDescending(UUID tableId, List<UUID> ids) {
-        return jdbcClient.sql("""
-                SELECT row_index
-                FROM tbl_row
-                WHERE tbl_table = :tableId AND id IN (:rowIds)
+        return jdbcClient.sql("SELECT row_index FROM (" + INDEXED_ROWS + """
+                ) r
+                WHERE id = ANY(CAST(:rowIds AS uuid[]))
                 ORDER BY row_index DESC
             """)
                 .param("tableId", tableId)
-                .param("rowIds", ids)
+                .param("rowIds", uuidArray(ids))
                 .query(Integer.class)
                 .list();
     }
 
     /**
-     * Retrieves the index of a single row by its UUID.
+     * Retrieves the index of a single row by its UUID, as the number of rows with a smaller ordering key.
      *
      * @param tableId
      *   UUID of the table containing the row.
@@ -323,9 +466,11 @@ public class RowDAO implements IndexesSortedDAO {
      */
     public Integer findRowIndexFromId(UUID tableId, UUID rowId) {
         return jdbcClient.sql("""
-                SELECT row_index
+                SELECT COUNT(*)::int
                 FROM tbl_row
-                WHERE tbl_table = :tableId AND id = :rowId
+                WHERE tbl_table = :tableId AND row_order < (SELECT row_order
+                                                            FROM tbl_row
+                                                            WHERE tbl_table = :tableId AND id = :rowId)
             """)
                 .param("tableId", tableId)
                 .param("rowId", rowId)
@@ -342,9 +487,11 @@ public class RowDAO implements IndexesSortedDAO {
      */
     public RowProxy findRowByIndex(UUID tableId, int rowIndex) {
         return jdbcClient.sql("""
-                SELECT *
+                SELECT id, tbl_table, :rowIndex AS row_index
                 FROM tbl_row
-                WHERE tbl_table = :tableId AND row_index = :rowIndex
+                WHERE tbl_table = :tableId
+                ORDER BY row_order
+                OFFSET :rowIndex LIMIT 1
             """)
                 .param("tableId", tableId)
                 .param("rowIndex", rowIndex)
@@ -364,4 +511,21 @@ public class RowDAO implements IndexesSortedDAO {
             );
         }
     }
+
+    private static class OrderKeyMapper implements RowMapper<Pair<UUID, Long>> {
+
+        @Override
+        public Pair<UUID, Long> mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return new Pair<>(UUID.fromString(rs.getString("id")), rs.getLong("row_order"));
+        }
+    }
+
+
+    /**
+     * The ids as a {@code text[]} to be cast to {@code uuid[]}: bound as a single array parameter, the statement
+     * is the same for any number of ids and stays below the limit of 32767 bind parameters of the driver.
+     */
+    private static String[] uuidArray(Collection<UUID> ids) {
+        return ids.stream().map(UUID::toString).toArray(String[]::new);
+    }
 }
@@ -0,0 +1,403 @@
+package com.github.bytestrick.tabula.repository.table;
+
+import com.github.bytestrick.tabula.controller.dto.table.CellDTO;
+import com.github.bytestrick.tabula.controller.dto.table.ColumnDTO;
+import com.github.bytestrick.tabula.controller.dto.table.RowDTO;
+import com.github.bytestrick.tabula.controller.dto.table.TableViewportDTO;
+import com.github.bytestrick.tabula.model.table.CompactTable;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Bulk, read-only loader of the content of a table, either whole or a window of it.
+ * <p>
+ *  Unlike {@link com.github.bytestrick.tabula.repository.proxy.table.TableProxy}, which lazily fetches
+ *  the cells of every row with a dedicated query, this DAO loads the header and every cell of a
+ *  table with a constant number of queries, whatever the number of rows, into a
+ *  {@link CompactTable} or, for a window, into DTOs assembled in
+ *  a single pass over the result set.
+ * </p>
+ * <p>
+ *  Cells are stored sparsely (see {@link CellDAO}): the gaps left by the missing records are filled
+ *  with empty cells, so every row of the result holds one cell per column.
+ * </p>
+ * <p>
+ *  The proxies are still the way to go when only a few rows or columns are needed lazily.
+ * </p>
+ */
+@Timed("tabula.dao")
+@Repository
+public class TableContentDAO {
+
+    /** Number of records fetched per round trip when the content is read through a cursor. */
+    private static final int CURSOR_FETCH_SIZE = 1000;
+
+    /** Every cell of a table joined with its row, ordered as the table is displayed. */
+    private static final String CONTENT_QUERY = """
+                SELECT r.id AS row_id, c.tbl_column AS column_id, c.value
+                FROM tbl_row r
+                LEFT JOIN (cell c INNER JOIN tbl_column mc ON mc.id = c.tbl_column)
+                       ON c.tbl_row = r.id
+                WHERE r.tbl_table = :tableId
+                ORDER BY r.row_order, mc.column_order
+            """;
+
+    private final JdbcClient jdbcClient;
+    private final JdbcClient cursorClient;
+
+
+    /**
+     * TableContentDAO constructor.
+     *
+     * @param jdbcClient   client used for the queries whose result is held in memory.
+     * @param jdbcTemplate template whose data source is used to build a client that reads
+     *                     the result sets in chunks of {@link #CURSOR_FETCH_SIZE} records.
+     */
+    public TableContentDAO(JdbcClient jdbcClient, JdbcTemplate jdbcTemplate) {
+        JdbcTemplate cursorTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        cursorTemplate.setFetchSize(CURSOR_FETCH_SIZE);
+
+        this.jdbcClient = jdbcClient;
+        this.cursorClient = JdbcClient.create(cursorTemplate);
+    }
+
+
+    /**
+     * Retrieves the header of a table: all its columns ordered by {@code column_order}.
+     *
+     * @param tableId UUID of the table whose columns are to be fetched.
+     * @return        List of {@link ColumnDTO} sorted by {@code column_order}, with their zero-based index.
+     */
+    public List<ColumnDTO> findHeader(UUID tableId) {
+        return jdbcClient.sql("""
+                SELECT id, tbl_table, data_type, column_name,
+                       (row_number() OVER (ORDER BY column_order) - 1)::int AS column_index
+                FROM tbl_column
+                WHERE tbl_table = :tableId
+                ORDER BY column_order
+            """)
+                .param("tableId", tableId)
+                .query(new ColumnDTOMapper())
+                .list();
+    }
+
+
+    /**
+     * Loads a rectangular window of a table: the rows with zero-based index in
+     * [{@code fromRow}, {@code toRow}) and, for each of them, only the cells of the columns with
+     * zero-based index in [{@code fromColumn}, {@code toColumn}).
+     * <p>
+     *  The amount of data read depends only on the size of the window, the total number of rows and
+     *  columns is returned as well so that the client can size its scrollable area.
+     * </p>
+     *
+     * @param tableId    UUID of the table to load.
+     * @param fromRow    Zero-based index of the first row (inclusive).
+     * @param toRow      Zero-based index of the last row (exclusive).
+     * @param fromColumn Zero-based index of the first column (inclusive).
+     * @param toColumn   Zero-based index of the last column (exclusive).
+     * @return           {@link TableViewportDTO} with the header and rows of the window in display order.
+     */
+    public TableViewportDTO loadViewport(UUID tableId, int fromRow, int toRow, int fromColumn, int toColumn) {
+        int[] dimensions = jdbcClient.sql("""
+                SELECT (SELECT COUNT(*) FROM tbl_row WHERE tbl_table = :tableId)    AS rows_number,
+                       (SELECT COUNT(*) FROM tbl_column WHERE tbl_table = :tableId) AS columns_number
+            """)
+                .param("tableId", tableId)
+                .query((rs, rowNum) -> new int[]{rs.getInt("rows_number"), rs.getInt("columns_number")})
+                .single();
+
+        // row_number() is computed before OFFSET, so it is already the index within the whole table
+        List<ColumnDTO> header = jdbcClient.sql("""
+                SELECT id, tbl_table, data_type, column_name,
+                       (row_number() OVER (ORDER BY column_order) - 1)::int AS column_index
+                FROM tbl_column
+                WHERE tbl_table = :tableId
+                ORDER BY column_order
+                OFFSET :fromColumn LIMIT :columnsCount
+            """)
+                .param("tableId", tableId)
+                .param("fromColumn", fromColumn)
+                .param("columnsCount", (long) toColumn - fromColumn)
+                .query(new ColumnDTOMapper())
+                .list();
+
+        List<RowDTO> content = new ArrayList<>();
+        GapFiller gapFiller = new GapFiller(header, new RowsAssembler(tableId, header.size(), content));
+
+        jdbcClient.sql("""
+                WITH window_rows AS (SELECT id, row_order
+                                     FROM tbl_row
+                                     WHERE tbl_table = :tableId
+                                     ORDER BY row_order
+                                     OFFSET :fromRow LIMIT :rowsCount),
+                     window_columns AS (SELECT id, column_order
+                                        FROM tbl_column
+                                        WHERE tbl_table = :tableId
+                                        ORDER BY column_order
+                                        OFFSET :fromColumn LIMIT :columnsCount)
+                SELECT r.id AS row_id, c.tbl_column AS column_id, c.value
+                FROM window_rows r
+                LEFT JOIN (cell c INNER JOIN window_columns mc ON mc.id = c.tbl_column)
+                       ON c.tbl_row = r.id
+                ORDER BY r.row_order, mc.column_order
+            """)
+                .param("tableId", tableId)
+                .param("fromRow", fromRow)
+                .param("rowsCount", toRow - fromRow)
+                .param("fromColumn", fromColumn)
+                .param("columnsCount", (long) toColumn - fromColumn)
+                .query(gapFiller);
+        gapFiller.finish();
+
+        return new TableViewportDTO(
+                tableId, dimensions[0], dimensions[1], fromRow, fromColumn, header, content
+        );
+    }
+
+
+    /**
+     * Loads the complete content of a table as a {@link CompactTable}.
+     * <p>
+     *  The header and the row ids follow the same ordering of {@link ColumnDAO#findAllColumn(UUID)} and
+     *  {@link RowDAO#findAllRows(UUID)}. The cells are then read without any sorting and placed in their
+     *  column by looking up the position of their row and column; the cells without a record are empty.
+     * </p>
+     *
+     * @param tableId UUID of the table to load.
+     * @return        {@link CompactTable} with the header, the rows and the values of all the cells of the table.
+     */
+    public CompactTable loadCompactTable(UUID tableId) {
+        List<ColumnDTO> header = findHeader(tableId);
+        List<UUID> rowIds = jdbcClient.sql("""
+                SELECT id
+                FROM tbl_row
+                WHERE tbl_table = :tableId
+                ORDER BY row_order
+            """)
+                .param("tableId", tableId)
+                .query(UUID.class)
+                .list();
+
+        CompactTable.Builder builder = CompactTable.builder(tableId);
+        Map<String, Integer> columnPositions = new HashMap<>();
+        Map<String, Integer> rowPositions = new HashMap<>();
+
+        for (int i = 0; i < header.size(); ++i) {
+            ColumnDTO column = header.get(i);
+            builder.column(column.id(), column.dataType(), column.columnName());
+            columnPositions.put(column.id().toString(), i);
+        }
+
+        for (int i = 0; i < rowIds.size(); ++i) {
+            builder.row(rowIds.get(i));
+            rowPositions.put(rowIds.get(i).toString(), i);
+        }
+
+        jdbcClient.sql("""
+                SELECT c.tbl_row, c.tbl_column, c.value
+                FROM cell c
+                INNER JOIN tbl_row r ON r.id = c.tbl_row
+                WHERE r.tbl_table = :tableId
+            """)
+                .param("tableId", tableId)
+                .query((RowCallbackHandler) rs -> {
+                    Integer row = rowPositions.get(rs.getString("tbl_row"));
+                    Integer column = columnPositions.get(rs.getString("tbl_column"));
+
+                    if (row != null && column != null)
+                        builder.value(row, column, rs.getString("value"));
+                });
+
+        return builder.build();
+    }
+
+
+    /**
+     * Reads the content of a table through a database cursor and hands every record to {@code visitor},
+     * without holding the content in memory.
+     * <p>
+     *  Cells are visited in display order: by {@code row_order} and then by {@code column_order}.
+     *  Every column of {@code header} is visited for every row, with an empty value if the cell has no record;
+     *  if the table has no columns, each row is visited once with {@code null} column id and value.
+     *  PostgreSQL honours the fetch size only inside a transaction, so the caller must open one,
+     *  otherwise the whole result set is buffered by the driver.
+     * </p>
+     *
+     * @param tableId UUID of the table to read.
+     * @param header  columns of the table, as returned by {@link #findHeader(UUID)}.
+     * @param visitor callback invoked for every cell.
+     * @throws IOException if the visitor fails; the reading is interrupted.
+     */
+    public void streamTableContent(UUID tableId, List<ColumnDTO> header, ContentVisitor visitor) throws IOException {
+        GapFiller gapFiller = new GapFiller(header, visitor);
+
+        try {
+            cursorClient.sql(CONTENT_QUERY)
+                    .param("tableId", tableId)
+                    .query(gapFiller);
+            gapFiller.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+
+    /**
+     * Callback of {@link #streamTableContent(UUID, List, ContentVisitor)}, receives one cell at a time.
+     */
+    @FunctionalInterface
+    public interface ContentVisitor {
+
+        /**
+         * @param rowId    UUID of the row, as text.
+         * @param columnId UUID of the column of the cell as text; {@code null} if the table has no columns.
+         * @param value    value of the cell; {@code null} if the table has no columns.
+         */
+        void visit(String rowId, String columnId, String value) throws IOException;
+    }
+
+
+    /**
+     * Turns the sparse records of a content query into one visit per cell.
+     * <p>
+     *  The records must be ordered by row and then by column index, like the header: for each row the header
+     *  is walked once, and the columns skipped before a record, or left after the last one, are visited
+     *  with an empty value. {@link #finish()} must be called after the last record.
+     * </p>
+     */
+    static class GapFiller implements RowCallbackHandler {
+
+        private final List<String> columnIds;
+        private final ContentVisitor visitor;
+
+        private String currentRowId;
+        private int nextColumn;
+
+        GapFiller(List<ColumnDTO> header, ContentVisitor visitor) {
+            this.columnIds = header.stream().map(column -> column.id().toString()).toList();
+            this.visitor = visitor;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            accept(rs.getString("row_id"), rs.getString("column_id"), rs.getString("value"));
+        }
+
+        /**
+         * Handles one record of a content query.
+         *
+         * @param columnId UUID of the column of the record as text; {@code null} for a row without records.
+         */
+        void accept(String rowId, String columnId, String value) {
+            if (!rowId.equals(currentRowId)) {
+                finish();
+                currentRowId = rowId;
+                nextColumn = 0;
+
+                if (columnIds.isEmpty())
+                    visit(rowId, null, null);
+            }
+
+            if (columnId == null)
+                return;
+
+            while (nextColumn < columnIds.size()) {
+                String expectedColumnId = columnIds.get(nextColumn++);
+
+                if (expectedColumnId.equals(columnId)) {
+                    visit(rowId, expectedColumnId, value);
+                    return;
+                }
+
+                visit(rowId, expectedColumnId, "");
+            }
+        }
+
+        /** Visits the empty cells left at the end of the current row. */
+        void finish() {
+            if (currentRowId == null)
+                return;
+
+            while (nextColumn < columnIds.size())
+                visit(currentRowId, columnIds.get(nextColumn++), "");
+        }
+
+        private void visit(String rowId, String columnId, String value) {
+            try {
+                visitor.visit(rowId, columnId, value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+
+    /**
+     * Groups consecutive cells of the same row into one {@link RowDTO}.
+     * The cells must be ordered by row first, so a row is complete as soon as the id changes.
+     */
+    static class RowsAssembler implements ContentVisitor {
+
+        private final UUID tableId;
+        private final int columnsNumber;
+        private final List<RowDTO> content;
+        private final Map<String, UUID> columnIds = new HashMap<>();
+
+        private String currentRowId;
+        private UUID currentRowUUID;
+        private List<CellDTO> currentCells;
+
+        RowsAssembler(UUID tableId, int columnsNumber, List<RowDTO> content) {
+            this.tableId = tableId;
+            this.columnsNumber = columnsNumber;
+            this.content = content;
+        }
+
+        @Override
+        public void visit(String rowId, String columnId, String value) {
+            if (!rowId.equals(currentRowId)) {
+                currentRowId = rowId;
+                currentRowUUID = UUID.fromString(rowId);
+                currentCells = new ArrayList<>(columnsNumber);
+                content.add(new RowDTO(currentRowUUID, tableId, currentCells));
+            }
+
+            if (columnId != null) {
+                // the same column UUID is shared by all the cells of the column
+                UUID column = columnIds.computeIfAbsent(columnId, UUID::fromString);
+                currentCells.add(new CellDTO(tableId, currentRowUUID, column, value));
+            }
+        }
+    }
+
+
+    private static class ColumnDTOMapper implements RowMapper<ColumnDTO> {
+
+        @Override
+        public ColumnDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return new ColumnDTO(
+                    UUID.fromString(rs.getString("id")),
+                    UUID.fromString(rs.getString("tbl_table")),
+                    rs.getInt("data_type"),
+                    rs.getString("column_name"),
+                    rs.getInt("column_index")
+            );
+        }
+    }
+}
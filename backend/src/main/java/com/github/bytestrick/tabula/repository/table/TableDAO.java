@@ -2,6 +2,7 @@ package com.github.bytestrick.tabula.repository.table;
 
 import com.github.bytestrick.tabula.model.table.Table;
 import com.github.bytestrick.tabula.repository.proxy.table.TableProxy;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.JdbcClient;
@@ -12,6 +13,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -34,6 +36,7 @@ import java.util.UUID;
  * </p>
  */
 @RequiredArgsConstructor
+@Timed("tabula.dao")
 @Repository
 public class TableDAO {
 
@@ -107,6 +110,73 @@ public class TableDAO {
     }
 
 
+    /**
+     * Increments the version of a table, if it belongs to the specified user.
+     * <p>
+     *  The row of the table stays locked until the end of the transaction, so concurrent changes of the same
+     *  table are serialized and each one is seen by a different version.
+     * </p>
+     *
+     * @param tableId UUID of the table that is about to change.
+     * @param userId  UUID of the user who should own the table.
+     * @return the new version of the table, or empty if it does not exist or belongs to another user.
+     */
+    public Optional<Long> bumpVersionForUser(UUID tableId, UUID userId) {
+        return jdbcClient.sql("""
+                UPDATE tbl_table
+                SET version = version + 1
+                WHERE id = :tableId AND user_id = :userId
+                RETURNING version
+            """)
+                .param("tableId", tableId)
+                .param("userId", userId)
+                .query(Long.class)
+                .optional();
+    }
+
+
+    /**
+     * Retrieves the version of a table that belongs to the specified user.
+     *
+     * @param tableId UUID of the table.
+     * @param userId  UUID of the user who should own the table.
+     * @return the version of the table, or empty if it does not exist or belongs to another user.
+     */
+    public Optional<Long> findVersionForUser(UUID tableId, UUID userId) {
+        return jdbcClient.sql("""
+                SELECT version
+                FROM tbl_table
+                WHERE id = :tableId AND user_id = :userId
+            """)
+                .param("tableId", tableId)
+                .param("userId", userId)
+                .query(Long.class)
+                .optional();
+    }
+
+
+    /**
+     * Retrieves the version of a table that belongs to the specified user and keeps it from changing until
+     * the end of the transaction: changes of the table wait, while other readers do not.
+     *
+     * @param tableId UUID of the table.
+     * @param userId  UUID of the user who should own the table.
+     * @return the version of the table, or empty if it does not exist or belongs to another user.
+     */
+    public Optional<Long> lockVersionForUser(UUID tableId, UUID userId) {
+        return jdbcClient.sql("""
+                SELECT version
+                FROM tbl_table
+                WHERE id = :tableId AND user_id = :userId
+                FOR SHARE
+            """)
+                .param("tableId", tableId)
+                .param("userId", userId)
+                .query(Long.class)
+                .optional();
+    }
+
+
     /**
      * Retrieves a full {@link TableProxy} object, including its rows and columns, for a given table UUID.
      *
@@ -196,6 +266,42 @@ public class TableDAO {
     }
 
 
+    /**
+     * Finds the tables of a user whose title contains a word similar to {@code pattern}, the most similar first.
+     * <p>
+     *  The search is served by the trigram index on {@code title}: the {@code <%} operator keeps the titles with a
+     *  {@code word_similarity} of at least {@code minWordSimilarity}, a threshold set for the current transaction
+     *  only. The results are candidates, to be ranked again by the caller.
+     * </p>
+     *
+     * @param pattern           Text searched in the titles.
+     * @param userId            UUID of the owner of the tables.
+     * @param minWordSimilarity Minimum {@code word_similarity} between {@code pattern} and a title, in [0, 1].
+     * @param limit             Maximum number of tables to return.
+     * @return                  List of {@link TableProxy} sorted by decreasing {@code word_similarity}.
+     */
+    @Transactional(readOnly = true)
+    public List<TableProxy> findByTitleSimilarity(String pattern, UUID userId, float minWordSimilarity, int limit) {
+        jdbcClient.sql("SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)")
+                .param("threshold", Float.toString(minWordSimilarity))
+                .query()
+                .singleValue();
+
+        return jdbcClient.sql("""
+                        SELECT *
+                        FROM tbl_table
+                        WHERE user_id = :userId AND :pattern <% title
+                        ORDER BY word_similarity(:pattern, title) DESC
+                        LIMIT :limit
+                        """)
+                .param("pattern", pattern)
+                .param("userId", userId)
+                .param("limit", limit)
+                .query(new TableMapper())
+                .list();
+    }
+
+
     private class TableMapper implements RowMapper<TableProxy> {
 
         @Override
@@ -206,6 +312,7 @@ public class TableDAO {
                     rs.getString("description"),
                     rs.getTimestamp("creation_date").toLocalDateTime(),
                     rs.getTimestamp("last_edit_date").toLocalDateTime(),
+                    rs.getLong("version"),
                     UUID.fromString(rs.getString("user_id")),
                     rowDAO,
                     columnDAO
@@ -34,6 +34,7 @@ public class AuthenticationService {
     private final AuthenticationManager authenticationManager;
     private final PasswordEncoder passwordEncoder;
     private final OtpProvider otpProvider;
+    private final VerifiedJwtCache verifiedJwtCache;
 
     public String signIn(String email, String password) {
         Optional<User> user = userDao.findByEmail(email);
@@ -111,6 +112,7 @@ public class AuthenticationService {
                     user.setOtp(null);
                     user.setOtpExpiration(null);
                     userDao.resetPasswordWithOtp(user.getId(), passwordEncoder.encode(newPassword));
+                    verifiedJwtCache.evictSubject(email);
                     log.info("password reset for {}", email);
                     return user;
                 })
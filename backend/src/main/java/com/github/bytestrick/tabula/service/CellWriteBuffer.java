@@ -0,0 +1,421 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.model.table.Cell;
+import com.github.bytestrick.tabula.repository.table.CellDAO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind buffer of the cell edits, in front of {@link CellDAO#updateCells(List)}.
+ * <p>
+ * When {@code app.cell-write-buffer.enabled} is set, {@link #write(UUID, List)} only records the edits in a log
+ * per table, where repeated edits of the same cell are coalesced into the last one, and returns. The log of a
+ * table is written in a single batch when it reaches {@code app.cell-write-buffer.max-pending-cells} cells,
+ * every {@code app.cell-write-buffer.flush-interval}, and whenever {@link #flush(UUID)} is called:
+ * {@link TableService} does so before reading a table and before changing its structure, so both always see
+ * the accepted edits. Every log is written when the application shuts down.
+ * <p>
+ * The edits of a transaction enter the log at once, while it holds the lock of the table row, and are taken
+ * out again if it rolls back. Until it has completed, the log of the table is neither flushed nor changed by
+ * anyone else, and batches of the same table are written one at a time. This is what keeps the periodic flush,
+ * which does not take the lock of the table, from writing edits that are not committed, and a change of
+ * structure, which flushes once it holds the lock, from missing edits or having them written after it.
+ * <p>
+ * {@link #flush(UUID)} writes in the caller's transaction, behind a savepoint, so that a request never holds
+ * two pooled connections at once; if that transaction rolls back, the edits go back to the log. Only the
+ * periodic flushes and the one at shutdown, which have no caller's transaction, write in a transaction of
+ * their own; the periodic one skips the tables that are busy.
+ * <p>
+ * An edit whose row or column was deleted before it could be written is dropped. If a flush fails for any other
+ * reason its edits go back to the log, unless the cells were edited again meanwhile, and are retried.
+ * <p>
+ * When the buffer is disabled, which is the default, the edits are written immediately in the caller's
+ * transaction.
+ */
+@Slf4j
+@Service
+public class CellWriteBuffer {
+    private final CellDAO cellDAO;
+    private final TransactionOperations callerTransaction;
+    private final TransactionOperations ownTransaction;
+    private final boolean enabled;
+    private final int maxPendingCells;
+    private final Duration flushInterval;
+
+    private final Map<UUID, TableEdits> tables = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCells = new AtomicInteger();
+    private final Counter edits;
+    private final Counter writes;
+    private final Timer flushes;
+    private Thread flusher;
+
+    private record CellKey(UUID rowId, UUID columnId) {
+    }
+
+    /**
+     * Edit log of a table: the last value of each edited cell, in the order of the first edit.
+     * The monitor of the object guards every field and is notified whenever {@code flushing} or
+     * {@code completing} decrease.
+     */
+    private static class TableEdits {
+        Map<CellKey, String> pending = new LinkedHashMap<>();
+        /** Whether a batch of the table is being written */
+        boolean flushing;
+        /** Transactions that changed the log and have not completed yet, see {@link TransactionEdits} */
+        int completing;
+    }
+
+    /**
+     * What a transaction did to the log of a table, undone if it rolls back: the cells it edited, with the
+     * value they had in the log before, and the batches it wrote.
+     * It is bound to the transaction as a resource keyed by the {@link TableEdits}.
+     */
+    private class TransactionEdits implements TransactionSynchronization {
+        final TableEdits table;
+        /** Value of each edited cell before the first edit of the transaction, {@code null} if it was not there */
+        final Map<CellKey, String> replaced = new HashMap<>();
+        final List<Map<CellKey, String>> written = new ArrayList<>();
+        int editsNumber;
+        int writtenCells;
+
+        TransactionEdits(TableEdits table) {
+            this.table = table;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(table);
+            synchronized (table) {
+                if (status == STATUS_COMMITTED) {
+                    edits.increment(editsNumber);
+                    writes.increment(writtenCells);
+                } else {
+                    written.forEach(batch -> putBack(table, batch));
+                    replaced.forEach((key, previous) -> {
+                        String current = previous == null
+                                ? table.pending.remove(key)
+                                : table.pending.put(key, previous);
+                        if (previous == null && current != null) {
+                            pendingCells.decrementAndGet();
+                        } else if (previous != null && current == null) {
+                            pendingCells.incrementAndGet();
+                        }
+                    });
+                }
+                --table.completing;
+                table.notifyAll();
+            }
+        }
+    }
+
+    @Autowired
+    public CellWriteBuffer(CellDAO cellDAO,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.cell-write-buffer.enabled:false}") boolean enabled,
+                           @Value("${app.cell-write-buffer.max-pending-cells:1000}") int maxPendingCells,
+                           @Value("${app.cell-write-buffer.flush-interval:500ms}") Duration flushInterval) {
+        this(cellDAO, transaction(transactionManager, TransactionDefinition.PROPAGATION_NESTED),
+                transaction(transactionManager, TransactionDefinition.PROPAGATION_REQUIRES_NEW),
+                meterRegistry, enabled, maxPendingCells, flushInterval);
+    }
+
+    /**
+     * @param callerTransaction how {@link #flush(UUID)} writes, within the transaction of the caller if any
+     * @param ownTransaction    how the periodic flushes and the one at shutdown write
+     */
+    CellWriteBuffer(CellDAO cellDAO,
+                    TransactionOperations callerTransaction,
+                    TransactionOperations ownTransaction,
+                    MeterRegistry meterRegistry,
+                    boolean enabled,
+                    int maxPendingCells,
+                    Duration flushInterval) {
+        this.cellDAO = cellDAO;
+        this.callerTransaction = callerTransaction;
+        this.ownTransaction = ownTransaction;
+        this.enabled = enabled;
+        this.maxPendingCells = maxPendingCells;
+        this.flushInterval = flushInterval;
+
+        edits = Counter.builder("tabula.cells.buffer.edits")
+                .description("Cell edits accepted by the write-behind buffer")
+                .register(meterRegistry);
+        writes = Counter.builder("tabula.cells.buffer.writes")
+                .description("Cells written by the flushes of the write-behind buffer")
+                .register(meterRegistry);
+        flushes = Timer.builder("tabula.cells.buffer.flush")
+                .description("Flushes of the edit log of a table")
+                .register(meterRegistry);
+        Gauge.builder("tabula.cells.buffer.pending", pendingCells, AtomicInteger::get)
+                .description("Cells waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("tabula.cells.buffer.coalescing.ratio", this, CellWriteBuffer::coalescingRatio)
+                .description("Share of the accepted edits that did not need a write of their own")
+                .register(meterRegistry);
+    }
+
+    private static TransactionOperations transaction(PlatformTransactionManager transactionManager,
+                                                     int propagationBehavior) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(propagationBehavior);
+        return transactionTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            flusher = Thread.ofVirtual().name("cell-write-buffer-flusher").start(this::flushPeriodically);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+        flushAll();
+    }
+
+    /**
+     * Write new values of cells, already validated, or record them to be written later
+     */
+    public void write(UUID tableId, List<Cell> cells) {
+        if (!enabled) {
+            cellDAO.updateCells(cells);
+            return;
+        }
+        if (cells.isEmpty()) {
+            return;
+        }
+
+        TableEdits table = tables.computeIfAbsent(tableId, id -> new TableEdits());
+        boolean full;
+        synchronized (table) {
+            awaitOthers(table, false);
+            TransactionEdits transactionEdits = transactionEdits(table);
+            for (Cell cell : cells) {
+                CellKey key = new CellKey(cell.getRowId(), cell.getColumnId());
+                String previous = table.pending.put(key, cell.getValue());
+                if (previous == null) {
+                    pendingCells.incrementAndGet();
+                }
+                if (transactionEdits != null && !transactionEdits.replaced.containsKey(key)) {
+                    transactionEdits.replaced.put(key, previous);
+                }
+            }
+            if (transactionEdits != null) {
+                transactionEdits.editsNumber += cells.size();
+            } else {
+                edits.increment(cells.size());
+            }
+            full = table.pending.size() >= maxPendingCells;
+        }
+
+        if (full) {
+            flush(tableId);
+        }
+    }
+
+    /**
+     * Write the recorded edits of a table, if any, in the caller's transaction
+     *
+     * @throws DataAccessException if they could not be written; they are kept to be retried
+     */
+    public void flush(UUID tableId) {
+        flush(tableId, callerTransaction, true);
+    }
+
+    public void flushAll() {
+        flushAll(true);
+    }
+
+    /**
+     * @param wait whether to wait for the tables whose log is being written or changed by a transaction, rather
+     *             than skipping them
+     */
+    private void flushAll(boolean wait) {
+        for (UUID tableId : tables.keySet()) {
+            try {
+                flush(tableId, ownTransaction, wait);
+            } catch (DataAccessException e) {
+                log.error("Could not write the cell edits of table {}, they will be retried", tableId, e);
+            }
+        }
+    }
+
+    private void flushPeriodically() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(flushInterval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            flushAll(false);
+        }
+    }
+
+    private void flush(UUID tableId, TransactionOperations transaction, boolean wait) {
+        TableEdits table = tables.get(tableId);
+        if (table == null) {
+            return;
+        }
+
+        Map<CellKey, String> batch;
+        TransactionEdits transactionEdits;
+        synchronized (table) {
+            if (!wait && (table.flushing || table.completing > 0)) {
+                return;
+            }
+            awaitOthers(table, true);
+            if (table.pending.isEmpty()) {
+                return;
+            }
+            transactionEdits = transactionEdits(table);
+            batch = table.pending;
+            table.pending = new LinkedHashMap<>();
+            table.flushing = true;
+        }
+
+        try {
+            pendingCells.addAndGet(-batch.size());
+            flushes.record(() -> writeBatch(table, batch, transaction, transactionEdits));
+        } finally {
+            synchronized (table) {
+                table.flushing = false;
+                table.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits, holding the monitor of the table, until no other transaction is to complete after changing its log
+     * and, if {@code toFlush}, until no batch of it is being written
+     */
+    private static void awaitOthers(TableEdits table, boolean toFlush) {
+        int own = TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.hasResource(table) ? 1 : 0;
+
+        boolean interrupted = false;
+        while (table.completing > own || (toFlush && table.flushing)) {
+            try {
+                table.wait();
+            } catch (InterruptedException e) {
+                // the other transactions are completing already, the wait is short
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The changes of the caller's transaction to the log of the table, registered when it makes the first one;
+     * the caller holds the monitor of the table
+     *
+     * @return {@code null} without a transaction
+     */
+    private TransactionEdits transactionEdits(TableEdits table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        TransactionEdits transactionEdits = (TransactionEdits) TransactionSynchronizationManager.getResource(table);
+        if (transactionEdits == null) {
+            transactionEdits = new TransactionEdits(table);
+            TransactionSynchronizationManager.bindResource(table, transactionEdits);
+            TransactionSynchronizationManager.registerSynchronization(transactionEdits);
+            ++table.completing;
+        }
+        return transactionEdits;
+    }
+
+    private void writeBatch(TableEdits table, Map<CellKey, String> batch, TransactionOperations transaction,
+                            TransactionEdits transactionEdits) {
+        List<Cell> cells = new ArrayList<>(batch.size());
+        batch.forEach((key, value) -> cells.add(new Cell(null, key.columnId(), key.rowId(), value)));
+
+        int written;
+        try {
+            try {
+                transaction.executeWithoutResult(status -> cellDAO.updateCells(cells));
+                written = cells.size();
+            } catch (DataIntegrityViolationException e) {
+                // some rows or columns were deleted after their edits were accepted
+                written = writeOneByOne(cells, transaction);
+            }
+        } catch (DataAccessException e) {
+            putBack(table, batch);
+            throw e;
+        }
+
+        if (transactionEdits != null) {
+            // written in the caller's transaction, which may still roll back
+            synchronized (table) {
+                transactionEdits.written.add(batch);
+                transactionEdits.writtenCells += written;
+            }
+        } else {
+            writes.increment(written);
+        }
+    }
+
+    private int writeOneByOne(List<Cell> cells, TransactionOperations transaction) {
+        int written = 0;
+        for (Cell cell : cells) {
+            try {
+                transaction.executeWithoutResult(status -> cellDAO.updateCells(List.of(cell)));
+                ++written;
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Dropped the edit of cell ({}, {}), its row or column no longer exists",
+                        cell.getRowId(), cell.getColumnId());
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Puts the edits of a batch that was not written back in the log, unless the cells were edited again meanwhile
+     */
+    private void putBack(TableEdits table, Map<CellKey, String> batch) {
+        synchronized (table) {
+            batch.forEach((key, value) -> {
+                if (table.pending.putIfAbsent(key, value) == null) {
+                    pendingCells.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    private double coalescingRatio() {
+        double accepted = edits.count();
+        return accepted == 0 ? 0 : 1 - (writes.count() + pendingCells.get()) / accepted;
+    }
+}
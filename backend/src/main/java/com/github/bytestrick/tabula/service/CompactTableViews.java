@@ -0,0 +1,89 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.controller.dto.table.CellDTO;
+import com.github.bytestrick.tabula.controller.dto.table.ColumnDTO;
+import com.github.bytestrick.tabula.controller.dto.table.RowDTO;
+import com.github.bytestrick.tabula.controller.dto.table.TableColumnarContentDTO;
+import com.github.bytestrick.tabula.controller.dto.table.TableContentDTO;
+import com.github.bytestrick.tabula.controller.dto.table.TableViewportDTO;
+import com.github.bytestrick.tabula.model.table.CompactTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The DTOs {@link TableService} answers with, built from a {@link CompactTable}.
+ * <p>
+ * They are built for a single response and then dropped, only the compact table is held for long.
+ * </p>
+ */
+final class CompactTableViews {
+
+    private CompactTableViews() {
+    }
+
+    static TableContentDTO content(CompactTable table) {
+        return new TableContentDTO(table.getId(), header(table, 0, table.getColumnsNumber()),
+                rows(table, 0, table.getRowsNumber(), 0, table.getColumnsNumber()));
+    }
+
+    static TableColumnarContentDTO columnar(CompactTable table) {
+        int columnsNumber = table.getColumnsNumber();
+        List<UUID> rowIds = new ArrayList<>(table.getRowsNumber());
+        String[] values = new String[table.getRowsNumber() * columnsNumber];
+
+        for (int i = 0; i < table.getRowsNumber(); ++i) {
+            rowIds.add(table.getRowId(i));
+            for (int j = 0; j < columnsNumber; ++j)
+                values[i * columnsNumber + j] = table.getValue(i, j);
+        }
+
+        return new TableColumnarContentDTO(table.getId(), header(table, 0, columnsNumber), rowIds,
+                Arrays.asList(values));
+    }
+
+    /**
+     * The window of the rows with index in [{@code fromRow}, {@code toRow}) and the columns with index in
+     * [{@code fromColumn}, {@code toColumn}), as {@code TableContentDAO#loadViewport} loads it.
+     */
+    static TableViewportDTO viewport(CompactTable table, int fromRow, int toRow, int fromColumn, int toColumn) {
+        int lastRow = Math.max(fromRow, Math.min(toRow, table.getRowsNumber()));
+        int lastColumn = Math.max(fromColumn, Math.min(toColumn, table.getColumnsNumber()));
+
+        return new TableViewportDTO(table.getId(), table.getRowsNumber(), table.getColumnsNumber(),
+                fromRow, fromColumn,
+                header(table, fromColumn, lastColumn),
+                rows(table, fromRow, lastRow, fromColumn, lastColumn));
+    }
+
+    private static List<ColumnDTO> header(CompactTable table, int fromColumn, int toColumn) {
+        List<ColumnDTO> header = new ArrayList<>(Math.max(0, toColumn - fromColumn));
+        for (int j = fromColumn; j < toColumn; ++j)
+            header.add(new ColumnDTO(table.getColumnId(j), table.getId(), table.getDataType(j),
+                    table.getColumnName(j), j));
+
+        return header;
+    }
+
+    private static List<RowDTO> rows(CompactTable table, int fromRow, int toRow, int fromColumn, int toColumn) {
+        // the same column UUID is shared by all the cells of the column
+        UUID[] columnIds = new UUID[Math.max(0, toColumn - fromColumn)];
+        for (int j = 0; j < columnIds.length; ++j)
+            columnIds[j] = table.getColumnId(fromColumn + j);
+
+        List<RowDTO> rows = new ArrayList<>(Math.max(0, toRow - fromRow));
+        for (int i = fromRow; i < toRow; ++i) {
+            UUID rowId = table.getRowId(i);
+            List<CellDTO> cells = new ArrayList<>(columnIds.length);
+
+            for (int j = 0; j < columnIds.length; ++j)
+                cells.add(new CellDTO(table.getId(), rowId, columnIds[j], table.getValue(i, fromColumn + j)));
+
+            rows.add(new RowDTO(rowId, table.getId(), cells));
+        }
+
+        return rows;
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.bytestrick.tabula.service;
 
+import com.github.bytestrick.tabula.model.AuthenticatedUser;
 import com.github.bytestrick.tabula.model.User;
 import com.github.bytestrick.tabula.repository.UserDao;
 import lombok.RequiredArgsConstructor;
@@ -10,7 +11,8 @@ import org.springframework.stereotype.Service;
 
 /**
  * This service is used by Spring Security to authenticate users.
- * Retrieves a user through the {@link UserDao} and returns a {@link UserDetails} object.
+ * Retrieves a user through the {@link UserDao} and returns an {@link AuthenticatedUser},
+ * which also carries the user's id.
  */
 @Service
 @RequiredArgsConstructor
@@ -20,7 +22,8 @@ public class DaoUserDetailsService implements UserDetailsService {
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userDao.findByEmail(email).orElseThrow(() -> new UsernameNotFoundException(email));
-        return new org.springframework.security.core.userdetails.User(
+        return new AuthenticatedUser(
+                user.getId(),
                 user.getEmail(),
                 user.getEncodedPassword(),
                 user.getRoles());
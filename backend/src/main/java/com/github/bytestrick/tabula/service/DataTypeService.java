@@ -34,7 +34,7 @@ public class DataTypeService {
 
         for (DataType dataType : dataTypes) {
             float threshold = (float) name.length() / dataType.name().length() * 0.749f;
-            float similarity = FuzzySearch.similarity(name, dataType.name());
+            float similarity = FuzzySearch.similarity(name, dataType.name(), threshold);
 
             if (similarity >= threshold) {
                 fuzzySearchDataTypes.add(new Pair<>(dataType, similarity));
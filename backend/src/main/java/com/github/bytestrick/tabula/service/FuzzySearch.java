@@ -2,17 +2,52 @@ package com.github.bytestrick.tabula.service;
 
 import org.springframework.stereotype.Service;
 
-import java.util.Objects;
-
-import static java.lang.Math.abs;
-
+/**
+ * Case-insensitive Levenshtein distance and the similarity derived from it.
+ * <p>
+ * The distance is computed on a single row of the dynamic programming matrix, restricted to the diagonal band
+ * that can still lead to a distance within the bound (Ukkonen's cut-off), and stops as soon as a whole row
+ * exceeds the bound. Characters are case-folded while they are compared and the buffers are reused by each
+ * thread, so a computation does not allocate.
+ */
 @Service
 public class FuzzySearch {
 
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * Row of the matrix and case-folded shorter string, grown on demand.
+     */
+    private static final class Buffers {
+        int[] row = new int[64];
+        char[] chars = new char[64];
+
+        void ensureCapacity(int length) {
+            if (row.length <= length) {
+                int capacity = Math.max(length + 1, row.length * 2);
+                row = new int[capacity];
+                chars = new char[capacity];
+            }
+        }
+    }
+
     public static float similarity(String a, String b) {
         return (1 - (float) levenshtein(a, b) / Math.max(a.length(), b.length()));
     }
 
+    /**
+     * Computes {@link #similarity(String, String)} when it is at least {@code minSimilarity}; otherwise returns
+     * a value lower than {@code minSimilarity}, computed only as far as needed to tell.
+     */
+    public static float similarity(String a, String b, float minSimilarity) {
+        int maxLength = Math.max(a.length(), b.length());
+        int max = maxDistance(maxLength, minSimilarity);
+        if (max < 0) // minSimilarity is above 1
+            return 0;
+
+        return 1 - (float) distance(a, b, max) / maxLength;
+    }
+
     public static int levenshtein(String a, String b) {
         return distance(a, b, -1);
     }
@@ -22,63 +57,90 @@ public class FuzzySearch {
         return d <= max;
     }
 
-    private static int min(int... a) {
-        int min = a[0];
-
-        for (int i : a)
-            if (i < min)
-                min = i;
-
-        return min;
+    /**
+     * The greatest distance whose similarity, computed as in {@link #similarity(String, String)},
+     * is at least {@code minSimilarity}; {@code -1} if there is none.
+     */
+    private static int maxDistance(int maxLength, float minSimilarity) {
+        if (maxLength == 0 || minSimilarity <= 0)
+            return maxLength;
+
+        int max = Math.min(maxLength, (int) ((1 - minSimilarity) * maxLength));
+        // the float arithmetic of similarity() decides, the estimate may be off by one either way
+        while (max < maxLength && 1 - (float) (max + 1) / maxLength >= minSimilarity)
+            max++;
+        while (max >= 0 && 1 - (float) max / maxLength < minSimilarity)
+            max--;
+
+        return max;
     }
 
+    /**
+     * @param max bound of the distance, negative for none.
+     * @return the distance, or {@code max + 1} if it is greater than {@code max}.
+     */
     private static int distance(String a, String b, int max) {
-        if (Objects.equals(a, b)) return 0;
+        if (a.equals(b)) return 0;
 
-        a = a.toLowerCase();
-        b = b.toLowerCase();
+        if (a.length() < b.length()) {
+            String ts = a;
+            a = b;
+            b = ts;
+        }
 
         int lenA = a.length();
         int lenB = b.length();
 
-        if (max >= 0 && abs(lenA - lenB) > max) return max + 1;
-        if (lenA == 0) return lenB;
+        if (max < 0) max = lenA;
+        if (lenA - lenB > max) return max + 1;
         if (lenB == 0) return lenA;
 
-        if (lenA < lenB) {
-            int tl = lenA;
-            lenA = lenB;
-            lenB = tl;
+        Buffers buffers = BUFFERS.get();
+        buffers.ensureCapacity(lenB);
+        int[] row = buffers.row;
+        char[] chars = buffers.chars;
 
-            String ts = a;
-            a = b;
-            b = ts;
+        for (int j = 0; j < lenB; j += 1) {
+            chars[j] = Character.toLowerCase(b.charAt(j));
         }
 
-        int[] cost = new int[lenB + 1];
+        // cells outside the band count as max + 1, which is all that matters about them
+        int outside = max + 1;
 
-        for (int i = 0; i <= lenB; i += 1) {
-            cost[i] = i;
+        for (int j = 0; j <= lenB; j += 1) {
+            row[j] = j <= max ? j : outside;
         }
 
         for (int i = 1; i <= lenA; i += 1) {
-            cost[0] = i;
-            int prv = i - 1;
-            int min = prv;
-
-            for (int j = 1; j <= lenB; j += 1) {
-                int act = prv + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
-                cost[j] = min(1 + (prv = cost[j]), 1 + cost[j - 1], act);
-                if (prv < min) min = prv;
+            char ca = Character.toLowerCase(a.charAt(i - 1));
+            int from = Math.max(1, i - max);
+            int to = Math.min(lenB, i + max);
+
+            int diagonal = row[from - 1];
+            int left = outside;
+            int rowMin = outside;
+
+            if (from == 1) {
+                left = row[0] = i <= max ? i : outside;
+                rowMin = left;
+            }
+
+            for (int j = from; j <= to; j += 1) {
+                int up = row[j];
+                int cost = diagonal + (ca == chars[j - 1] ? 0 : 1);
+                int value = Math.min(Math.min(up, left) + 1, cost);
+                if (value > outside) value = outside;
+
+                diagonal = up;
+                row[j] = value;
+                left = value;
+                if (value < rowMin) rowMin = value;
             }
 
-            if (max >= 0 && min > max)
+            if (rowMin > max)
                 return max + 1;
         }
 
-        if (max >= 0 && cost[lenB] > max)
-            return max + 1;
-
-        return cost[lenB];
+        return Math.min(row[lenB], outside);
     }
 }
@@ -1,7 +1,6 @@
 package com.github.bytestrick.tabula.service;
 
 import com.github.bytestrick.tabula.model.table.Table;
-import com.github.bytestrick.tabula.repository.proxy.table.TableProxy;
 import com.github.bytestrick.tabula.repository.table.TableDAO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -10,36 +9,51 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * Fuzzy search of the tables of a user by title.
+ * <p>
+ * The candidates are fetched through the trigram index on the titles (see
+ * {@link TableDAO#findByTitleSimilarity(String, UUID, float, int)}), then ranked again with
+ * {@link FuzzySearch#similarity(String, String)} and filtered with the same threshold as before the index
+ * was introduced, so the index only narrows down the tables to compare.
+ */
 @Service
 @RequiredArgsConstructor
 public class FuzzySearchTable {
 
+    /**
+     * Minimum trigram word similarity of a candidate; low enough to keep titles with a typo or two
+     */
+    private static final float MIN_WORD_SIMILARITY = 0.3f;
+
+    /**
+     * Candidates fetched for each result requested, to leave room to the re-ranking
+     */
+    private static final int CANDIDATES_PER_RESULT = 4;
+
     private final TableDAO tableDao;
 
 
-    public List<Table> fuzzySearch(String pattern, UUID userId) {
-        List<TableCardWithSimilarity> result = new ArrayList<>();
+    public List<Table> fuzzySearch(String pattern, UUID userId, int limit) {
+        if (pattern.isBlank()) {
+            return List.copyOf(tableDao.findLast(limit, userId));
+        }
 
-        int page = 0;
-        int pageSize = 50;
-        List<TableProxy> tables = tableDao.findPaginated(page, pageSize, userId);
+        List<TableCardWithSimilarity> result = new ArrayList<>();
 
-        while (!tables.isEmpty()) {
-            for (Table table : tables) {
-                float threshold = (float) pattern.length() / table.getTitle().length() * 0.749f;
-                float similarity = FuzzySearch.similarity(pattern, table.getTitle());
+        for (Table table : tableDao.findByTitleSimilarity(pattern, userId, MIN_WORD_SIMILARITY,
+                limit * CANDIDATES_PER_RESULT)) {
+            float threshold = (float) pattern.length() / table.getTitle().length() * 0.749f;
+            float similarity = FuzzySearch.similarity(pattern, table.getTitle(), threshold);
 
-                if (similarity >= threshold) {
-                    result.add(new TableCardWithSimilarity(table, similarity));
-                }
+            if (similarity >= threshold) {
+                result.add(new TableCardWithSimilarity(table, similarity));
             }
-            page += 1;
-            tables = tableDao.findPaginated(page, pageSize, userId);
         }
 
         result.sort(
                 (t1, t2) -> Float.compare(t2.similarity(), t1.similarity()));
-        return result.stream().map(TableCardWithSimilarity::table).toList();
+        return result.stream().limit(limit).map(TableCardWithSimilarity::table).toList();
     }
 
     public record TableCardWithSimilarity(Table table, float similarity) {
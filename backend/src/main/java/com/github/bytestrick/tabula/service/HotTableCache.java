@@ -0,0 +1,195 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.model.table.CompactTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded LRU cache of the content of the most read tables, keyed by table id.
+ * <p>
+ * The content is held as a {@link CompactTable}. The cache holds at most {@code app.hot-table-cache.max-weight}
+ * of it, as estimated by {@link CompactTable#getEstimatedBytes()}; the least recently used tables are evicted
+ * first, and 0 disables the cache.
+ * <p>
+ * Every entry is tagged with the version of the table whose content it holds exactly, so it is served only
+ * while the table is at that version, however the table was changed. The changes made through
+ * {@link TableService} are written through with {@link #update}: once their transaction commits, they are
+ * applied to the cached content of the previous version, which then needs no reload.
+ * <p>
+ * Hits, misses and evictions are counted so that the size of the cache can be tuned.
+ */
+@Slf4j
+@Service
+public class HotTableCache {
+    private final long maxWeight;
+    private final Map<UUID, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private record Entry(long version, CompactTable content, long weight) {
+    }
+
+    public HotTableCache(@Value("${app.hot-table-cache.max-weight:64MB}") DataSize maxWeight) {
+        this.maxWeight = maxWeight.toBytes();
+    }
+
+    /**
+     * Get the content of a table at a version
+     *
+     * @return the content, or {@code null} if it must be loaded
+     */
+    public CompactTable get(UUID tableId, long version) {
+        synchronized (entries) {
+            Entry entry = entries.get(tableId);
+            if (entry != null && entry.version() == version) {
+                hits.increment();
+                return entry.content();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Remember the content of a table loaded while no change of the table could commit, so that it is
+     * exactly the content of {@code version}
+     */
+    public void put(UUID tableId, long version, CompactTable content) {
+        Entry entry = new Entry(version, content, content.getEstimatedBytes());
+        synchronized (entries) {
+            Entry current = entries.get(tableId);
+            if (current == null || current.version() < version) {
+                store(tableId, entry);
+            }
+        }
+    }
+
+    /**
+     * Write through a change of a table that brought it to {@code version}, once the current transaction
+     * commits. If the cached content is not the one of the previous version it is evicted instead.
+     *
+     * @param change applies the change to the content of the previous version, see {@link TableContentChanges}
+     */
+    public void update(UUID tableId, long version, UnaryOperator<CompactTable> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(tableId, version, change);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(tableId, version, change);
+            }
+        });
+    }
+
+    public void evict(UUID tableId) {
+        synchronized (entries) {
+            remove(tableId);
+        }
+    }
+
+    private void apply(UUID tableId, long version, UnaryOperator<CompactTable> change) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(tableId);
+            if (entry == null || entry.version() >= version) {
+                return;
+            }
+            if (entry.version() != version - 1) {
+                remove(tableId);
+                return;
+            }
+        }
+
+        // the change copies the content, keep it out of the lock
+        Entry changed = null;
+        try {
+            CompactTable content = change.apply(entry.content());
+            changed = new Entry(version, content, content.getEstimatedBytes());
+        } catch (RuntimeException e) {
+            log.warn("Could not write a change through to the cached content of table {}", tableId, e);
+        }
+
+        synchronized (entries) {
+            if (entries.get(tableId) != entry) {
+                return; // replaced by a newer version meanwhile
+            }
+            if (changed == null) {
+                remove(tableId);
+            } else {
+                store(tableId, changed);
+            }
+        }
+    }
+
+    /**
+     * Replace the entry of a table and evict the least recently used ones until the cache fits its weight
+     */
+    private void store(UUID tableId, Entry entry) {
+        remove(tableId);
+        if (entry.weight() > maxWeight) {
+            return;
+        }
+
+        entries.put(tableId, entry);
+        weight += entry.weight();
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (weight > maxWeight) {
+            weight -= eldest.next().weight();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void remove(UUID tableId) {
+        Entry removed = entries.remove(tableId);
+        if (removed != null) {
+            weight -= removed.weight();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -17,10 +17,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAmount;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
 
@@ -32,6 +35,8 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class JwtProvider {
     private final InvalidJwtDao invalidJwtDao;
+    private final RevokedJwtCache revokedJwtCache;
+    private final VerifiedJwtCache verifiedJwtCache;
 
     @Value("${app.jwt.secret}")
     private String jwtSecret;
@@ -52,6 +57,18 @@ public class JwtProvider {
         return null;
     }
 
+    /**
+     * Compute the SHA-256 digest of a JSON Web Token, encoded in Base64, to use as a key in memory
+     */
+    public static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
     /**
      * Extract the expiration timestamp from a JSON Web Token
      */
@@ -100,36 +117,42 @@ public class JwtProvider {
 
     /**
      * Verify a JSON Web Token
+     * <p>
+     * The signature and the validity period are checked first, so that forged, malformed and expired tokens
+     * never reach the database. The revocation is then checked against the {@link RevokedJwtCache}, and against
+     * the database only if the cache reports a possible revocation.
      *
      * @param token the token to verify
      * @return the subject of the token
      * @throws InvalidJwtException when verification fails for any reason
      */
     public String verify(String token) throws InvalidJwtException {
-        if (invalidJwtDao.exists(token)) {
-            throw new InvalidJwtException("Token has been revoked");
-        }
+        SignedJWT jwt;
+        JWTClaimsSet claims;
         try {
-            SignedJWT jwt = SignedJWT.parse(token);
-            JWTClaimsSet claims = jwt.getJWTClaimsSet();
-            Date now = new Date();
-            try {
-                if (jwt.verify(verifier)) {
-                    if (claims.getExpirationTime().before(now)) {
-                        throw new InvalidJwtException("Expired token");
-                    }
-                    if (claims.getNotBeforeTime().after(now)) {
-                        throw new InvalidJwtException("Token not enabled yet");
-                    }
-                    return claims.getSubject();
-                }
-            } catch (JOSEException e) {
-                throw new InvalidJwtException("Token verification failed");
-            }
+            jwt = SignedJWT.parse(token);
+            claims = jwt.getJWTClaimsSet();
         } catch (ParseException e) {
             throw new InvalidJwtException("Malformed token");
         }
-        throw new InvalidJwtException("Could not verify token");
+        try {
+            if (!jwt.verify(verifier)) {
+                throw new InvalidJwtException("Could not verify token");
+            }
+        } catch (JOSEException e) {
+            throw new InvalidJwtException("Token verification failed");
+        }
+        Date now = new Date();
+        if (claims.getExpirationTime().before(now)) {
+            throw new InvalidJwtException("Expired token");
+        }
+        if (claims.getNotBeforeTime().after(now)) {
+            throw new InvalidJwtException("Token not enabled yet");
+        }
+        if (revokedJwtCache.mightContain(token) && invalidJwtDao.exists(token)) {
+            throw new InvalidJwtException("Token has been revoked");
+        }
+        return claims.getSubject();
     }
 
     /**
@@ -138,6 +161,8 @@ public class JwtProvider {
     public void invalidate(String token) {
         try {
             invalidJwtDao.save(token);
+            revokedJwtCache.add(token, getExpiration(token).toInstant());
+            verifiedJwtCache.evict(token);
         } catch (ParseException e) {
             log.warn("Tried to store a malformed JWT", e);
         }
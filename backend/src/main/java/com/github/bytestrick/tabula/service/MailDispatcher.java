@@ -0,0 +1,185 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.model.OutboxMail;
+import com.github.bytestrick.tabula.repository.MailOutboxDao;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends mails asynchronously, so that no request waits for the SMTP server.
+ * <p>
+ * {@link #enqueue(String, String, String)} stores a mail in the {@code mail_outbox} table and offers it to a
+ * bounded in-memory queue. Virtual-thread workers drain the queue in batches, and send each batch through
+ * a single connection. A mail that fails is given a new attempt in the table with an exponential backoff,
+ * until {@code app.mail.max-attempts}; a mail that is sent is removed from the table.
+ * <p>
+ * A sweeper thread periodically offers to the queue the mails of the table whose attempt is due: the ones to
+ * retry, the ones that did not fit in the queue, and the ones left by a previous run of the application.
+ * Delivery is therefore at least once.
+ */
+@Slf4j
+@Service
+public class MailDispatcher {
+    private final JavaMailSender javaMailSender;
+    private final MailOutboxDao mailOutboxDao;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration sweepInterval;
+
+    private final BlockingQueue<OutboxMail> queue;
+    /**
+     * Ids of the mails in the queue or being sent, so that the sweeper does not offer them twice
+     */
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    private final List<Thread> threads = new ArrayList<>();
+
+    public MailDispatcher(JavaMailSender javaMailSender,
+                          MailOutboxDao mailOutboxDao,
+                          @Value("${app.mail.queue-capacity:1000}") int queueCapacity,
+                          @Value("${app.mail.workers:2}") int workers,
+                          @Value("${app.mail.batch-size:20}") int batchSize,
+                          @Value("${app.mail.max-attempts:6}") int maxAttempts,
+                          @Value("${app.mail.retry-backoff:30s}") Duration retryBackoff,
+                          @Value("${app.mail.sweep-interval:15s}") Duration sweepInterval) {
+        this.javaMailSender = javaMailSender;
+        this.mailOutboxDao = mailOutboxDao;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.sweepInterval = sweepInterval;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < workers; i++) {
+            threads.add(Thread.ofVirtual().name("mail-worker-" + i).start(this::work));
+        }
+        threads.add(Thread.ofVirtual().name("mail-sweeper").start(this::sweep));
+    }
+
+    @PreDestroy
+    public void stop() {
+        threads.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Store a mail in the outbox and schedule it to be sent as soon as possible
+     */
+    public void enqueue(String recipient, String subject, String text) {
+        OutboxMail mail = new OutboxMail(UUID.randomUUID(), recipient, subject, text, 0);
+        // the sweeper must not pick up the mail while it is still in the queue
+        mailOutboxDao.save(mail, retryBackoff);
+        offer(mail);
+    }
+
+    private void offer(OutboxMail mail) {
+        if (!inFlight.add(mail.id())) {
+            return;
+        }
+        if (!queue.offer(mail)) {
+            inFlight.remove(mail.id());
+            log.warn("Mail queue is full, mail {} is left to the sweeper", mail.id());
+        }
+    }
+
+    private void work() {
+        List<OutboxMail> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            try {
+                send(batch);
+            } catch (RuntimeException e) {
+                log.error("Could not update the mail outbox, the mails will be retried", e);
+            } finally {
+                batch.forEach(mail -> inFlight.remove(mail.id()));
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<OutboxMail> batch) {
+        SimpleMailMessage[] messages = batch.stream().map(OutboxMail::toMessage).toArray(SimpleMailMessage[]::new);
+        Map<Object, Exception> failed = Map.of();
+        try {
+            javaMailSender.send(messages);
+        } catch (MailSendException e) {
+            failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                failed = allFailed(messages, e);
+            }
+        } catch (MailException e) {
+            failed = allFailed(messages, e);
+        }
+
+        List<UUID> done = new ArrayList<>();
+        for (int i = 0; i < messages.length; i++) {
+            OutboxMail mail = batch.get(i);
+            Exception failure = failed.get(messages[i]);
+            if (failure == null) {
+                done.add(mail.id());
+            } else if (mail.attempts() + 1 >= maxAttempts) {
+                log.error("Giving up on mail {} to {} after {} attempts", mail.id(), mail.recipient(), maxAttempts,
+                        failure);
+                done.add(mail.id());
+            } else {
+                Duration delay = retryBackoff.multipliedBy(1L << mail.attempts());
+                log.warn("Could not send mail {} to {}, retrying in {}: {}", mail.id(), mail.recipient(), delay,
+                        failure.getMessage());
+                mailOutboxDao.reschedule(mail.id(), mail.attempts() + 1, delay);
+            }
+        }
+        if (!done.isEmpty()) {
+            mailOutboxDao.delete(done);
+        }
+    }
+
+    private static Map<Object, Exception> allFailed(SimpleMailMessage[] messages, Exception e) {
+        Map<Object, Exception> failed = new HashMap<>();
+        for (SimpleMailMessage message : messages) {
+            failed.put(message, e);
+        }
+        return failed;
+    }
+
+    private void sweep() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                mailOutboxDao.findDue(queue.remainingCapacity()).forEach(this::offer);
+            } catch (RuntimeException e) {
+                log.warn("Could not read the mail outbox: {}", e.getMessage());
+            }
+            try {
+                Thread.sleep(sweepInterval);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
@@ -7,8 +7,6 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -20,11 +18,11 @@ import java.util.Random;
 @RequiredArgsConstructor
 public class OtpProvider {
     private static final Random RANDOM = new Random();
-    private final JavaMailSender javaMailSender;
+    private final MailDispatcher mailDispatcher;
     private final UserDao userDao;
 
     /**
-     * Generate and send an otp for a user
+     * Generate an otp for a user and queue the mail that sends it
      *
      * @param user   the generated OTP is set on it
      * @param reason the reason for the OTP
@@ -35,13 +33,9 @@ public class OtpProvider {
         user.setOtp(otp);
         user.setOtpExpiration(LocalDateTime.now().plusMinutes(expirationMinutes));
 
-        SimpleMailMessage mail = new SimpleMailMessage();
-        mail.setTo(receiver);
-        mail.setSubject("Tabula: " + reason);
-        mail.setText(String.format(
+        mailDispatcher.enqueue(receiver, "Tabula: " + reason, String.format(
                 "Use this code to %s: %s\n\nIt will expire in %d minutes.", reason, otp, expirationMinutes));
-        javaMailSender.send(mail);
-        log.info("OTP sent to {}", user.getEmail());
+        log.info("OTP queued for {}", user.getEmail());
     }
 
     public Optional<User> verify(String email, String otp) throws InvalidOtpException {
@@ -0,0 +1,74 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.model.Pair;
+import com.github.bytestrick.tabula.repository.InvalidJwtDao;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of the SHA-256 digests of the revoked JSON Web Tokens that have not expired yet.
+ * <p>
+ * It is loaded from {@link InvalidJwtDao} at startup and kept up to date by {@link JwtProvider#invalidate(String)},
+ * so that {@link JwtProvider#verify(String)} consults the database only for the tokens found here.
+ * An entry is dropped once its token expires, as an expired token is rejected anyway.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RevokedJwtCache {
+    private final InvalidJwtDao invalidJwtDao;
+
+    /**
+     * Digest of each revoked token mapped to the token's expiration
+     */
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the revoked tokens have been loaded; until then every token may have been revoked
+     */
+    private volatile boolean loaded = false;
+
+    @PostConstruct
+    public void load() {
+        try {
+            for (Pair<String, Instant> token : invalidJwtDao.findNotExpired()) {
+                revoked.put(JwtProvider.digest(token.getFirst()), token.getSecond());
+            }
+            loaded = true;
+            log.info("Loaded {} revoked tokens", revoked.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not load the revoked tokens, the database will be asked: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Record a revoked token until its expiration
+     */
+    public void add(String token, Instant expiration) {
+        Instant now = Instant.now();
+        revoked.values().removeIf(tokenExpiration -> tokenExpiration.isBefore(now));
+        revoked.put(JwtProvider.digest(token), expiration);
+    }
+
+    /**
+     * Whether a token may have been revoked: {@code false} means that it certainly has not been revoked
+     * by this application, {@code true} that the database has to be asked
+     */
+    public boolean mightContain(String token) {
+        if (!loaded) {
+            load();
+            if (!loaded) {
+                return true;
+            }
+        }
+        Instant expiration = revoked.get(JwtProvider.digest(token));
+        return expiration != null && !expiration.isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.controller.dto.table.ColumnDTO;
+import com.github.bytestrick.tabula.controller.dto.table.TableColumnarContentDTO;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Encodes a {@link TableColumnarContentDTO} in a compact binary format.
+ * <p>
+ * All numbers are big-endian. The layout is:
+ * <ul>
+ *     <li>table id: UUID;</li>
+ *     <li>number of columns: int32;</li>
+ *     <li>number of rows: int32;</li>
+ *     <li>for each column, in index order: id (UUID), data type (int32), name (string);</li>
+ *     <li>for each row, in index order: id (UUID);</li>
+ *     <li>for each cell, in row-major order: value (string).</li>
+ * </ul>
+ * A UUID is written as 16 bytes: most significant bits then least significant bits.
+ * A string is written as its UTF-8 byte length (int32, {@code -1} for {@code null}) followed by the bytes.
+ * </p>
+ */
+@Service
+public class TableContentBinaryEncoder {
+
+    /**
+     * Writes {@code content} to {@code outputStream}, which is flushed but not closed.
+     *
+     * @param content      the content to encode.
+     * @param outputStream the stream to write to.
+     * @throws IOException if writing fails.
+     */
+    public void encode(TableColumnarContentDTO content, OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+
+        writeUUID(out, content.id());
+        out.writeInt(content.header().size());
+        out.writeInt(content.rowIds().size());
+
+        for (ColumnDTO column : content.header()) {
+            writeUUID(out, column.id());
+            out.writeInt(column.dataType());
+            writeString(out, column.columnName());
+        }
+
+        for (UUID rowId : content.rowIds())
+            writeUUID(out, rowId);
+
+        for (String value : content.values())
+            writeString(out, value);
+
+        out.flush();
+    }
+
+    private static void writeUUID(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,242 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.model.table.Cell;
+import com.github.bytestrick.tabula.model.table.CompactTable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The changes of {@link TableService} applied to a {@link CompactTable}, so that {@link HotTableCache} can
+ * follow them without loading the table again.
+ * <p>
+ * Each function returns a new table and leaves the given one untouched, since it may be being served
+ * concurrently. A change that does not fit the table, e.g. a cell of a row that is not there, throws
+ * {@link IllegalStateException} or {@link IndexOutOfBoundsException}.
+ * </p>
+ */
+final class TableContentChanges {
+
+    private TableContentChanges() {
+    }
+
+    /**
+     * Sets the values of cells, an empty value for {@code null} as {@code CellDAO#updateCells} does.
+     */
+    static CompactTable setCells(CompactTable table, List<Cell> cells) {
+        Map<UUID, Integer> rowPositions = new HashMap<>();
+        for (Cell cell : cells)
+            rowPositions.put(cell.getRowId(), -1);
+
+        for (int i = 0; i < table.getRowsNumber(); ++i)
+            rowPositions.replace(table.getRowId(i), i);
+
+        int[] rows = new int[cells.size()];
+        int[] columns = new int[cells.size()];
+        String[] values = new String[cells.size()];
+
+        for (int k = 0; k < cells.size(); ++k) {
+            Cell cell = cells.get(k);
+            rows[k] = rowPositions.get(cell.getRowId());
+            columns[k] = table.indexOfColumn(cell.getColumnId());
+
+            if (rows[k] < 0)
+                throw new IllegalStateException("Unknown row " + cell.getRowId());
+            if (columns[k] < 0)
+                throw new IllegalStateException("Unknown column " + cell.getColumnId());
+
+            values[k] = cell.getValue();
+        }
+
+        return table.withValues(rows, columns, values);
+    }
+
+    /**
+     * Inserts rows starting at {@code rowIndex}.
+     *
+     * @param values optional values of the new rows, one list per row in column order; missing values are empty.
+     */
+    static CompactTable insertRows(CompactTable table, int rowIndex, List<UUID> rowIds, List<List<String>> values) {
+        CompactTable inserted = table.withRowsInserted(rowIndex, rowIds);
+        if (values == null)
+            return inserted;
+
+        int cellsNumber = 0;
+        for (int i = 0; i < Math.min(rowIds.size(), values.size()); ++i)
+            cellsNumber += Math.min(values.get(i).size(), table.getColumnsNumber());
+
+        int[] rows = new int[cellsNumber];
+        int[] columns = new int[cellsNumber];
+        String[] cellValues = new String[cellsNumber];
+        int k = 0;
+
+        for (int i = 0; i < Math.min(rowIds.size(), values.size()); ++i) {
+            for (int j = 0; j < Math.min(values.get(i).size(), table.getColumnsNumber()); ++j, ++k) {
+                rows[k] = rowIndex + i;
+                columns[k] = j;
+                cellValues[k] = values.get(i).get(j);
+            }
+        }
+
+        return inserted.withValues(rows, columns, cellValues);
+    }
+
+    /**
+     * Inserts at {@code rowIndex} a copy of the row that was there.
+     */
+    static CompactTable duplicateRow(CompactTable table, int rowIndex, UUID rowId) {
+        String[] values = new String[table.getColumnsNumber()];
+        for (int j = 0; j < values.length; ++j)
+            values[j] = table.getValue(rowIndex, j);
+
+        return insertRows(table, rowIndex, List.of(rowId), List.of(List.of(values)));
+    }
+
+    /**
+     * Inserts unnamed columns of the same data type starting at {@code columnIndex}.
+     *
+     * @param values optional values of the new columns, one list per column in row order; missing values are empty.
+     */
+    static CompactTable insertColumns(CompactTable table, int columnIndex, List<UUID> columnIds,
+                                      int dataTypeId, List<List<String>> values) {
+        CompactTable inserted = table.withColumnsInserted(columnIndex, columnIds, dataTypeId, null);
+        if (values == null)
+            return inserted;
+
+        int cellsNumber = 0;
+        for (int j = 0; j < Math.min(columnIds.size(), values.size()); ++j)
+            cellsNumber += Math.min(values.get(j).size(), table.getRowsNumber());
+
+        int[] rows = new int[cellsNumber];
+        int[] columns = new int[cellsNumber];
+        String[] cellValues = new String[cellsNumber];
+        int k = 0;
+
+        for (int j = 0; j < Math.min(columnIds.size(), values.size()); ++j) {
+            for (int i = 0; i < Math.min(values.get(j).size(), table.getRowsNumber()); ++i, ++k) {
+                rows[k] = i;
+                columns[k] = columnIndex + j;
+                cellValues[k] = values.get(j).get(i);
+            }
+        }
+
+        return inserted.withValues(rows, columns, cellValues);
+    }
+
+    /**
+     * Inserts at {@code columnIndex} a copy of the column that was there, name and data type included.
+     */
+    static CompactTable duplicateColumn(CompactTable table, int columnIndex, UUID columnId) {
+        int[] rows = new int[table.getRowsNumber()];
+        int[] columns = new int[rows.length];
+        String[] values = new String[rows.length];
+
+        for (int i = 0; i < rows.length; ++i) {
+            rows[i] = i;
+            columns[i] = columnIndex;
+            values[i] = table.getValue(i, columnIndex);
+        }
+
+        return table.withColumnsInserted(columnIndex, List.of(columnId), table.getDataType(columnIndex),
+                        table.getColumnName(columnIndex))
+                .withValues(rows, columns, values);
+    }
+
+    static CompactTable deleteRows(CompactTable table, Collection<UUID> rowIds) {
+        Set<UUID> deleted = new HashSet<>(rowIds);
+        int[] kept = new int[table.getRowsNumber()];
+        int keptNumber = 0;
+
+        for (int i = 0; i < kept.length; ++i) {
+            if (!deleted.contains(table.getRowId(i)))
+                kept[keptNumber++] = i;
+        }
+
+        if (kept.length - keptNumber != deleted.size())
+            throw new IllegalStateException("Unknown rows among " + rowIds);
+
+        return table.withRows(Arrays.copyOf(kept, keptNumber));
+    }
+
+    static CompactTable deleteColumns(CompactTable table, Collection<UUID> columnIds) {
+        Set<UUID> deleted = new HashSet<>(columnIds);
+        int[] kept = new int[table.getColumnsNumber()];
+        int keptNumber = 0;
+
+        for (int j = 0; j < kept.length; ++j) {
+            if (!deleted.contains(table.getColumnId(j)))
+                kept[keptNumber++] = j;
+        }
+
+        if (kept.length - keptNumber != deleted.size())
+            throw new IllegalStateException("Unknown columns among " + columnIds);
+
+        return table.withColumns(Arrays.copyOf(kept, keptNumber));
+    }
+
+    /**
+     * Moves the rows at {@code indexes} by {@code delta}, as {@link TableService#planMove(List, List, int)} does.
+     */
+    static CompactTable moveRows(CompactTable table, List<Integer> indexes, int delta) {
+        return table.withRows(moved(table.getRowsNumber(), indexes, delta));
+    }
+
+    /**
+     * Moves the columns at {@code indexes} by {@code delta}, as {@link TableService#planMove(List, List, int)} does.
+     */
+    static CompactTable moveColumns(CompactTable table, List<Integer> indexes, int delta) {
+        return table.withColumns(moved(table.getColumnsNumber(), indexes, delta));
+    }
+
+    /**
+     * Renames a column and/or changes its data type, which empties its cells; {@code null} arguments are ignored.
+     */
+    static CompactTable patchColumn(CompactTable table, UUID columnId, String name, Integer dataTypeId) {
+        int position = table.indexOfColumn(columnId);
+        if (position < 0)
+            throw new IllegalStateException("Unknown column " + columnId);
+
+        CompactTable patched = table.withColumn(position,
+                dataTypeId != null ? dataTypeId : table.getDataType(position),
+                name != null ? name : table.getColumnName(position));
+
+        return dataTypeId != null ? patched.withColumnCleared(position) : patched;
+    }
+
+    /**
+     * Every element at {@code indexes} is moved by {@code delta}, the others fill the remaining positions
+     * keeping their relative order.
+     *
+     * @return the index each position takes its element from.
+     */
+    private static int[] moved(int size, List<Integer> indexes, int delta) {
+        int[] sources = new int[size];
+        boolean[] moved = new boolean[size];
+
+        for (int index : indexes) {
+            sources[index + delta] = index;
+            moved[index + delta] = true;
+        }
+
+        Set<Integer> indexesToMove = new HashSet<>(indexes);
+        int position = 0;
+
+        for (int index = 0; index < size; ++index) {
+            if (indexesToMove.contains(index))
+                continue;
+
+            while (moved[position])
+                ++position;
+
+            sources[position++] = index;
+        }
+
+        return sources;
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.bytestrick.tabula.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.bytestrick.tabula.controller.dto.table.ColumnDTO;
+import com.github.bytestrick.tabula.controller.dto.table.TableContentDTO;
+import com.github.bytestrick.tabula.repository.table.TableContentDAO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes the content of a table as JSON directly from a database cursor to an output stream.
+ * <p>
+ * The document has the same shape as a serialized {@link TableContentDTO}, but no DTO is ever built:
+ * the memory used does not depend on the size of the table.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class TableContentWriter {
+
+    private final TableContentDAO tableContentDAO;
+    private final ObjectMapper objectMapper;
+
+
+    /**
+     * Streams the content of a table as JSON.
+     * <p>
+     * Runs in a read-only transaction so that the cursor can be read in chunks.
+     * Ownership of the table must be checked by the caller.
+     * </p>
+     *
+     * @param tableId      UUID of the table to write.
+     * @param outputStream stream the JSON document is written to; it is flushed but not closed.
+     * @throws IOException if writing to {@code outputStream} fails.
+     */
+    @Transactional(readOnly = true)
+    public void write(UUID tableId, OutputStream outputStream) throws IOException {
+        String table = tableId.toString();
+
+        try (JsonGenerator json = objectMapper.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            json.writeStartObject();
+            json.writeStringField("id", table);
+            List<ColumnDTO> header = tableContentDAO.findHeader(tableId);
+            json.writeFieldName("header");
+            json.writeObject(header);
+            json.writeArrayFieldStart("content");
+
+            RowWriter rowWriter = new RowWriter(json, table);
+            tableContentDAO.streamTableContent(tableId, header, rowWriter);
+            rowWriter.closeRow();
+
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+
+    /**
+     * Opens a row object every time the row id changes and writes each cell inside it.
+     */
+    @RequiredArgsConstructor
+    private static class RowWriter implements TableContentDAO.ContentVisitor {
+
+        private final JsonGenerator json;
+        private final String tableId;
+        private String currentRowId;
+
+        @Override
+        public void visit(String rowId, String columnId, String value) throws IOException {
+            if (!rowId.equals(currentRowId)) {
+                closeRow();
+                currentRowId = rowId;
+
+                json.writeStartObject();
+                json.writeStringField("id", rowId);
+                json.writeStringField("tableId", tableId);
+                json.writeArrayFieldStart("cells");
+            }
+
+            if (columnId != null) {
+                json.writeStartObject();
+                json.writeStringField("tableId", tableId);
+                json.writeStringField("rowIndex", rowId);
+                json.writeStringField("columnIndex", columnId);
+                json.writeStringField("value", value);
+                json.writeEndObject();
+            }
+        }
+
+        void closeRow() throws IOException {
+            if (currentRowId != null) {
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+        }
+    }
+}
@@ -1,32 +1,38 @@
 package com.github.bytestrick.tabula.service;
 
-import com.github.bytestrick.tabula.controller.dto.table.ColumnDTO;
-import com.github.bytestrick.tabula.controller.dto.table.RowDTO;
 import com.github.bytestrick.tabula.controller.dto.table.TableContentDTO;
 import com.github.bytestrick.tabula.controller.dto.table.TableCreatedDTO;
+import com.github.bytestrick.tabula.model.AuthenticatedUser;
 import com.github.bytestrick.tabula.model.User;
 import com.github.bytestrick.tabula.controller.dto.table.*;
 import com.github.bytestrick.tabula.exception.table.*;
 import com.github.bytestrick.tabula.model.Pair;
 import com.github.bytestrick.tabula.model.table.Cell;
+import com.github.bytestrick.tabula.model.table.CompactTable;
+import com.github.bytestrick.tabula.model.table.DataType;
 import com.github.bytestrick.tabula.model.table.Table;
 import com.github.bytestrick.tabula.repository.UserDao;
 import com.github.bytestrick.tabula.repository.interfaces.IndexesSortedDAO;
 import com.github.bytestrick.tabula.repository.proxy.table.ColumnProxy;
 import com.github.bytestrick.tabula.repository.proxy.table.RowProxy;
-import com.github.bytestrick.tabula.repository.proxy.table.TableProxy;
 import com.github.bytestrick.tabula.repository.table.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.*;
+import java.util.function.UnaryOperator;
 
 @Service
 @RequiredArgsConstructor
 public class TableService {
+    /** Maximum number of tables returned by a fuzzy search. */
+    private static final int MAX_SEARCH_RESULTS = 200;
+
     private final UserDao userDao;
     private final TableDAO tableDAO;
     private final FuzzySearchTable fuzzySearchTable;
@@ -34,10 +40,30 @@ public class TableService {
     private final RowDAO rowDAO;
     private final CellDAO cellDAO;
     private final DataTypeDAO dataTypeDAO;
+    private final TableContentDAO tableContentDAO;
+    private final TableContentWriter tableContentWriter;
+    private final TableContentBinaryEncoder tableContentBinaryEncoder;
+    private final CellWriteBuffer cellWriteBuffer;
+    private final HotTableCache hotTableCache;
+
+    /**
+     * Retrieves the id of the authenticated user from the {@code SecurityContext}.
+     * <p>
+     * The principal set by {@link com.github.bytestrick.tabula.config.JwtAuthenticationFilter} already
+     * carries the id; the {@code users} table is queried only for principals of other kinds.
+     * </p>
+     *
+     * @return The UUID of the authenticated user.
+     * @throws UsernameNotFoundException If the authenticated user no longer exists.
+     */
+    public UUID getAuthUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof AuthenticatedUser authenticatedUser)
+            return authenticatedUser.getId();
 
-    public User getAuthUser() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        String email = authentication.getName();
         return userDao.findByEmail(email)
+                .map(User::getId)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
     }
 
@@ -47,17 +73,18 @@ public class TableService {
                 table.getTitle(),
                 table.getDescription(),
                 table.getCreationDate(),
-                table.getLastEditDate()
+                table.getLastEditDate(),
+                table.getVersion()
         );
     }
 
     public List<TableCreatedDTO> getNextTables(UUID id, int quantity) {
-        return tableDAO.findByCreationDateAfter(id, quantity, getAuthUser().getId())
+        return tableDAO.findByCreationDateAfter(id, quantity, getAuthUserId())
                 .stream().map(this::tableToTableCreatedDTO).toList();
     }
 
     public List<TableCreatedDTO> getLastTables(int quantity) {
-        return tableDAO.findLast(quantity, getAuthUser().getId())
+        return tableDAO.findLast(quantity, getAuthUserId())
                 .stream().map(this::tableToTableCreatedDTO).toList();
     }
 
@@ -67,7 +94,8 @@ public class TableService {
                 table.getTitle(),
                 table.getDescription(),
                 table.getCreationDate(),
-                table.getLastEditDate()
+                table.getLastEditDate(),
+                table.getVersion()
         );
     }
 
@@ -91,7 +119,7 @@ public class TableService {
                 .description(tableCreateDTO.description())
                 .creationDate(tableCreateDTO.creationDate())
                 .lastEditDate(tableCreateDTO.creationDate()) // la data di modifica combacia con quella di creazione
-                .userId(getAuthUser().getId())
+                .userId(getAuthUserId())
                 .build();
 
         Table createdTable = tableDAO.saveTable(newTable);
@@ -103,7 +131,7 @@ public class TableService {
 
     @Transactional
     public String updateTable(UUID tableId, TablePutDTO tablePutDTO) {
-        ensureTableExistsForAuthUserOrThrow(tableId);
+        long version = bumpVersionForAuthUserOrThrow(tableId);
 
         Table table = Table.builder()
                 .id(tableId)
@@ -113,12 +141,35 @@ public class TableService {
                 .build();
 
         tableDAO.update(table);
+        // the title and the description are not part of the cached content
+        hotTableCache.update(tableId, version, UnaryOperator.identity());
 
         return "TableCard updated successfully";
     }
 
-    public List<TableCreatedDTO> fuzzySearch(String pattern) {
-        return fuzzySearchTable.fuzzySearch(pattern, getAuthUser().getId())
+    /**
+     * Retrieves the version of a table, bumped by every change of the table or of its content.
+     * It costs a single lookup by primary key, so it is checked before the content is loaded to answer
+     * conditional requests.
+     *
+     * @param tableId The UUID of the table.
+     * @return The current version of the table.
+     * @throws TableNotFoundException If no table exists for the given {@code tableId}.
+     */
+    public long getTableVersion(UUID tableId) {
+        return tableDAO.findVersionForUser(tableId, getAuthUserId())
+                .orElseThrow(() -> new TableNotFoundException(tableId));
+    }
+
+    /**
+     * Searches the tables of the authenticated user by title.
+     *
+     * @param pattern Text searched in the titles.
+     * @param limit   Maximum number of tables to return; clamped to [1, {@value #MAX_SEARCH_RESULTS}].
+     * @return The most similar tables, the most similar first.
+     */
+    public List<TableCreatedDTO> fuzzySearch(String pattern, int limit) {
+        return fuzzySearchTable.fuzzySearch(pattern, getAuthUserId(), Math.clamp(limit, 1, MAX_SEARCH_RESULTS))
                 .stream().map(this::tableToTableCreatedDTO).toList();
     }
 
@@ -145,22 +196,22 @@ public class TableService {
      * @throws TableNotFoundException If no table exists for the given {@code tableId}.
      */
     private void ensureTableExistsForAuthUserOrThrow(UUID tableId) {
-        if (!tableDAO.tableExistsForUser(tableId, getAuthUser().getId())) {
+        if (!tableDAO.tableExistsForUser(tableId, getAuthUserId())) {
             throw new TableNotFoundException(tableId);
         }
     }
 
     /**
-     * Verifies that a row with the given UUID exists within the specified table; otherwise throws.
+     * Bumps the version of a table that is about to change, verifying that it exists and belongs to auth user;
+     * otherwise throws. The table stays locked until the end of the transaction.
      *
-     * @param tableId The UUID of the table to check within.
-     * @param rowId   The UUID of the row to check for.
-     * @throws RowNotFound If no row exists with the given {@code rowId} in the specified {@code tableId}.
+     * @param tableId The UUID of the table to change.
+     * @return The version of the table after the change, see {@link HotTableCache#update}.
+     * @throws TableNotFoundException If no table exists for the given {@code tableId}.
      */
-    private void ensureRowExistsOrThrow(UUID tableId, UUID rowId) {
-        if (!rowDAO.rowExists(tableId, rowId)) {
-            throw new RowNotFound(rowId, tableId);
-        }
+    private long bumpVersionForAuthUserOrThrow(UUID tableId) {
+        return tableDAO.bumpVersionForUser(tableId, getAuthUserId())
+                .orElseThrow(() -> new TableNotFoundException(tableId));
     }
 
     /**
@@ -176,6 +227,38 @@ public class TableService {
         }
     }
 
+    /**
+     * Verifies with a single query that all the given rows exist within the specified table; otherwise throws.
+     *
+     * @param tableId The UUID of the table to check within.
+     * @param rowIds  The UUIDs of the rows to check for.
+     * @throws RowNotFound If any of {@code rowIds} does not exist in the specified {@code tableId}.
+     */
+    private void ensureRowsExistOrThrow(UUID tableId, Collection<UUID> rowIds) {
+        Set<UUID> existingRowIds = rowDAO.findExistingRowIds(tableId, rowIds);
+
+        for (UUID rowId : rowIds) {
+            if (!existingRowIds.contains(rowId))
+                throw new RowNotFound(rowId, tableId);
+        }
+    }
+
+    /**
+     * Verifies with a single query that all the given columns exist within the specified table; otherwise throws.
+     *
+     * @param tableId   The UUID of the table to check within.
+     * @param columnIds The UUIDs of the columns to check for.
+     * @throws ColumnNotFound If any of {@code columnIds} does not exist in the specified {@code tableId}.
+     */
+    private void ensureColumnsExistOrThrow(UUID tableId, Collection<UUID> columnIds) {
+        Set<UUID> existingColumnIds = columnDAO.findExistingColumnIds(tableId, columnIds);
+
+        for (UUID columnId : columnIds) {
+            if (!existingColumnIds.contains(columnId))
+                throw new ColumnNotFound(columnId, tableId);
+        }
+    }
+
     /**
      * Verifies that a specified index is within a valid range [{@code minBounds}, {@code maxBounds}).
      *
@@ -192,11 +275,23 @@ public class TableService {
             );
     }
 
+    /**
+     * Verifies that [{@code from}, {@code to}) is a valid, possibly empty, range of zero-based indexes.
+     *
+     * @param from The start of the range (inclusive).
+     * @param to   The end of the range (exclusive).
+     * @throws IndexOutOfBoundsException If {@code from} is negative or {@code to} is less than {@code from}.
+     */
+    private void ensureRangeIsValidOrThrow(int from, int to) {
+        if (from < 0 || to < from)
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to);
+    }
+
     /**
      * Retrieves a complete table.
      *
-     * <p>The method loads the table identified by the given {@code tableId}, extracts
-     * all its columns and rows, and converts them into a structured {@link TableContentDTO}.</p>
+     * <p>The header and every cell of the table identified by the given {@code tableId} are taken from
+     * {@link #getCompactTable(UUID)} and converted into a structured {@link TableContentDTO}.</p>
      *
      * @param tableId the UUID of the table to retrieve.
      * @return a {@link TableContentDTO} representing the full state of the table, including header's columns and content.
@@ -204,29 +299,123 @@ public class TableService {
      */
     @Transactional
     public TableContentDTO getTable(UUID tableId) {
-        ensureTableExistsForAuthUserOrThrow(tableId);
+        return CompactTableViews.content(getCompactTable(tableId));
+    }
+
+    /**
+     * Retrieves a complete table in columnar form.
+     *
+     * <p>Header and row ids are sent once and the cells are reduced to a row-major array of values,
+     * see {@link TableColumnarContentDTO}.</p>
+     *
+     * @param tableId the UUID of the table to retrieve.
+     * @return a {@link TableColumnarContentDTO} with the whole content of the table.
+     * @throws TableNotFoundException if no table exists for the given {@code tableId}.
+     */
+    @Transactional
+    public TableColumnarContentDTO getTableColumnar(UUID tableId) {
+        return CompactTableViews.columnar(getCompactTable(tableId));
+    }
 
-        TableProxy table = tableDAO.findTableById(tableId);
-        List<RowDTO> content = new ArrayList<>();
-        List<ColumnDTO> headers = new ArrayList<>();
+    /**
+     * Retrieves the content of a table as a {@link CompactTable}.
+     *
+     * <p>The content of the current version of the table is served from {@link HotTableCache} when it is
+     * there, after a single lookup of the version. Otherwise it is loaded by {@link TableContentDAO} with a
+     * constant number of queries, while the table is locked against changes, and then cached.</p>
+     *
+     * @param tableId the UUID of the table to retrieve.
+     * @return the content of the table, which must not be changed.
+     * @throws TableNotFoundException if no table exists for the given {@code tableId}.
+     */
+    private CompactTable getCompactTable(UUID tableId) {
+        UUID userId = getAuthUserId();
+        long version = tableDAO.findVersionForUser(tableId, userId)
+                .orElseThrow(() -> new TableNotFoundException(tableId));
+
+        CompactTable content = hotTableCache.get(tableId, version);
+        if (content != null)
+            return content;
+
+        // changes of the table wait until the content is loaded, so that it is exactly the one of the version
+        version = tableDAO.lockVersionForUser(tableId, userId)
+                .orElseThrow(() -> new TableNotFoundException(tableId));
+        cellWriteBuffer.flush(tableId);
+        content = tableContentDAO.loadCompactTable(tableId);
+        hotTableCache.put(tableId, version, content);
+
+        return content;
+    }
 
-        for (RowProxy row : table.getRows()) {
-            List<CellDTO> cells = new ArrayList<>();
+    /**
+     * Retrieves a complete table in columnar form, encoded with {@link TableContentBinaryEncoder}.
+     *
+     * @param tableId the UUID of the table to retrieve.
+     * @return a {@link StreamingResponseBody} writing the binary encoding of the table content.
+     * @throws TableNotFoundException if no table exists for the given {@code tableId}.
+     */
+    @Transactional
+    public StreamingResponseBody getTableBinary(UUID tableId) {
+        TableColumnarContentDTO content = getTableColumnar(tableId);
+        return outputStream -> tableContentBinaryEncoder.encode(content, outputStream);
+    }
 
-            for (Cell cell : row.getCells()) {
-                cells.add(new CellDTO(table.getId(), cell.getRowId(), cell.getColumnId(), cell.getValue()));
-            }
+    /**
+     * Retrieves a complete table as a JSON stream.
+     *
+     * <p>Ownership is verified immediately, then the returned body writes the content with
+     * {@link TableContentWriter} straight from a database cursor, with constant memory usage.
+     * The JSON document has the same shape as a serialized {@link TableContentDTO}.</p>
+     *
+     * @param tableId the UUID of the table to retrieve.
+     * @return a {@link StreamingResponseBody} writing the table content.
+     * @throws TableNotFoundException if no table exists for the given {@code tableId}.
+     */
+    public StreamingResponseBody streamTable(UUID tableId) {
+        ensureTableExistsForAuthUserOrThrow(tableId);
+        cellWriteBuffer.flush(tableId);
+        return outputStream -> tableContentWriter.write(tableId, outputStream);
+    }
 
-            content.add(new RowDTO(row.getId(), table.getId(), cells));
-        }
+    /**
+     * Retrieves a window of a table.
+     *
+     * <p>Only the rows with index in [{@code fromRow}, {@code toRow}) and the columns with index in
+     * [{@code fromColumn}, {@code toColumn}) are loaded, along with the total number of rows and columns.
+     * If {@code fromColumn} or {@code toColumn} is {@code null} the window spans from the first or up to
+     * the last column respectively. Indexes past the end of the table are allowed and simply yield fewer
+     * rows or columns.</p>
+     *
+     * <p>The window is cut from {@link HotTableCache} when the current version of the table is there.</p>
+     *
+     * @param tableId    the UUID of the table to retrieve.
+     * @param fromRow    zero-based index of the first row of the window (inclusive).
+     * @param toRow      zero-based index of the last row of the window (exclusive).
+     * @param fromColumn optional zero-based index of the first column of the window (inclusive).
+     * @param toColumn   optional zero-based index of the last column of the window (exclusive).
+     * @return a {@link TableViewportDTO} with the header and the content of the window.
+     * @throws TableNotFoundException if no table exists for the given {@code tableId}.
+     * @throws IndexOutOfBoundsException if a range is negative or its end precedes its start.
+     */
+    @Transactional
+    public TableViewportDTO getTableViewport(UUID tableId, int fromRow, int toRow,
+                                             Integer fromColumn, Integer toColumn) {
+        long version = tableDAO.findVersionForUser(tableId, getAuthUserId())
+                .orElseThrow(() -> new TableNotFoundException(tableId));
 
-        for (ColumnProxy column : table.getColumns()) {
-            headers.add(
-                    new ColumnDTO(column.getId(), table.getId(), column.getDataTypeId(), column.getName(), column.getColumnIndex())
-            );
-        }
+        int firstColumn = fromColumn == null ? 0 : fromColumn;
+        int lastColumn = toColumn == null ? Integer.MAX_VALUE : toColumn;
 
-        return new TableContentDTO(table.getId(), headers, content);
+        ensureRangeIsValidOrThrow(fromRow, toRow);
+        ensureRangeIsValidOrThrow(firstColumn, lastColumn);
+
+        CompactTable content = hotTableCache.get(tableId, version);
+        if (content != null)
+            return CompactTableViews.viewport(content, fromRow, toRow, firstColumn, lastColumn);
+
+        // the edits are written in this transaction, which is why it is not read-only
+        cellWriteBuffer.flush(tableId);
+        return tableContentDAO.loadViewport(tableId, fromRow, toRow, firstColumn, lastColumn);
     }
 
     /**
@@ -237,8 +426,11 @@ public class TableService {
      */
     @Transactional
     public String deleteTable(UUID tableId) {
-        ensureTableExistsForAuthUserOrThrow(tableId);
+        // locks the table, so that no edit gets into the buffer between the flush and the deletion
+        bumpVersionForAuthUserOrThrow(tableId);
+        cellWriteBuffer.flush(tableId);
         tableDAO.deleteTable(tableId);
+        hotTableCache.evict(tableId);
         return "Table deleted successfully";
     }
 
@@ -256,12 +448,7 @@ public class TableService {
     protected RowProxy duplicateRow(UUID tableId, int rowIndex) {
         final RowProxy duplicatedRow = rowDAO.findRowByIndex(tableId, rowIndex);
         final RowProxy insertedRow = insertNewRowAt(tableId, rowIndex);
-        final List<Cell> duplicatedRowCells = duplicatedRow.getCells();
-
-        for (int i = 0; i < duplicatedRowCells.size(); ++i) {
-            String duplicatedCellValue = duplicatedRowCells.get(i).getValue();
-            cellDAO.setRowCellValue(insertedRow.getId(), i, duplicatedCellValue);
-        }
+        cellDAO.copyRowCells(duplicatedRow.getId(), insertedRow.getId());
 
         return rowDAO.findRowByIndex(tableId, rowIndex);
     }
@@ -283,7 +470,8 @@ public class TableService {
      */
     @Transactional
     public RowCreatedDTO addNewRow(UUID tableId, RowCreateDTO rowCreateDTO) {
-        ensureTableExistsForAuthUserOrThrow(tableId);
+        long version = bumpVersionForAuthUserOrThrow(tableId);
+        cellWriteBuffer.flush(tableId);
 
         RowProxy createdRow;
         List<String> cellsValues = new ArrayList<>();
@@ -307,12 +495,19 @@ public class TableService {
             }
         }
 
-        return new RowCreatedDTO(
+        RowCreatedDTO rowCreatedDTO = new RowCreatedDTO(
                 createdRow.getId(),
                 createdRow.getMyTable(),
                 createdRow.getRowIndex(),
                 cellsValues
         );
+
+        boolean duplicate = rowCreateDTO.rowIndex() != null && rowCreateDTO.duplicateFlag();
+        hotTableCache.update(tableId, version, content -> duplicate
+                ? TableContentChanges.duplicateRow(content, rowCreatedDTO.rowIndex(), rowCreatedDTO.id())
+                : TableContentChanges.insertRows(content, rowCreatedDTO.rowIndex(), List.of(rowCreatedDTO.id()), null));
+
+        return rowCreatedDTO;
     }
 
     /** append a new empty row */
@@ -330,12 +525,7 @@ public class TableService {
         final ColumnProxy duplicatedColumn = columnDAO.findColumnByIndex(tableId, columnIndex);
         final ColumnProxy insertedColumn = insertColumnAt(tableId, duplicatedColumn.getDataTypeId(), columnIndex);
         columnDAO.changeColumnName(tableId, insertedColumn.getId(), duplicatedColumn.getName());
-        final List<Cell> duplicatedColumnCells = duplicatedColumn.getCells();
-
-        for (int i = 0; i < duplicatedColumnCells.size(); ++i) {
-            String duplicatedCellValue = duplicatedColumnCells.get(i).getValue();
-            cellDAO.setColumnCellValue(insertedColumn.getId(), i, duplicatedCellValue);
-        }
+        cellDAO.copyColumnCells(duplicatedColumn.getId(), insertedColumn.getId());
 
         return columnDAO.findColumnByIndex(tableId, columnIndex);
     }
@@ -357,7 +547,8 @@ public class TableService {
      */
     @Transactional
     public ColumnCreatedDTO addNewColumn(UUID tableId, ColumnCreateDTO columnCreateDTO) {
-        ensureTableExistsForAuthUserOrThrow(tableId);
+        long version = bumpVersionForAuthUserOrThrow(tableId);
+        cellWriteBuffer.flush(tableId);
         ensureDataTypeExistsOrThrow(columnCreateDTO.dataTypeId());
 
         ColumnProxy createdColumn;
@@ -382,7 +573,7 @@ public class TableService {
             }
         }
 
-        return new ColumnCreatedDTO(
+        ColumnCreatedDTO columnCreatedDTO = new ColumnCreatedDTO(
                 createdColumn.getId(),
                 createdColumn.getMyTable(),
                 createdColumn.getDataTypeId(),
@@ -390,6 +581,140 @@ public class TableService {
                 createdColumn.getName(),
                 cellValues
         );
+
+        boolean duplicate = columnCreateDTO.columnIndex() != null && columnCreateDTO.duplicateFlag();
+        hotTableCache.update(tableId, version, content -> duplicate
+                ? TableContentChanges.duplicateColumn(content, columnCreatedDTO.columnIndex(), columnCreatedDTO.id())
+                : TableContentChanges.insertColumns(content, columnCreatedDTO.columnIndex(),
+                        List.of(columnCreatedDTO.id()), columnCreatedDTO.dataTypeId(), null));
+
+        return columnCreatedDTO;
+    }
+
+    /**
+     * Creates several new rows in the specified table with a constant number of statements.
+     *
+     * <p>If {@code rowIndex} in {@link RowsCreateDTO} is {@code null}, the new rows are appended
+     * at the end of the table; otherwise the first one is inserted at the specified index.
+     * The optional {@code cellsValues} are written to the new rows in a single batch.</p>
+     *
+     * @param tableId       The UUID of the table in which the new rows should be added.
+     * @param rowsCreateDTO DTO containing the optional insertion index, the number of rows and their values.
+     * @return A {@link RowsCreatedDTO} containing the ids of the new rows.
+     * @throws TableNotFoundException if no table exists for the given {@code tableId}.
+     * @throws IndexOutOfBoundsException if {@code rowIndex} is out of bounds, or if {@code cellsValues}
+     * holds more rows than created or more values than columns.
+     */
+    @Transactional
+    public RowsCreatedDTO addNewRows(UUID tableId, RowsCreateDTO rowsCreateDTO) {
+        long version = bumpVersionForAuthUserOrThrow(tableId);
+        cellWriteBuffer.flush(tableId);
+
+        int rowsNumber = rowDAO.getRowsNumber(tableId);
+        int rowIndex = rowsNumber;
+
+        if (rowsCreateDTO.rowIndex() != null) {
+            ensureIndexIsWithinTheBoundsOrThrow(rowsCreateDTO.rowIndex(), 0, rowsNumber);
+            rowIndex = rowsCreateDTO.rowIndex();
+        }
+
+        List<UUID> rowIds = rowDAO.insertNewRowsAt(tableId, rowIndex, rowsCreateDTO.count());
+
+        if (rowsCreateDTO.cellsValues() != null && !rowsCreateDTO.cellsValues().isEmpty()) {
+            List<UUID> columnIds = columnDAO.findAllColumn(tableId).stream().map(ColumnProxy::getId).toList();
+            cellDAO.updateCells(cellsFromValues(rowIds, columnIds, rowsCreateDTO.cellsValues(), true));
+        }
+
+        int firstRowIndex = rowIndex;
+        hotTableCache.update(tableId, version, content ->
+                TableContentChanges.insertRows(content, firstRowIndex, rowIds, rowsCreateDTO.cellsValues()));
+
+        return new RowsCreatedDTO(tableId, rowIndex, rowIds);
+    }
+
+    /**
+     * Creates several new columns of the same data type in the specified table with a constant number
+     * of statements.
+     *
+     * <p>If {@code columnIndex} in {@link ColumnsCreateDTO} is {@code null}, the new columns are appended
+     * as the last columns; otherwise the first one is inserted at the specified index.
+     * The optional {@code cellsValues} are written to the new columns in a single batch.</p>
+     *
+     * @param tableId          The UUID of the table in which the columns are to be created.
+     * @param columnsCreateDTO DTO containing the data type, optional index, number of columns and their values.
+     * @return A {@link ColumnsCreatedDTO} containing the ids of the new columns.
+     * @throws TableNotFoundException if no table exists for the given {@code tableId}.
+     * @throws DataTypeNotFound if {@code dataTypeId} does not exist.
+     * @throws IndexOutOfBoundsException if {@code columnIndex} is out of bounds, or if {@code cellsValues}
+     * holds more columns than created or more values than rows.
+     */
+    @Transactional
+    public ColumnsCreatedDTO addNewColumns(UUID tableId, ColumnsCreateDTO columnsCreateDTO) {
+        long version = bumpVersionForAuthUserOrThrow(tableId);
+        cellWriteBuffer.flush(tableId);
+        ensureDataTypeExistsOrThrow(columnsCreateDTO.dataTypeId());
+
+        int columnsNumber = columnDAO.getColumnNumber(tableId);
+        int columnIndex = columnsNumber;
+
+        if (columnsCreateDTO.columnIndex() != null) {
+            ensureIndexIsWithinTheBoundsOrThrow(columnsCreateDTO.columnIndex(), 0, columnsNumber);
+            columnIndex = columnsCreateDTO.columnIndex();
+        }
+
+        List<UUID> columnIds = columnDAO.insertColumnsAt(
+                tableId, columnsCreateDTO.dataTypeId(), columnIndex, columnsCreateDTO.count()
+        );
+
+        if (columnsCreateDTO.cellsValues() != null && !columnsCreateDTO.cellsValues().isEmpty()) {
+            List<UUID> rowIds = rowDAO.findAllRows(tableId).stream().map(RowProxy::getId).toList();
+            cellDAO.updateCells(cellsFromValues(columnIds, rowIds, columnsCreateDTO.cellsValues(), false));
+        }
+
+        int firstColumnIndex = columnIndex;
+        hotTableCache.update(tableId, version, content -> TableContentChanges.insertColumns(
+                content, firstColumnIndex, columnIds, columnsCreateDTO.dataTypeId(), columnsCreateDTO.cellsValues()));
+
+        return new ColumnsCreatedDTO(tableId, columnsCreateDTO.dataTypeId(), columnIndex, columnIds);
+    }
+
+    /**
+     * Converts a matrix of values into the non-empty {@link Cell}s to write.
+     *
+     * @param outerIds   ids matching the outer lists of {@code values}.
+     * @param innerIds   ids matching the elements of each inner list of {@code values}.
+     * @param values     the values to convert; {@code null} and empty values are skipped.
+     * @param rowsOuter  {@code true} if {@code outerIds} are row ids and {@code innerIds} column ids,
+     *                   {@code false} if the other way round.
+     * @throws IndexOutOfBoundsException if {@code values} does not fit into {@code outerIds} x {@code innerIds}.
+     */
+    private List<Cell> cellsFromValues(List<UUID> outerIds, List<UUID> innerIds,
+                                       List<List<String>> values, boolean rowsOuter) {
+        if (values.size() > outerIds.size())
+            throw new IndexOutOfBoundsException("values: " + values.size() + ", maxBounds: " + outerIds.size());
+
+        List<Cell> cells = new ArrayList<>();
+
+        for (int i = 0; i < values.size(); ++i) {
+            List<String> inner = values.get(i);
+            if (inner == null)
+                continue;
+
+            if (inner.size() > innerIds.size())
+                throw new IndexOutOfBoundsException("values: " + inner.size() + ", maxBounds: " + innerIds.size());
+
+            for (int j = 0; j < inner.size(); ++j) {
+                String value = inner.get(j);
+                if (value == null || value.isEmpty())
+                    continue;
+
+                UUID rowId = rowsOuter ? outerIds.get(i) : innerIds.get(j);
+                UUID columnId = rowsOuter ? innerIds.get(j) : outerIds.get(i);
+                cells.add(new Cell(null, columnId, rowId, value));
+            }
+        }
+
+        return cells;
     }
 
     /**
@@ -410,7 +735,8 @@ public class TableService {
      */
     @Transactional
     public ColumnPatchedDTO patchHeaderColumn(UUID tableId, UUID columnId, ColumnPatchDTO patchDTO) {
-        ensureTableExistsForAuthUserOrThrow(tableId);
+        long version = bumpVersionForAuthUserOrThrow(tableId);
+        cellWriteBuffer.flush(tableId);
         ensureColumnExistsOrThrow(tableId, columnId);
 
         if (patchDTO.dataTypeId() != null) {
@@ -422,6 +748,9 @@ public class TableService {
         if (patchDTO.columnName() != null)
             columnDAO.changeColumnName(tableId, columnId, patchDTO.columnName());
 
+        hotTableCache.update(tableId, version, content ->
+                TableContentChanges.patchColumn(content, columnId, patchDTO.columnName(), patchDTO.dataTypeId()));
+
         return new ColumnPatchedDTO(
                 columnId,
                 columnDAO.findColumnIndexById(tableId, columnId),
@@ -441,110 +770,141 @@ public class TableService {
      *   </ul>
      *   Skips any update whose dataTypeId does not match the column’s type.
      * </p>
+     * <p>
+     * All the patches are validated against a single snapshot of the table's data types, columns and rows,
+     * loaded once; the resulting cell updates are then applied with one JDBC batch and the zero-based
+     * indexes of the patched cells are taken from the snapshot.
+     * </p>
      *
      * @param tableId       UUID of the table containing the cells.
      * @param cellsPatchDTO List of {@link CellPatchDTO} carrying target IDs, dataTypeId, and newValue.
      * @return List of {@link CellPatchedDTO} describing each successfully updated cell’s
      * zero-based row & column indexes and new value.
      * @throws TableNotFoundException if no table exists for the given {@code tableId}.
+     * @throws DataTypeNotFound       if a patch refers to a data type that does not exist.
+     * @throws ColumnNotFound         if a patch refers to a column that does not belong to the table.
+     * @throws RowNotFound            if a patch refers to a row that does not belong to the table.
      */
     @Transactional
     public List<CellPatchedDTO> updateCellValue(UUID tableId, List<CellPatchDTO> cellsPatchDTO) {
-        ensureTableExistsForAuthUserOrThrow(tableId);
+        long version = bumpVersionForAuthUserOrThrow(tableId);
+
+        Set<Integer> dataTypesIds = new HashSet<>();
+        for (DataType dataType : dataTypeDAO.findAll()) {
+            dataTypesIds.add(dataType.id());
+        }
+
+        List<ColumnProxy> columns = columnDAO.findAllColumn(tableId);
+        List<RowProxy> rows = rowDAO.findAllRows(tableId);
+        Map<UUID, ColumnProxy> columnsById = new HashMap<>();
+        Map<UUID, RowProxy> rowsById = new HashMap<>();
+
+        for (ColumnProxy column : columns) {
+            columnsById.put(column.getId(), column);
+        }
+        for (RowProxy row : rows) {
+            rowsById.put(row.getId(), row);
+        }
 
+        List<Cell> cellsToUpdate = new ArrayList<>();
         List<CellPatchedDTO> cellsPatched = new ArrayList<>();
 
         for (CellPatchDTO cellPatchDTO : cellsPatchDTO) {
-            ensureDataTypeExistsOrThrow(cellPatchDTO.dataTypeId());
+            if (!dataTypesIds.contains(cellPatchDTO.dataTypeId()))
+                throw new DataTypeNotFound(cellPatchDTO.dataTypeId());
 
             // single cell update
             if (cellPatchDTO.rowId() != null && cellPatchDTO.columnId() != null) {
-                ensureColumnExistsOrThrow(tableId, cellPatchDTO.columnId());
-                ensureRowExistsOrThrow(tableId, cellPatchDTO.rowId());
+                ColumnProxy column = columnsById.get(cellPatchDTO.columnId());
+                if (column == null)
+                    throw new ColumnNotFound(cellPatchDTO.columnId(), tableId);
 
-                if (!columnDAO.matchColumnDataType(tableId, cellPatchDTO.columnId(), cellPatchDTO.dataTypeId()))
+                RowProxy row = rowsById.get(cellPatchDTO.rowId());
+                if (row == null)
+                    throw new RowNotFound(cellPatchDTO.rowId(), tableId);
+
+                if (column.getDataTypeId() != cellPatchDTO.dataTypeId())
                     continue;
 
-                cellDAO.updateCell(cellPatchDTO.rowId(), cellPatchDTO.columnId(), cellPatchDTO.newValue());
-                cellsPatched.add(
-                        new CellPatchedDTO(
-                                rowDAO.findRowIndexFromId(tableId, cellPatchDTO.rowId()),
-                                columnDAO.findColumnIndexFromId(tableId, cellPatchDTO.columnId()),
-                                cellPatchDTO.newValue()
-                        )
-                );
+                addCellPatch(row, column, cellPatchDTO.newValue(), cellsToUpdate, cellsPatched);
             }
             // row-wide update
             else if (cellPatchDTO.rowId() != null) {
-                ensureRowExistsOrThrow(tableId, cellPatchDTO.rowId());
-
-                List<UUID> rowCellsColumnsIds = cellDAO.findRowCellsColumnsIds(cellPatchDTO.rowId());
+                RowProxy row = rowsById.get(cellPatchDTO.rowId());
+                if (row == null)
+                    throw new RowNotFound(cellPatchDTO.rowId(), tableId);
 
-                for (UUID rowCellsColumnId : rowCellsColumnsIds) {
-                    if (!columnDAO.matchColumnDataType(tableId, rowCellsColumnId, cellPatchDTO.dataTypeId()))
+                for (ColumnProxy column : columns) {
+                    if (column.getDataTypeId() != cellPatchDTO.dataTypeId())
                         continue;
 
-                    cellDAO.updateCell(cellPatchDTO.rowId(), rowCellsColumnId, cellPatchDTO.newValue());
-                    cellsPatched.add(
-                            new CellPatchedDTO(
-                                    rowDAO.findRowIndexFromId(tableId, cellPatchDTO.rowId()),
-                                    columnDAO.findColumnIndexFromId(tableId, rowCellsColumnId),
-                                    cellPatchDTO.newValue()
-                            )
-                    );
+                    addCellPatch(row, column, cellPatchDTO.newValue(), cellsToUpdate, cellsPatched);
                 }
             }
             // column-wide update
             else if (cellPatchDTO.columnId() != null) {
-                ensureColumnExistsOrThrow(tableId, cellPatchDTO.columnId());
+                ColumnProxy column = columnsById.get(cellPatchDTO.columnId());
+                if (column == null)
+                    throw new ColumnNotFound(cellPatchDTO.columnId(), tableId);
 
-                if (!columnDAO.matchColumnDataType(tableId, cellPatchDTO.columnId(), cellPatchDTO.dataTypeId()))
+                if (column.getDataTypeId() != cellPatchDTO.dataTypeId())
                     continue;
 
-                List<UUID> columnCellsRowsIds = cellDAO.findColumnCellsRowsIds(cellPatchDTO.columnId());
-
-                for (UUID columnCellsRowId : columnCellsRowsIds) {
-                    cellDAO.updateCell(columnCellsRowId, cellPatchDTO.columnId(), cellPatchDTO.newValue());
-                    cellsPatched.add(
-                            new CellPatchedDTO(
-                                    rowDAO.findRowIndexFromId(tableId, columnCellsRowId),
-                                    columnDAO.findColumnIndexFromId(tableId, cellPatchDTO.columnId()),
-                                    cellPatchDTO.newValue()
-                            )
-                    );
+                for (RowProxy row : rows) {
+                    addCellPatch(row, column, cellPatchDTO.newValue(), cellsToUpdate, cellsPatched);
                 }
             }
         }
 
+        cellWriteBuffer.write(tableId, cellsToUpdate);
+        hotTableCache.update(tableId, version, content -> TableContentChanges.setCells(content, cellsToUpdate));
+
         return cellsPatched;
     }
 
+    /**
+     * Records the update of the cell at the intersection of {@code row} and {@code column}:
+     * the cell to write and the {@link CellPatchedDTO} to return to the client.
+     */
+    private void addCellPatch(RowProxy row,
+                              ColumnProxy column,
+                              String newValue,
+                              List<Cell> cellsToUpdate,
+                              List<CellPatchedDTO> cellsPatched) {
+
+        cellsToUpdate.add(new Cell(null, column.getId(), row.getId(), newValue));
+        cellsPatched.add(new CellPatchedDTO(row.getRowIndex(), column.getColumnIndex(), newValue));
+    }
+
     /**
      * Delete a list of columns from the specified table within a transaction.
      *
      * @param tableId          UUID of the table from which columns will be deleted.
      * @param columnsDeleteDTO DTO carrying the list of column UUIDs to delete.
-     * @return {@link ColumnsDeletedDTO} containing the list of integer indexes
-     * representing positions of columns removed.
+     * @return {@link ColumnsDeletedDTO} containing the list of integer indexes, in ascending order,
+     * that the removed columns had before the deletion.
      * @throws AtLeastOneRowAndOneColumn if deleting the requested columns would leave the table with zero columns
      *                                   (i.e. the remaining columns count would be ≤ 0).
      * @throws TableNotFoundException    if no table exists for the given {@code tableId}.
+     * @throws ColumnNotFound            if any UUID in {@code ids} does not correspond
+     *                                   to an existing column in that table.
      */
     @Transactional
     public ColumnsDeletedDTO deleteColumns(UUID tableId, ColumnsDeleteDTO columnsDeleteDTO) {
-        ensureTableExistsForAuthUserOrThrow(tableId);
+        long version = bumpVersionForAuthUserOrThrow(tableId);
+        cellWriteBuffer.flush(tableId);
 
-        if ((columnDAO.getColumnNumber(tableId) - columnsDeleteDTO.ids().size()) <= 0)
+        Set<UUID> columnsIds = new LinkedHashSet<>(columnsDeleteDTO.ids());
+
+        if ((columnDAO.getColumnNumber(tableId) - columnsIds.size()) <= 0)
             throw new AtLeastOneRowAndOneColumn();
 
-        List<Integer> deletedColumnsIndexes = new ArrayList<>();
+        ensureColumnsExistOrThrow(tableId, columnsIds);
 
-        for (UUID columnId : columnsDeleteDTO.ids()) {
-            ensureColumnExistsOrThrow(tableId, columnId);
-            deletedColumnsIndexes.add(columnDAO.deleteColumn(columnId, tableId));
-        }
+        List<Integer> deletedIndexes = columnDAO.deleteColumns(tableId, columnsIds);
+        hotTableCache.update(tableId, version, content -> TableContentChanges.deleteColumns(content, columnsIds));
 
-        return new ColumnsDeletedDTO(deletedColumnsIndexes);
+        return new ColumnsDeletedDTO(deletedIndexes);
     }
 
     /**
@@ -552,60 +912,30 @@ public class TableService {
      *
      * @param tableId       UUID of the table from which rows will be deleted.
      * @param rowsDeleteDTO DTO carrying the list of row UUIDs to delete.
-     * @return {@link RowsDeletedDTO} containing the list of integer indexes
-     * representing positions of rows removed.
+     * @return {@link RowsDeletedDTO} containing the list of integer indexes, in ascending order,
+     * that the removed rows had before the deletion.
      * @throws AtLeastOneRowAndOneColumn if deleting the requested rows would leave the table with zero rows
      *                                   (i.e. the remaining rows count would be ≤ 0).
      * @throws TableNotFoundException    if no table exists for the given {@code tableId}.
+     * @throws RowNotFound               if any UUID in {@code ids} does not correspond
+     *                                   to an existing row in that table.
      */
     @Transactional
     public RowsDeletedDTO deleteRows(UUID tableId, RowsDeleteDTO rowsDeleteDTO) {
-        ensureTableExistsForAuthUserOrThrow(tableId);
+        long version = bumpVersionForAuthUserOrThrow(tableId);
+        cellWriteBuffer.flush(tableId);
 
-        if ((rowDAO.getRowsNumber(tableId) - rowsDeleteDTO.ids().size()) <= 0)
+        Set<UUID> rowsIds = new LinkedHashSet<>(rowsDeleteDTO.ids());
+
+        if ((rowDAO.getRowsNumber(tableId) - rowsIds.size()) <= 0)
             throw new AtLeastOneRowAndOneColumn();
 
-        List<Integer> deletedRowsIndexes = new ArrayList<>();
+        ensureRowsExistOrThrow(tableId, rowsIds);
 
-        for (UUID rowId : rowsDeleteDTO.ids()) {
-            ensureRowExistsOrThrow(tableId, rowId);
-            deletedRowsIndexes.add(rowDAO.deleteRow(tableId, rowId));
-        }
+        List<Integer> deletedIndexes = rowDAO.deleteRows(tableId, rowsIds);
+        hotTableCache.update(tableId, version, content -> TableContentChanges.deleteRows(content, rowsIds));
 
-        return new RowsDeletedDTO(deletedRowsIndexes);
-    }
-
-    /**
-     * Computes the individual index shifts required to move a single item
-     * from one position to another.
-     * <p>
-     * For each index between {@code fromIndex} and {@code toIndex}, generates a
-     * Pair(originalIndex, shiftedIndex). Finally, includes the pair
-     * (fromIndex, toIndex) itself.
-     * </p>
-     *
-     * @param fromIndex The original zero-based position of the item.
-     * @param toIndex   The desired zero-based position of the item.
-     * @return A list of {@code Pair<Integer, Integer>}; where each pair maps an original
-     * index that must be shifted to its new index.
-     */
-    private List<Pair<Integer, Integer>> getMovedIndexes(int fromIndex, int toIndex) {
-        List<Pair<Integer, Integer>> indexesMoved = new ArrayList<>();
-
-        if (fromIndex > toIndex) {
-            for (int i = toIndex; i <= fromIndex - 1; ++i) {
-                indexesMoved.add(new Pair<>(i, i + 1));
-            }
-        } else if (fromIndex < toIndex) {
-            for (int i = fromIndex + 1; i <= toIndex; ++i) {
-                indexesMoved.add(new Pair<>(i, i - 1));
-            }
-        } else {
-            return indexesMoved;
-        }
-
-        indexesMoved.add(new Pair<>(fromIndex, toIndex));
-        return indexesMoved;
+        return new RowsDeletedDTO(deletedIndexes);
     }
 
     /**
@@ -672,71 +1002,78 @@ public class TableService {
     }
 
     /**
-     * Merges a new batch of moved index pairs into the overall update plan,
-     * avoiding duplicate or conflicting entries.
+     * Computes the new ordering keys of the moved rows or columns.
      * <p>
-     * Compares each pair in {@code currentMovedIndexes} against a snapshot of
-     * the existing {@code indexesToUpdate}. If a mapping for that original index
-     * already exists, its target is updated; otherwise, the new pair is appended.
+     * Every index in {@code sortedIndexesToMove} is moved by {@code adjustedDelta}, the other elements fill
+     * the remaining positions keeping their relative order and their keys. Each run of consecutive moved
+     * elements in the final order then gets keys between the keys of the two unmoved elements around it
+     * (see {@link OrderKeys#between(Long, Long, int)}), so only the moved elements are written.
+     * If a run does not fit, every element is given a fresh {@code rank * GAP} key instead.
      * </p>
      *
-     * @param indexesToUpdate     The master list of original-to-new index mappings being built.
-     * @param currentMovedIndexes The new batch of mappings to integrate.
+     * @param orderKeys           The (UUID, ordering key) pairs of all the elements, in index order.
+     * @param sortedIndexesToMove The zero-based indexes of the elements to move.
+     * @param adjustedDelta       The shift applied to each moved index; keeps them within the bounds.
+     * @return The (UUID, new ordering key) pairs to write.
      */
-    private void reconstructIndexesToUpdate(List<Pair<Integer, Integer>> indexesToUpdate,
-                                            List<Pair<Integer, Integer>> currentMovedIndexes) {
+    static List<Pair<UUID, Long>> planMove(List<Pair<UUID, Long>> orderKeys,
+                                           List<Integer> sortedIndexesToMove,
+                                           int adjustedDelta) {
 
-        List<Pair<Integer, Integer>> newIndexesDiscovered = new ArrayList<>();
-        List<Pair<Integer, Integer>> indexesSnapshot = new ArrayList<>();
+        int size = orderKeys.size();
+        List<Pair<UUID, Long>> finalOrder = new ArrayList<>(Collections.nCopies(size, null));
+        boolean[] moved = new boolean[size];
 
-        // Snapshot of the original list
-        for (Pair<Integer, Integer> p : indexesToUpdate) {
-            indexesSnapshot.add(new Pair<>(p.getFirst(), p.getSecond()));
+        for (int index : sortedIndexesToMove) {
+            finalOrder.set(index + adjustedDelta, orderKeys.get(index));
+            moved[index + adjustedDelta] = true;
         }
 
-        // For each shifted pair, a match is sought in the snapshot
-        for (Pair<Integer, Integer> p : currentMovedIndexes) {
-            int matchedSnapshotIndex = -1;
+        Set<Integer> indexesToMove = new HashSet<>(sortedIndexesToMove);
+        int position = 0;
 
-            for (int k = 0; k < indexesSnapshot.size(); ++k) {
-                if (indexesSnapshot.get(k).getSecond().equals(p.getFirst())) {
-                    matchedSnapshotIndex = k;
-                    break;
-                }
-            }
+        for (int index = 0; index < size; ++index) {
+            if (indexesToMove.contains(index))
+                continue;
 
-            if (matchedSnapshotIndex >= 0) {
-                indexesToUpdate.get(matchedSnapshotIndex).setSecond(p.getSecond());
-            } else {
-                newIndexesDiscovered.add(p);
-            }
+            while (moved[position])
+                ++position;
+
+            finalOrder.set(position++, orderKeys.get(index));
         }
 
-        indexesToUpdate.addAll(newIndexesDiscovered);
-    }
+        List<Pair<UUID, Long>> keysToUpdate = new ArrayList<>();
 
-    /**
-     * Builds a list of index‐pairs representing how each original index should be moved.
-     * <p>
-     * For each index in {@code indexToMove}, this method computes its new target index
-     * by adding the given {@code adjustedDelta}. It then merges the resulting pairs
-     * into a single list, ensuring any overlapping or duplicate ranges are handled
-     * by {@link #reconstructIndexesToUpdate(List, List)}.
-     * </p>
-     *
-     * @param indexToMove    A list of original indices that need to be relocated.
-     * @param adjustedDelta  The offset to apply to each original index to compute its new index.
-     * @return               {@code List<Pair<Integer, Integer>>} a combined list of {@code (oldIndex, newIndex)} pairs.
-     */
-    private List<Pair<Integer, Integer>> getUpdatedIndexes(List<Integer> indexToMove, int adjustedDelta) {
-        List<Pair<Integer, Integer>> indexesToUpdate = new ArrayList<>();
+        for (int start = 0; start < size; ) {
+            if (!moved[start]) {
+                ++start;
+                continue;
+            }
+
+            int end = start;
+            while (end < size && moved[end])
+                ++end;
 
-        for (int i : indexToMove) {
-            List<Pair<Integer, Integer>> currentMovedIndexes = getMovedIndexes(i, i + adjustedDelta);
-            reconstructIndexesToUpdate(indexesToUpdate, currentMovedIndexes);
+            Long lower = start > 0 ? finalOrder.get(start - 1).getSecond() : null;
+            Long upper = end < size ? finalOrder.get(end).getSecond() : null;
+            OrderKeys.Range keys = OrderKeys.between(lower, upper, end - start);
+
+            if (keys == null) {
+                keysToUpdate.clear();
+
+                for (int k = 0; k < size; ++k)
+                    keysToUpdate.add(new Pair<>(finalOrder.get(k).getFirst(), (k + 1) * OrderKeys.GAP));
+
+                return keysToUpdate;
+            }
+
+            for (int k = start; k < end; ++k)
+                keysToUpdate.add(new Pair<>(finalOrder.get(k).getFirst(), keys.get(k - start)));
+
+            start = end;
         }
 
-        return indexesToUpdate;
+        return keysToUpdate;
     }
 
     /**
@@ -765,9 +1102,10 @@ public class TableService {
      *   <li>Computes raw shift: {@code rawDelta = toIndex - fromIndex}.</li>
      *   <li>Verifies that the table exists.</li>
      *   <li>Verifies that each {@code rowId} in {@code idsToMove} exists in the table.</li>
-     *   <li>Determines affected row indexes and sorts them to avoid conflicts.</li>
+     *   <li>Determines the indexes of the rows to move.</li>
      *   <li>Adjusts the delta to prevent out-of-bounds moves.</li>
-     *   <li>Updates each row’s index in the database.</li>
+     *   <li>Gives new ordering keys to the moved rows only (see {@link #planMove(List, List, int)}),
+     *       writing them with a single batch update.</li>
      *   <li>Returns the list of zero-based indexes that were moved
      *       and the actual shift delta applied.</li>
      * </ul>
@@ -785,30 +1123,23 @@ public class TableService {
      */
     @Transactional
     public MovedRowsOrColumnsDTO moveRowsIndexes(UUID tableId, MovesRowsOrColumnsDTO moveRowsDTO) {
-        ensureTableExistsForAuthUserOrThrow(tableId);
+        long version = bumpVersionForAuthUserOrThrow(tableId);
+        cellWriteBuffer.flush(tableId);
 
         int rowsAmount = rowDAO.getRowsNumber(tableId);
 
         if (!canMoveRowOrColumn(moveRowsDTO.fromIndex(), moveRowsDTO.toIndex(), rowsAmount))
             return new MovedRowsOrColumnsDTO(new ArrayList<>(), 0);
 
-        moveRowsDTO.idsToMove().forEach((UUID id) -> this.ensureRowExistsOrThrow(tableId, id));
+        ensureRowsExistOrThrow(tableId, moveRowsDTO.idsToMove());
 
         int rawDelta = moveRowsDTO.toIndex() - moveRowsDTO.fromIndex();
         List<Integer> sortedRowsIndexesToMove = getSortedIndexesToMove(rawDelta, tableId, moveRowsDTO.idsToMove(), rowDAO);
         int adjustedDelta = getAdjustedDeltaToBounds(rawDelta, sortedRowsIndexesToMove, 0, rowsAmount);
 
-        List<Pair<UUID, Integer>> convertedList = getUpdatedIndexes(sortedRowsIndexesToMove, adjustedDelta)
-                .stream()
-                .map(
-                        (Pair<Integer, Integer> p) ->
-                                new Pair<>(rowDAO.findRowIdByIndex(tableId, p.getFirst()), p.getSecond())
-                )
-                .toList();
-
-        for (Pair<UUID, Integer> p : convertedList) {
-            rowDAO.updateRowIndex(p.getFirst(), p.getSecond(), tableId);
-        }
+        rowDAO.updateOrderKeys(tableId, planMove(rowDAO.findOrderKeys(tableId), sortedRowsIndexesToMove, adjustedDelta));
+        hotTableCache.update(tableId, version, content ->
+                TableContentChanges.moveRows(content, sortedRowsIndexesToMove, adjustedDelta));
 
         return new MovedRowsOrColumnsDTO(sortedRowsIndexesToMove, adjustedDelta);
     }
@@ -820,9 +1151,10 @@ public class TableService {
      *   <li>Computes raw shift: {@code rawDelta = toIndex - fromIndex}.</li>
      *   <li>Verifies that the table exists.</li>
      *   <li>Verifies that each {@code columnId} in {@code idsToMove} exists in the table.</li>
-     *   <li>Determines affected column indexes and sorts them to avoid conflicts.</li>
+     *   <li>Determines the indexes of the columns to move.</li>
      *   <li>Adjusts the delta to prevent out-of-bounds moves.</li>
-     *   <li>Updates each column’s index in the database.</li>
+     *   <li>Gives new ordering keys to the moved columns only (see {@link #planMove(List, List, int)}),
+     *       writing them with a single batch update.</li>
      *   <li>Returns the list of zero-based indexes that were moved
      *       and the actual shift delta applied.</li>
      * </ul>
@@ -840,30 +1172,23 @@ public class TableService {
      */
     @Transactional
     public MovedRowsOrColumnsDTO moveColumnsIndexes(UUID tableId, MovesRowsOrColumnsDTO moveColumnsDTO) {
-        ensureTableExistsForAuthUserOrThrow(tableId);
+        long version = bumpVersionForAuthUserOrThrow(tableId);
+        cellWriteBuffer.flush(tableId);
 
         int columnsAmount = columnDAO.getColumnNumber(tableId);
 
         if (!canMoveRowOrColumn(moveColumnsDTO.fromIndex(), moveColumnsDTO.toIndex(), columnsAmount))
             return new MovedRowsOrColumnsDTO(new ArrayList<>(), 0);
 
-        moveColumnsDTO.idsToMove().forEach((UUID id) -> this.ensureColumnExistsOrThrow(tableId, id));
+        ensureColumnsExistOrThrow(tableId, moveColumnsDTO.idsToMove());
 
         int rawDelta = moveColumnsDTO.toIndex() - moveColumnsDTO.fromIndex();
         List<Integer> sortedColumnsIndexesToMove = getSortedIndexesToMove(rawDelta, tableId, moveColumnsDTO.idsToMove(), columnDAO);
         int adjustedDelta = getAdjustedDeltaToBounds(rawDelta, sortedColumnsIndexesToMove, 0, columnsAmount);
 
-        List<Pair<UUID, Integer>> convertedList = getUpdatedIndexes(sortedColumnsIndexesToMove, adjustedDelta)
-                .stream()
-                .map(
-                        (Pair<Integer, Integer> p) ->
-                                new Pair<>(columnDAO.findColumnIdByIndex(tableId, p.getFirst()), p.getSecond())
-                )
-                .toList();
-
-        for (Pair<UUID, Integer> p : convertedList) {
-            columnDAO.updateColumnIndex(p.getFirst(), p.getSecond(), tableId);
-        }
+        columnDAO.updateOrderKeys(tableId, planMove(columnDAO.findOrderKeys(tableId), sortedColumnsIndexesToMove, adjustedDelta));
+        hotTableCache.update(tableId, version, content ->
+                TableContentChanges.moveColumns(content, sortedColumnsIndexesToMove, adjustedDelta));
 
         return new MovedRowsOrColumnsDTO(sortedColumnsIndexesToMove, adjustedDelta);
     }
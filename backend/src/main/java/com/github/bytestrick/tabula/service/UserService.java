@@ -27,12 +27,14 @@ public class UserService {
     private final OtpProvider otpProvider;
     private final JwtProvider jwtProvider;
     private final UserDetailsService userDetailsService;
+    private final VerifiedJwtCache verifiedJwtCache;
 
     public void deleteAccount(String email, String password) {
         String encodedPassword = userDao.findPasswordByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException(email));
         if (passwordEncoder.matches(password, encodedPassword)) {
             userDao.deleteByEmail(email);
+            verifiedJwtCache.evictSubject(email);
             log.info("User '{}' deleted", email);
         } else {
             throw new BadCredentialsException("Incorrect password");
@@ -44,6 +46,7 @@ public class UserService {
                 .orElseThrow(() -> new UsernameNotFoundException(email));
         if (passwordEncoder.matches(oldPassword, encodedPassword)) {
             userDao.updatePasswordByEmail(email, passwordEncoder.encode(newPassword));
+            verifiedJwtCache.evictSubject(email);
             log.info("User '{}' updated their password", email);
         } else {
             throw new BadCredentialsException("Incorrect password");
@@ -77,6 +80,7 @@ public class UserService {
             return user;
         }).orElseThrow(() -> new UsernameNotFoundException(email));
         userDao.updateDetailsByEmail(email, name, surname, country, newEmail);
+        verifiedJwtCache.evictSubject(email);
         log.info("Updated account details for '{}'", newEmail);
         return token.get();
     }
@@ -0,0 +1,213 @@
+package com.github.bytestrick.tabula.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of the JSON Web Tokens already verified by
+ * {@link com.github.bytestrick.tabula.config.JwtAuthenticationFilter}, keyed by the SHA-256 digest of the token
+ * and mapped to the {@link UserDetails} of its subject.
+ * <p>
+ * It is read by every authenticated request, so no lock is taken to serve a token. The entries are held in a
+ * {@link ConcurrentHashMap} and, once there are more than {@code app.jwt.verified-cache.max-size}, the least
+ * recently used ones are evicted approximately, with the CLOCK algorithm: a hit only marks its entry as used,
+ * and the entries are swept in insertion order, evicting the first one not used since the previous sweep.
+ * <p>
+ * An entry lives at most {@code app.jwt.verified-cache.ttl}, and never beyond the expiration of its token.
+ * Entries are evicted when their token is invalidated ({@link JwtProvider#invalidate(String)}) and when the
+ * password of their subject changes or their subject is deleted ({@link #evictSubject(String)}), which finds
+ * them through an index of the tokens of each subject.
+ * A token that {@link RevokedJwtCache} reports as possibly revoked is never served from here.
+ * <p>
+ * Hits and misses are counted so that the size of the cache can be tuned.
+ */
+@Service
+public class VerifiedJwtCache {
+    private final RevokedJwtCache revokedJwtCache;
+    private final Duration ttl;
+    private final int maxSize;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    /**
+     * Digests of the cached tokens of each subject
+     */
+    private final Map<String, Set<String>> subjects = new ConcurrentHashMap<>();
+    /**
+     * Entries in the order the CLOCK sweeps them; it may still hold entries that were removed or replaced
+     */
+    private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger clockSize = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static final class Entry {
+        final String key;
+        final UserDetails userDetails;
+        final Instant expiresAt;
+        /**
+         * Whether the entry was read since the CLOCK last swept it
+         */
+        volatile boolean used;
+
+        Entry(String key, UserDetails userDetails, Instant expiresAt) {
+            this.key = key;
+            this.userDetails = userDetails;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public VerifiedJwtCache(RevokedJwtCache revokedJwtCache,
+                            @Value("${app.jwt.verified-cache.ttl:5m}") Duration ttl,
+                            @Value("${app.jwt.verified-cache.max-size:10000}") int maxSize) {
+        this.revokedJwtCache = revokedJwtCache;
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the details of the subject of a token verified before
+     *
+     * @return the details, or {@code null} if the token must be verified
+     */
+    public UserDetails get(String token) {
+        Entry entry = entries.get(JwtProvider.digest(token));
+        if (entry != null && !entry.expiresAt.isAfter(Instant.now())) {
+            remove(entry);
+            entry = null;
+        }
+        if (entry == null || revokedJwtCache.mightContain(token)) {
+            misses.increment();
+            return null;
+        }
+        if (!entry.used) {
+            entry.used = true;
+        }
+        hits.increment();
+        return entry.userDetails;
+    }
+
+    /**
+     * Remember a verified token until {@code expiration} or for the configured TTL, whichever comes first
+     */
+    public void put(String token, UserDetails userDetails, Instant expiration) {
+        Instant expiresAt = Instant.now().plus(ttl);
+        if (expiration.isBefore(expiresAt)) {
+            expiresAt = expiration;
+        }
+        Entry entry = new Entry(JwtProvider.digest(token), userDetails, expiresAt);
+
+        subjects.compute(userDetails.getUsername(), (subject, keys) -> {
+            Set<String> subjectKeys = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            subjectKeys.add(entry.key);
+            return subjectKeys;
+        });
+        Entry replaced = entries.put(entry.key, entry);
+        if (replaced != null && !replaced.userDetails.getUsername().equals(userDetails.getUsername())) {
+            unindex(replaced);
+        }
+
+        clock.offer(entry);
+        if (clockSize.incrementAndGet() > maxSize) {
+            evictIfNeeded();
+        }
+    }
+
+    public void evict(String token) {
+        Entry entry = entries.get(JwtProvider.digest(token));
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    /**
+     * Evict all the tokens of a user
+     */
+    public void evictSubject(String email) {
+        Set<String> keys = subjects.remove(email);
+        if (keys != null) {
+            keys.forEach(entries::remove);
+        }
+    }
+
+    /**
+     * Sweeps the CLOCK until the cache fits its size, unless another thread is sweeping already
+     */
+    private void evictIfNeeded() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            // the entries removed or replaced since the last sweeps are dropped from the CLOCK
+            if (clockSize.get() > 2 * maxSize) {
+                clock.removeIf(entry -> {
+                    boolean stale = entries.get(entry.key) != entry;
+                    if (stale) {
+                        clockSize.decrementAndGet();
+                    }
+                    return stale;
+                });
+            }
+
+            while (entries.size() > maxSize) {
+                Entry eldest = clock.poll();
+                if (eldest == null) {
+                    return;
+                }
+                clockSize.decrementAndGet();
+
+                if (entries.get(eldest.key) != eldest) {
+                    continue;
+                }
+                if (eldest.used) {
+                    // second chance
+                    eldest.used = false;
+                    clock.offer(eldest);
+                    clockSize.incrementAndGet();
+                } else {
+                    remove(eldest);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void remove(Entry entry) {
+        if (entries.remove(entry.key, entry)) {
+            unindex(entry);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        subjects.computeIfPresent(entry.userDetails.getUsername(), (subject, keys) -> {
+            keys.remove(entry.key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.bytestrick.tabula.controller;
+
+import com.github.bytestrick.tabula.controller.dto.table.TableContentDTO;
+import com.github.bytestrick.tabula.controller.dto.table.TableCreatedDTO;
+import com.github.bytestrick.tabula.service.TableService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class TableControllerTest {
+    private static final UUID tableId = UUID.randomUUID();
+    @Autowired
+    private MockMvc mockMvc;
+    @MockitoBean
+    private TableService tableService;
+    @MockitoBean
+    private SecurityFilterChain securityFilterChain;
+
+    @Test
+    void contentIsServedWithItsVersionAsETag() throws Exception {
+        when(tableService.getTableVersion(tableId)).thenReturn(7L);
+        when(tableService.getTable(tableId)).thenReturn(new TableContentDTO(tableId, List.of(), List.of()));
+
+        mockMvc.perform(get("/tables/{tableId}/content", tableId).header(HttpHeaders.IF_NONE_MATCH, "\"6-json\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-json\""))
+                .andExpect(jsonPath("$.id").value(tableId.toString()));
+    }
+
+    @Test
+    void unchangedContentIsNotLoaded() throws Exception {
+        when(tableService.getTableVersion(tableId)).thenReturn(7L);
+
+        mockMvc.perform(get("/tables/{tableId}/content", tableId).header(HttpHeaders.IF_NONE_MATCH, "\"7-json\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-json\""));
+
+        verify(tableService, never()).getTable(tableId);
+    }
+
+    @Test
+    void unchangedTablesAreNotSentAgain() throws Exception {
+        when(tableService.getLastTables(10)).thenReturn(List.of(
+                new TableCreatedDTO(tableId, "title", "", LocalDateTime.now(), LocalDateTime.now(), 3)));
+
+        String eTag = mockMvc.perform(get("/tables/last").param("quantity", "10"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/tables/last").param("quantity", "10").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.bytestrick.tabula.model.table;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactTableTest {
+
+    /**
+     * A table of one column holding {@code distinct} different values, one row per value
+     */
+    private static CompactTable table(int distinct) {
+        CompactTable.Builder builder = CompactTable.builder(UUID.randomUUID()).column(UUID.randomUUID(), 1, "c");
+        IntStream.range(0, distinct).forEach(i -> builder.row(UUID.randomUUID()));
+        IntStream.range(0, distinct).forEach(i -> builder.value(i, 0, "v" + i));
+        return builder.build();
+    }
+
+    private static List<String> column(CompactTable table, int column) {
+        return IntStream.range(0, table.getRowsNumber()).mapToObj(i -> table.getValue(i, column)).toList();
+    }
+
+    @Test
+    void idsAreKeptAsTheirBits() {
+        UUID tableId = UUID.randomUUID(), columnId = UUID.randomUUID(), rowId = UUID.randomUUID();
+
+        CompactTable table = CompactTable.builder(tableId).column(columnId, 2, "name").row(rowId).build();
+
+        assertThat(table.getId()).isEqualTo(tableId);
+        assertThat(table.getColumnId(0)).isEqualTo(columnId);
+        assertThat(table.getRowId(0)).isEqualTo(rowId);
+        assertThat(table.indexOfRow(rowId)).isZero();
+        assertThat(table.indexOfColumn(rowId)).isEqualTo(-1);
+        assertThat(table.getValue(0, 0)).isEmpty();
+    }
+
+    @Test
+    void onlyColumnsWithFewDistinctValuesAreDictionaryEncoded() {
+        CompactTable few = table(ColumnValues.MAX_DICTIONARY_SIZE);
+        CompactTable many = table(ColumnValues.MAX_DICTIONARY_SIZE + 1);
+
+        assertThat(few.isDictionaryEncoded(0)).isTrue();
+        assertThat(many.isDictionaryEncoded(0)).isFalse();
+        assertThat(column(few, 0)).containsExactlyElementsOf(
+                IntStream.range(0, ColumnValues.MAX_DICTIONARY_SIZE).mapToObj(i -> "v" + i).toList());
+    }
+
+    @Test
+    void aFullDictionaryIsEncodedAgain() {
+        CompactTable table = table(ColumnValues.MAX_DICTIONARY_SIZE);
+
+        // "v0" is no longer used, so "new" still fits
+        CompactTable replaced = table.withValues(new int[]{0}, new int[]{0}, new String[]{"new"});
+        CompactTable grown = table.withRowsInserted(0, List.of(UUID.randomUUID()));
+
+        assertThat(replaced.isDictionaryEncoded(0)).isTrue();
+        assertThat(column(replaced, 0).subList(0, 2)).containsExactly("new", "v1");
+        assertThat(grown.isDictionaryEncoded(0)).isFalse();
+        assertThat(column(grown, 0).subList(0, 2)).containsExactly("", "v0");
+        assertThat(table.getValue(0, 0)).isEqualTo("v0");
+    }
+
+    @Test
+    void insertedRowsAreEmptyInEveryEncoding() {
+        UUID rowId = UUID.randomUUID();
+
+        for (int distinct : new int[]{2, ColumnValues.MAX_DICTIONARY_SIZE, ColumnValues.MAX_DICTIONARY_SIZE + 1}) {
+            CompactTable table = table(distinct).withRowsInserted(1, List.of(rowId));
+
+            assertThat(table.getRowsNumber()).isEqualTo(distinct + 1);
+            assertThat(table.getRowId(1)).isEqualTo(rowId);
+            assertThat(column(table, 0).subList(0, 3)).containsExactly("v0", "", "v1");
+        }
+    }
+
+    @Test
+    void changesLeaveTheOriginalUntouched() {
+        CompactTable table = CompactTable.builder(UUID.randomUUID())
+                .column(UUID.randomUUID(), 1, "a")
+                .column(UUID.randomUUID(), 1, "b")
+                .row(UUID.randomUUID())
+                .build();
+
+        CompactTable changed = table.withValues(new int[]{0}, new int[]{1}, new String[]{"x"});
+
+        assertThat(column(changed, 1)).containsExactly("x");
+        assertThat(column(table, 1)).containsExactly("");
+        assertThat(changed.withColumns(new int[]{1, 0}).getColumnName(0)).isEqualTo("b");
+        assertThat(changed.getEstimatedBytes()).isGreaterThan(table.getEstimatedBytes());
+    }
+
+    @Test
+    void dictionaryEncodedColumnsAreLighter() {
+        CompactTable.Builder repeated = CompactTable.builder(UUID.randomUUID()).column(UUID.randomUUID(), 1, "c");
+        CompactTable.Builder distinct = CompactTable.builder(UUID.randomUUID()).column(UUID.randomUUID(), 1, "c");
+        for (int i = 0; i < 1000; ++i) {
+            repeated.row(UUID.randomUUID());
+            distinct.row(UUID.randomUUID());
+        }
+        for (int i = 0; i < 1000; ++i) {
+            repeated.value(i, 0, "value " + i % 4);
+            distinct.value(i, 0, "value " + i);
+        }
+
+        assertThat(repeated.build().getEstimatedBytes() * 2).isLessThan(distinct.build().getEstimatedBytes());
+    }
+
+    @Test
+    void headerCannotChangeOnceValuesAreSet() {
+        CompactTable.Builder builder = CompactTable.builder(UUID.randomUUID())
+                .column(UUID.randomUUID(), 1, "c")
+                .row(UUID.randomUUID())
+                .value(0, 0, "v");
+
+        assertThatThrownBy(() -> builder.row(UUID.randomUUID())).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.bytestrick.tabula.repository;
+
+import com.github.bytestrick.tabula.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserCacheTest {
+    private static final String EMAIL = "user@example.com";
+
+    private final UserCache userCache = new UserCache(Duration.ofMinutes(1));
+
+    private static User user(String encodedPassword) {
+        return User.builder().id(UUID.randomUUID()).email(EMAIL).encodedPassword(encodedPassword).build();
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void aUserReadBeforeAnEvictionIsNotCached() {
+        long stamp = userCache.stamp();
+        userCache.evict(EMAIL);
+        userCache.put(user("old"), stamp);
+
+        assertThat(userCache.get(EMAIL)).isEmpty();
+
+        userCache.put(user("new"), userCache.stamp());
+
+        assertThat(userCache.get(EMAIL))
+                .hasValueSatisfying(user -> assertThat(user.getEncodedPassword()).isEqualTo("new"));
+    }
+
+    @Test
+    void usersAreEvictedAgainOnceTheWriteCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        userCache.evict(EMAIL);
+
+        // read by a concurrent request before the commit
+        userCache.put(user("old"), userCache.stamp());
+        assertThat(userCache.get(EMAIL)).isPresent();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(userCache.get(EMAIL)).isEmpty();
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.model.table.Cell;
+import com.github.bytestrick.tabula.repository.table.CellDAO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CellWriteBufferTest {
+    private static final UUID TABLE = UUID.randomUUID();
+    private static final UUID ROW = UUID.randomUUID();
+    private static final UUID FIRST_COLUMN = UUID.randomUUID();
+    private static final UUID SECOND_COLUMN = UUID.randomUUID();
+
+    private final CellDAO cellDAO = mock(CellDAO.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CellWriteBuffer cellWriteBuffer;
+
+    private void start(boolean enabled, int maxPendingCells) {
+        cellWriteBuffer = new CellWriteBuffer(cellDAO, TransactionOperations.withoutTransaction(),
+                TransactionOperations.withoutTransaction(), meterRegistry, enabled, maxPendingCells,
+                Duration.ofHours(1));
+        cellWriteBuffer.start();
+    }
+
+    @AfterEach
+    void stop() {
+        cellWriteBuffer.stop();
+    }
+
+    private static Cell cell(UUID columnId, String value) {
+        return new Cell(null, columnId, ROW, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Cell>> writtenBatches(int expected) {
+        ArgumentCaptor<List<Cell>> batches = ArgumentCaptor.forClass(List.class);
+        verify(cellDAO, times(expected)).updateCells(batches.capture());
+        return batches.getAllValues();
+    }
+
+    @Test
+    void editsAreWrittenImmediatelyWhenDisabled() {
+        start(false, 1000);
+        cellWriteBuffer.write(TABLE, List.of(cell(FIRST_COLUMN, "a")));
+
+        assertThat(writtenBatches(1).getFirst()).containsExactly(cell(FIRST_COLUMN, "a"));
+    }
+
+    @Test
+    void repeatedEditsAreCoalescedIntoTheLastOne() {
+        start(true, 1000);
+        cellWriteBuffer.write(TABLE, List.of(cell(FIRST_COLUMN, "a")));
+        cellWriteBuffer.write(TABLE, List.of(cell(SECOND_COLUMN, "b")));
+        cellWriteBuffer.write(TABLE, List.of(cell(FIRST_COLUMN, "c")));
+        verify(cellDAO, never()).updateCells(anyList());
+
+        cellWriteBuffer.flush(TABLE);
+
+        assertThat(writtenBatches(1).getFirst())
+                .containsExactly(cell(FIRST_COLUMN, "c"), cell(SECOND_COLUMN, "b"));
+        assertThat(meterRegistry.get("tabula.cells.buffer.edits").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("tabula.cells.buffer.writes").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void aFullLogIsFlushed() {
+        start(true, 2);
+        cellWriteBuffer.write(TABLE, List.of(cell(FIRST_COLUMN, "a")));
+        verify(cellDAO, never()).updateCells(anyList());
+
+        cellWriteBuffer.write(TABLE, List.of(cell(SECOND_COLUMN, "b")));
+
+        assertThat(writtenBatches(1).getFirst()).hasSize(2);
+        assertThat(meterRegistry.get("tabula.cells.buffer.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void editsOfDeletedCellsAreDropped() {
+        start(true, 1000);
+        Cell deleted = cell(FIRST_COLUMN, "a");
+        Cell kept = cell(SECOND_COLUMN, "b");
+        doThrow(DataIntegrityViolationException.class).when(cellDAO).updateCells(List.of(deleted, kept));
+        doThrow(DataIntegrityViolationException.class).when(cellDAO).updateCells(List.of(deleted));
+        cellWriteBuffer.write(TABLE, List.of(deleted, kept));
+
+        cellWriteBuffer.flush(TABLE);
+
+        verify(cellDAO).updateCells(List.of(kept));
+        assertThat(meterRegistry.get("tabula.cells.buffer.writes").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void editsOfAFailedFlushAreRetried() {
+        start(true, 1000);
+        Cell first = cell(FIRST_COLUMN, "a");
+        doThrow(QueryTimeoutException.class).when(cellDAO).updateCells(List.of(first));
+        cellWriteBuffer.write(TABLE, List.of(first));
+
+        assertThatThrownBy(() -> cellWriteBuffer.flush(TABLE)).isInstanceOf(QueryTimeoutException.class);
+        assertThat(meterRegistry.get("tabula.cells.buffer.pending").gauge().value()).isEqualTo(1);
+
+        doNothing().when(cellDAO).updateCells(anyList());
+        cellWriteBuffer.flush(TABLE);
+
+        verify(cellDAO, times(2)).updateCells(List.of(first));
+        assertThat(meterRegistry.get("tabula.cells.buffer.pending").gauge().value()).isZero();
+    }
+
+    /**
+     * Completes the transaction whose synchronization is active, as the transaction manager does
+     */
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    @Test
+    void editsGoBackToTheLogWhenTheCallersTransactionRollsBack() {
+        start(true, 1000);
+        Cell first = cell(FIRST_COLUMN, "a");
+        cellWriteBuffer.write(TABLE, List.of(first));
+
+        TransactionSynchronizationManager.initSynchronization();
+        cellWriteBuffer.flush(TABLE);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(meterRegistry.get("tabula.cells.buffer.pending").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("tabula.cells.buffer.writes").counter().count()).isZero();
+
+        cellWriteBuffer.flush(TABLE);
+
+        verify(cellDAO, times(2)).updateCells(List.of(first));
+    }
+
+    @Test
+    void editsOfARolledBackTransactionAreNeverWritten() {
+        start(true, 1000);
+        Cell committed = cell(FIRST_COLUMN, "a");
+        cellWriteBuffer.write(TABLE, List.of(committed));
+
+        TransactionSynchronizationManager.initSynchronization();
+        cellWriteBuffer.write(TABLE, List.of(cell(FIRST_COLUMN, "b"), cell(SECOND_COLUMN, "c")));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        cellWriteBuffer.flushAll();
+
+        assertThat(writtenBatches(1).getFirst()).containsExactly(committed);
+        assertThat(meterRegistry.get("tabula.cells.buffer.edits").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("tabula.cells.buffer.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void editsOfACommittedTransactionAreWritten() {
+        start(true, 1000);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cellWriteBuffer.write(TABLE, List.of(cell(FIRST_COLUMN, "a")));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        cellWriteBuffer.flushAll();
+
+        assertThat(writtenBatches(1).getFirst()).containsExactly(cell(FIRST_COLUMN, "a"));
+        assertThat(meterRegistry.get("tabula.cells.buffer.edits").counter().count()).isEqualTo(1);
+    }
+}
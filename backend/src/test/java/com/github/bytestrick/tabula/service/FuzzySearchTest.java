@@ -0,0 +1,85 @@
+package com.github.bytestrick.tabula.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FuzzySearchTest {
+
+    /**
+     * Full-matrix Levenshtein distance, the definition the kernel is checked against
+     */
+    private static int reference(String a, String b) {
+        a = a.toLowerCase();
+        b = b.toLowerCase();
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        String alphabet = "abcAB";
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    @Test
+    void levenshteinIsCaseInsensitive() {
+        assertThat(FuzzySearch.levenshtein("Kitten", "sITTING")).isEqualTo(3);
+        assertThat(FuzzySearch.levenshtein("TABULA", "tabula")).isZero();
+        assertThat(FuzzySearch.levenshtein("", "abc")).isEqualTo(3);
+    }
+
+    @Test
+    void matchesTheFullMatrixDistance() {
+        Random random = new Random(7);
+        for (int t = 0; t < 20_000; t++) {
+            String a = randomString(random, 12);
+            String b = randomString(random, 12);
+            int expected = reference(a, b);
+            int max = random.nextInt(8);
+
+            assertThat(FuzzySearch.levenshtein(a, b)).isEqualTo(expected);
+            assertThat(FuzzySearch.levenshtein(a, b, max)).isEqualTo(expected <= max);
+        }
+    }
+
+    @Test
+    void boundedSimilarityAgreesAboveTheThreshold() {
+        Random random = new Random(11);
+        for (int t = 0; t < 20_000; t++) {
+            String a = randomString(random, 12);
+            String b = randomString(random, 12);
+            if (a.isEmpty() && b.isEmpty()) continue;
+            float threshold = random.nextFloat() * 1.2f;
+            float expected = FuzzySearch.similarity(a, b);
+            float actual = FuzzySearch.similarity(a, b, threshold);
+
+            if (expected >= threshold) {
+                assertThat(actual).isEqualTo(expected);
+            } else {
+                assertThat(actual).isLessThan(threshold);
+            }
+        }
+    }
+
+    @Test
+    void reusesTheBufferAcrossLengths() {
+        String longer = "a".repeat(500) + "b";
+        assertThat(FuzzySearch.levenshtein(longer, "a".repeat(500))).isEqualTo(1);
+        assertThat(FuzzySearch.levenshtein("ab", "ba")).isEqualTo(2);
+    }
+}
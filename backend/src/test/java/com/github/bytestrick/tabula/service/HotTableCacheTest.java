@@ -0,0 +1,91 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.model.table.CompactTable;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HotTableCacheTest {
+
+    private static CompactTable content(UUID tableId, String value) {
+        return CompactTable.builder(tableId)
+                .column(UUID.randomUUID(), 1, "column")
+                .row(UUID.randomUUID())
+                .value(0, 0, value)
+                .build();
+    }
+
+    @Test
+    void contentIsServedOnlyAtItsVersion() {
+        HotTableCache cache = new HotTableCache(DataSize.ofMegabytes(1));
+        UUID tableId = UUID.randomUUID();
+        CompactTable content = content(tableId, "a");
+
+        cache.put(tableId, 3, content);
+
+        assertThat(cache.get(tableId, 3)).isSameAs(content);
+        assertThat(cache.get(tableId, 4)).isNull();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void changesAreWrittenThroughOnlyOnThePreviousVersion() {
+        HotTableCache cache = new HotTableCache(DataSize.ofMegabytes(1));
+        UUID tableId = UUID.randomUUID();
+        CompactTable changed = content(tableId, "b");
+        cache.put(tableId, 3, content(tableId, "a"));
+
+        cache.update(tableId, 4, content -> changed);
+        assertThat(cache.get(tableId, 4)).isSameAs(changed);
+
+        // a change of version 5 was missed, the content of version 4 cannot become the one of version 6
+        cache.update(tableId, 6, content -> content);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void contentThatCannotBeChangedIsEvicted() {
+        HotTableCache cache = new HotTableCache(DataSize.ofMegabytes(1));
+        UUID tableId = UUID.randomUUID();
+        cache.put(tableId, 3, content(tableId, "a"));
+
+        cache.update(tableId, 4, content -> {
+            throw new IllegalStateException("Unknown row");
+        });
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getWeight()).isZero();
+    }
+
+    @Test
+    void leastRecentlyUsedTablesAreEvictedBeyondTheMaxWeight() {
+        UUID first = UUID.randomUUID(), second = UUID.randomUUID(), third = UUID.randomUUID();
+        long weight = content(first, "a").getEstimatedBytes();
+        HotTableCache cache = new HotTableCache(DataSize.ofBytes(2 * weight));
+
+        cache.put(first, 1, content(first, "a"));
+        cache.put(second, 1, content(second, "a"));
+        cache.get(first, 1);
+        cache.put(third, 1, content(third, "a"));
+
+        assertThat(cache.get(first, 1)).isNotNull();
+        assertThat(cache.get(second, 1)).isNull();
+        assertThat(cache.get(third, 1)).isNotNull();
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.getWeight()).isEqualTo(2 * weight);
+    }
+
+    @Test
+    void tablesHeavierThanTheMaxWeightAreNotCached() {
+        UUID tableId = UUID.randomUUID();
+        HotTableCache cache = new HotTableCache(DataSize.ofBytes(content(tableId, "a").getEstimatedBytes()));
+
+        cache.put(tableId, 1, content(tableId, "a longer value"));
+
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -30,6 +30,8 @@ import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -106,6 +108,19 @@ public class JwtProviderTest {
                 .hasMessageContaining("Token not enabled yet");
     }
 
+    @Test
+    void verifyDoesNotQueryTheDatabaseForForgedOrNeverRevokedTokens() throws JOSEException {
+        String token = jwtProvider.create(Map.of(), EMAIL, Duration.ZERO, Duration.ofMinutes(1));
+        String forged = token.substring(0, token.lastIndexOf('.') + 1) + "c2lnbmF0dXJl";
+
+        assertThatThrownBy(() -> jwtProvider.verify(forged))
+                .isInstanceOf(InvalidJwtException.class)
+                .hasMessage("Could not verify token");
+        assertThat(jwtProvider.verify(token)).isEqualTo(EMAIL);
+
+        verify(invalidJwtDao, never()).exists(anyString());
+    }
+
     @Test
     void invalidateBlacklistsATokenSoThatAllSubsequentValidationsAttemptsFail() throws Exception {
         String token = jwtProvider.create(Map.of(), EMAIL, Duration.ZERO, Duration.ofDays(365));
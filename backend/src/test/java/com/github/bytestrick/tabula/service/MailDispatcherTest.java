@@ -0,0 +1,72 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.model.OutboxMail;
+import com.github.bytestrick.tabula.repository.MailOutboxDao;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class MailDispatcherTest {
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(30);
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final MailOutboxDao mailOutboxDao = mock(MailOutboxDao.class);
+    private MailDispatcher mailDispatcher;
+
+    private void start(int smtpPort) {
+        JavaMailSenderImpl javaMailSender = new JavaMailSenderImpl();
+        javaMailSender.setHost("localhost");
+        javaMailSender.setPort(smtpPort);
+        mailDispatcher = new MailDispatcher(javaMailSender, mailOutboxDao, 10, 1, 5, 3, RETRY_BACKOFF,
+                Duration.ofHours(1));
+        mailDispatcher.start();
+    }
+
+    @AfterEach
+    void stop() {
+        mailDispatcher.stop();
+    }
+
+    @Test
+    void enqueuedMailsAreSentAndRemovedFromTheOutbox() throws Exception {
+        start(ServerSetupTest.SMTP.getPort());
+        mailDispatcher.enqueue("first@example.com", "first subject", "first text");
+        mailDispatcher.enqueue("second@example.com", "second subject", "second text");
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 2)).isTrue();
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received[0].getSubject()).isEqualTo("first subject");
+        assertThat(received[1].getSubject()).isEqualTo("second subject");
+
+        verify(mailOutboxDao, times(2)).save(any(OutboxMail.class), eq(RETRY_BACKOFF));
+        verify(mailOutboxDao, timeout(5000).atLeastOnce()).delete(anyCollection());
+    }
+
+    @Test
+    void mailsThatCannotBeSentAreRescheduled() {
+        start(1); // nothing listens there
+        mailDispatcher.enqueue("test@example.com", "subject", "text");
+
+        verify(mailOutboxDao, timeout(5000)).reschedule(any(UUID.class), eq(1), eq(RETRY_BACKOFF));
+        verify(mailOutboxDao, never()).delete(anyCollection());
+    }
+}
@@ -6,17 +6,15 @@ import com.github.bytestrick.tabula.repository.UserDao;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.time.LocalDateTime;
-import java.util.Objects;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
-import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -24,7 +22,7 @@ import static org.mockito.Mockito.when;
 public class OtpProviderTest {
     private static final String EMAIL = "test@example.com";
     @MockitoBean
-    private JavaMailSender javaMailSender;
+    private MailDispatcher mailDispatcher;
 
     @MockitoBean
     private UserDao userDao;
@@ -40,9 +38,7 @@ public class OtpProviderTest {
         assertThat(user.getOtp()).isNotNull().hasSize(6);
         assertThat(user.getOtpExpiration()).isNotNull();
 
-        verify(javaMailSender).send(argThat((SimpleMailMessage email) ->
-                Objects.requireNonNull(email.getTo())[0].equals(user.getEmail())
-                        && Objects.requireNonNull(email.getSubject()).contains("this is a reason")));
+        verify(mailDispatcher).enqueue(eq(user.getEmail()), contains("this is a reason"), contains(user.getOtp()));
     }
 
     @Test
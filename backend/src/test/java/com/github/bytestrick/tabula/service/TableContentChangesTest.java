@@ -0,0 +1,123 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.model.table.Cell;
+import com.github.bytestrick.tabula.model.table.CompactTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TableContentChangesTest {
+    private static final UUID tableId = UUID.randomUUID();
+    private final List<UUID> columnIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+    private final List<UUID> rowIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+
+    /**
+     * A 2 x 3 table whose cells hold their row and column index, e.g. "12"
+     */
+    private CompactTable content() {
+        CompactTable.Builder builder = CompactTable.builder(tableId);
+        for (int j = 0; j < columnIds.size(); ++j)
+            builder.column(columnIds.get(j), 1, "c" + j);
+
+        rowIds.forEach(builder::row);
+        for (int i = 0; i < rowIds.size(); ++i) {
+            for (int j = 0; j < columnIds.size(); ++j)
+                builder.value(i, j, "" + i + j);
+        }
+        return builder.build();
+    }
+
+    private static List<List<String>> values(CompactTable table) {
+        List<List<String>> values = new ArrayList<>();
+        for (int i = 0; i < table.getRowsNumber(); ++i) {
+            int row = i;
+            values.add(IntStream.range(0, table.getColumnsNumber()).mapToObj(j -> table.getValue(row, j)).toList());
+        }
+        return values;
+    }
+
+    private static List<UUID> header(CompactTable table) {
+        return IntStream.range(0, table.getColumnsNumber()).mapToObj(table::getColumnId).toList();
+    }
+
+    @Test
+    void cellsAreSetWithoutTouchingTheOriginal() {
+        CompactTable original = content();
+
+        CompactTable changed = TableContentChanges.setCells(original, List.of(
+                new Cell(null, columnIds.get(1), rowIds.get(0), "x"),
+                new Cell(null, columnIds.get(2), rowIds.get(1), null)));
+
+        assertThat(values(changed)).containsExactly(List.of("00", "x", "02"), List.of("10", "11", ""));
+        assertThat(values(original)).containsExactly(List.of("00", "01", "02"), List.of("10", "11", "12"));
+    }
+
+    @Test
+    void rowsAreInsertedAndDuplicated() {
+        UUID newRowId = UUID.randomUUID(), copyId = UUID.randomUUID();
+
+        CompactTable changed = TableContentChanges.insertRows(content(), 1, List.of(newRowId),
+                List.of(List.of("new")));
+        changed = TableContentChanges.duplicateRow(changed, 0, copyId);
+
+        assertThat(IntStream.range(0, changed.getRowsNumber()).mapToObj(changed::getRowId))
+                .containsExactly(copyId, rowIds.get(0), newRowId, rowIds.get(1));
+        assertThat(values(changed)).containsExactly(List.of("00", "01", "02"), List.of("00", "01", "02"),
+                List.of("new", "", ""), List.of("10", "11", "12"));
+    }
+
+    @Test
+    void columnsAreInserted() {
+        UUID newColumnId = UUID.randomUUID();
+
+        CompactTable changed = TableContentChanges.insertColumns(content(), 1, List.of(newColumnId), 2,
+                List.of(List.of("new")));
+
+        assertThat(header(changed)).containsExactly(columnIds.get(0), newColumnId, columnIds.get(1), columnIds.get(2));
+        assertThat(changed.getDataType(1)).isEqualTo(2);
+        assertThat(changed.getColumnName(1)).isNull();
+        assertThat(values(changed)).containsExactly(List.of("00", "new", "01", "02"), List.of("10", "", "11", "12"));
+    }
+
+    @Test
+    void columnsAreMovedLikeTheirOrderingKeys() {
+        CompactTable changed = TableContentChanges.moveColumns(content(), List.of(0), 2);
+
+        assertThat(changed.getColumnName(0)).isEqualTo("c1");
+        assertThat(changed.getColumnName(2)).isEqualTo("c0");
+        assertThat(values(changed)).containsExactly(List.of("01", "02", "00"), List.of("11", "12", "10"));
+    }
+
+    @Test
+    void aNewDataTypeEmptiesTheColumn() {
+        CompactTable changed = TableContentChanges.patchColumn(content(), columnIds.get(1), null, 3);
+
+        assertThat(changed.getDataType(1)).isEqualTo(3);
+        assertThat(changed.getColumnName(1)).isEqualTo("c1");
+        assertThat(values(changed)).containsExactly(List.of("00", "", "02"), List.of("10", "", "12"));
+    }
+
+    @Test
+    void rowsAndColumnsAreDeleted() {
+        CompactTable changed = TableContentChanges.deleteRows(content(), List.of(rowIds.get(0)));
+        changed = TableContentChanges.deleteColumns(changed, List.of(columnIds.get(0), columnIds.get(2)));
+
+        assertThat(header(changed)).containsExactly(columnIds.get(1));
+        assertThat(values(changed)).containsExactly(List.of("11"));
+    }
+
+    @Test
+    void changesOfUnknownRowsAreRejected() {
+        assertThatThrownBy(() -> TableContentChanges.deleteRows(content(), List.of(UUID.randomUUID())))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> TableContentChanges.setCells(content(),
+                List.of(new Cell(null, columnIds.get(0), UUID.randomUUID(), "x"))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.bytestrick.tabula.service;
+
+import com.github.bytestrick.tabula.repository.InvalidJwtDao;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VerifiedJwtCacheTest {
+    private static final Instant EXPIRATION = Instant.now().plus(Duration.ofDays(1));
+
+    private final VerifiedJwtCache cache = cache(3);
+
+    private static VerifiedJwtCache cache(int maxSize) {
+        InvalidJwtDao invalidJwtDao = mock(InvalidJwtDao.class);
+        when(invalidJwtDao.findNotExpired()).thenReturn(List.of());
+        return new VerifiedJwtCache(new RevokedJwtCache(invalidJwtDao), Duration.ofMinutes(5), maxSize);
+    }
+
+    private static UserDetails user(String email) {
+        return User.withUsername(email).password("password").build();
+    }
+
+    @Test
+    void verifiedTokensAreServedUntilTheyExpire() {
+        cache.put("a", user("a@example.com"), EXPIRATION);
+        cache.put("b", user("b@example.com"), Instant.now().minusSeconds(1));
+
+        assertThat(cache.get("a").getUsername()).isEqualTo("a@example.com");
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isNull();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void theTokensUsedSinceTheLastSweepAreKept() {
+        cache.put("a", user("a@example.com"), EXPIRATION);
+        cache.put("b", user("b@example.com"), EXPIRATION);
+        cache.put("c", user("c@example.com"), EXPIRATION);
+        cache.get("a");
+
+        cache.put("d", user("d@example.com"), EXPIRATION);
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("d")).isNotNull();
+    }
+
+    @Test
+    void theSizeStaysBoundedUnderChurn() {
+        for (int i = 0; i < 100; ++i) {
+            cache.put("token " + i, user(i + "@example.com"), EXPIRATION);
+            cache.evict("token " + (i - 1));
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(3);
+        assertThat(cache.get("token 99")).isNotNull();
+    }
+
+    @Test
+    void onlyTheTokensOfTheEvictedSubjectAreDropped() {
+        cache.put("a1", user("a@example.com"), EXPIRATION);
+        cache.put("a2", user("a@example.com"), EXPIRATION);
+        cache.put("b", user("b@example.com"), EXPIRATION);
+
+        cache.evictSubject("a@example.com");
+
+        assertThat(cache.get("a1")).isNull();
+        assertThat(cache.get("a2")).isNull();
+        assertThat(cache.get("b")).isNotNull();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,163 @@
+-- Compares the cost of adding rows and columns with the three cell storage strategies the schema went through:
+-- sparse cells (the current schema.sql, no cell records are created), statement-level triggers materializing
+-- every empty cell with one INSERT ... SELECT, and the original FOR EACH ROW triggers inserting one cell at a time.
+-- Each is run on a tall table (50000 rows, then one more column) and on a wide table (500 columns, then 1000 rows).
+-- Everything runs in one transaction that is rolled back, so the database is left untouched.
+--
+-- usage (from the database directory): psql -U <user> -d tabula -f benchmarks/cell_storage.sql
+
+\timing on
+\set ON_ERROR_STOP on
+
+BEGIN;
+
+INSERT INTO users (id, email, encoded_password, roles, name, surname,
+                   country_name, country_flag, country_code, country_dial_code)
+VALUES ('00000000-0000-0000-0000-000000000001', 'benchmark@tabula.invalid', '', 'USER', 'Bench', 'Mark',
+        'Italy', '', 'IT', 39);
+
+INSERT INTO tbl_table (id, user_id)
+VALUES ('00000000-0000-0000-0000-00000000000a', '00000000-0000-0000-0000-000000000001'),
+       ('00000000-0000-0000-0000-00000000000b', '00000000-0000-0000-0000-000000000001'),
+       ('00000000-0000-0000-0000-00000000000c', '00000000-0000-0000-0000-000000000001'),
+       ('00000000-0000-0000-0000-00000000000d', '00000000-0000-0000-0000-000000000001'),
+       ('00000000-0000-0000-0000-00000000000e', '00000000-0000-0000-0000-000000000001'),
+       ('00000000-0000-0000-0000-00000000000f', '00000000-0000-0000-0000-000000000001');
+
+
+\echo '== sparse cells =='
+
+\echo 'tall: 20 columns, 50000 rows, then one more column'
+INSERT INTO tbl_column (id, tbl_table, data_type, column_order)
+SELECT gen_random_uuid(), '00000000-0000-0000-0000-00000000000a', 1, (i + 1) * 65536 FROM generate_series(0, 19) AS g(i);
+INSERT INTO tbl_row (id, tbl_table, row_order)
+SELECT gen_random_uuid(), '00000000-0000-0000-0000-00000000000a', (i + 1) * 65536 FROM generate_series(0, 49999) AS g(i);
+INSERT INTO tbl_column (id, tbl_table, data_type, column_order)
+VALUES (gen_random_uuid(), '00000000-0000-0000-0000-00000000000a', 1, 21 * 65536);
+
+\echo 'wide: 500 columns, then 1000 rows'
+INSERT INTO tbl_column (id, tbl_table, data_type, column_order)
+SELECT gen_random_uuid(), '00000000-0000-0000-0000-00000000000b', 1, (i + 1) * 65536 FROM generate_series(0, 499) AS g(i);
+INSERT INTO tbl_row (id, tbl_table, row_order)
+SELECT gen_random_uuid(), '00000000-0000-0000-0000-00000000000b', (i + 1) * 65536 FROM generate_series(0, 999) AS g(i);
+
+
+-- statement-level triggers materializing the empty cells, recreated for comparison only
+CREATE FUNCTION statement_create_cells_on_new_row_insertion()
+    RETURNS trigger AS
+$$
+BEGIN
+    INSERT INTO cell (id, tbl_row, tbl_column, value)
+    SELECT gen_random_uuid(), new_rows.id, tbl_column.id, ''
+    FROM new_rows
+             JOIN tbl_column ON tbl_column.tbl_table = new_rows.tbl_table;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION statement_create_cells_on_new_column_insertion()
+    RETURNS trigger AS
+$$
+BEGIN
+    INSERT INTO cell (id, tbl_row, tbl_column, value)
+    SELECT gen_random_uuid(), tbl_row.id, new_columns.id, ''
+    FROM new_columns
+             JOIN tbl_row ON tbl_row.tbl_table = new_columns.tbl_table;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER benchmark_after_row_insertion AFTER INSERT ON tbl_row
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION statement_create_cells_on_new_row_insertion();
+
+CREATE TRIGGER benchmark_after_column_insertion AFTER INSERT ON tbl_column
+    REFERENCING NEW TABLE AS new_columns
+    FOR EACH STATEMENT EXECUTE FUNCTION statement_create_cells_on_new_column_insertion();
+
+
+\echo '== statement-level triggers =='
+
+\echo 'tall: 20 columns, 50000 rows, then one more column'
+INSERT INTO tbl_column (id, tbl_table, data_type, column_order)
+SELECT gen_random_uuid(), '00000000-0000-0000-0000-00000000000c', 1, (i + 1) * 65536 FROM generate_series(0, 19) AS g(i);
+INSERT INTO tbl_row (id, tbl_table, row_order)
+SELECT gen_random_uuid(), '00000000-0000-0000-0000-00000000000c', (i + 1) * 65536 FROM generate_series(0, 49999) AS g(i);
+INSERT INTO tbl_column (id, tbl_table, data_type, column_order)
+VALUES (gen_random_uuid(), '00000000-0000-0000-0000-00000000000c', 1, 21 * 65536);
+
+\echo 'wide: 500 columns, then 1000 rows'
+INSERT INTO tbl_column (id, tbl_table, data_type, column_order)
+SELECT gen_random_uuid(), '00000000-0000-0000-0000-00000000000d', 1, (i + 1) * 65536 FROM generate_series(0, 499) AS g(i);
+INSERT INTO tbl_row (id, tbl_table, row_order)
+SELECT gen_random_uuid(), '00000000-0000-0000-0000-00000000000d', (i + 1) * 65536 FROM generate_series(0, 999) AS g(i);
+
+
+-- the original per-row triggers, recreated for comparison only
+CREATE FUNCTION legacy_create_cells_on_new_row_insertion()
+    RETURNS trigger AS
+$$
+DECLARE
+    rec tbl_column%ROWTYPE;
+BEGIN
+    FOR rec IN SELECT * FROM tbl_column WHERE tbl_table = NEW.tbl_table
+    LOOP
+        INSERT INTO cell (id, tbl_row, tbl_column, value) VALUES (uuid_generate_v4(), NEW.id, rec.id, '');
+    END LOOP;
+
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION legacy_create_cells_on_new_column_insertion()
+    RETURNS trigger AS
+$$
+DECLARE
+    rec tbl_row%ROWTYPE;
+BEGIN
+    FOR rec IN SELECT * FROM tbl_row WHERE tbl_table = NEW.tbl_table
+    LOOP
+        INSERT INTO cell (id, tbl_row, tbl_column, value) VALUES (uuid_generate_v4(), rec.id, NEW.id, '');
+    END LOOP;
+
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER benchmark_after_row_insertion ON tbl_row;
+CREATE TRIGGER benchmark_after_row_insertion AFTER INSERT ON tbl_row
+    FOR EACH ROW EXECUTE FUNCTION legacy_create_cells_on_new_row_insertion();
+
+DROP TRIGGER benchmark_after_column_insertion ON tbl_column;
+CREATE TRIGGER benchmark_after_column_insertion AFTER INSERT ON tbl_column
+    FOR EACH ROW EXECUTE FUNCTION legacy_create_cells_on_new_column_insertion();
+
+
+\echo '== per-row triggers =='
+
+\echo 'tall: 20 columns, 50000 rows, then one more column'
+INSERT INTO tbl_column (id, tbl_table, data_type, column_order)
+SELECT gen_random_uuid(), '00000000-0000-0000-0000-00000000000e', 1, (i + 1) * 65536 FROM generate_series(0, 19) AS g(i);
+INSERT INTO tbl_row (id, tbl_table, row_order)
+SELECT gen_random_uuid(), '00000000-0000-0000-0000-00000000000e', (i + 1) * 65536 FROM generate_series(0, 49999) AS g(i);
+INSERT INTO tbl_column (id, tbl_table, data_type, column_order)
+VALUES (gen_random_uuid(), '00000000-0000-0000-0000-00000000000e', 1, 21 * 65536);
+
+\echo 'wide: 500 columns, then 1000 rows'
+INSERT INTO tbl_column (id, tbl_table, data_type, column_order)
+SELECT gen_random_uuid(), '00000000-0000-0000-0000-00000000000f', 1, (i + 1) * 65536 FROM generate_series(0, 499) AS g(i);
+INSERT INTO tbl_row (id, tbl_table, row_order)
+SELECT gen_random_uuid(), '00000000-0000-0000-0000-00000000000f', (i + 1) * 65536 FROM generate_series(0, 999) AS g(i);
+
+
+\echo 'cell records created by each strategy (none for sparse cells)'
+SELECT tbl_row.tbl_table, count(*) AS cells
+FROM cell
+         JOIN tbl_row ON tbl_row.id = cell.tbl_row
+WHERE tbl_row.tbl_table IN ('00000000-0000-0000-0000-00000000000a', '00000000-0000-0000-0000-00000000000b', '00000000-0000-0000-0000-00000000000c', '00000000-0000-0000-0000-00000000000d', '00000000-0000-0000-0000-00000000000e', '00000000-0000-0000-0000-00000000000f')
+GROUP BY tbl_row.tbl_table
+ORDER BY tbl_row.tbl_table;
+
+ROLLBACK;
@@ -0,0 +1,49 @@
+-- Replaces the FOR EACH ROW cell-creation triggers with the statement-level ones of schema.sql
+-- on an existing database. Safe to run more than once.
+
+BEGIN;
+
+CREATE OR REPLACE FUNCTION create_cells_on_new_row_insertion()
+    RETURNS trigger AS
+$$
+BEGIN
+    INSERT INTO cell (id, tbl_row, tbl_column, value)
+    SELECT gen_random_uuid(), new_rows.id, tbl_column.id, ''
+    FROM new_rows
+             JOIN tbl_column ON tbl_column.tbl_table = new_rows.tbl_table;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+
+DROP TRIGGER IF EXISTS after_row_insertion ON tbl_row;
+CREATE TRIGGER after_row_insertion
+AFTER INSERT ON tbl_row
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT
+EXECUTE FUNCTION create_cells_on_new_row_insertion();
+
+
+CREATE OR REPLACE FUNCTION create_cells_on_new_column_insertion()
+    RETURNS trigger AS
+$$
+BEGIN
+    INSERT INTO cell (id, tbl_row, tbl_column, value)
+    SELECT gen_random_uuid(), tbl_row.id, new_columns.id, ''
+    FROM new_columns
+             JOIN tbl_row ON tbl_row.tbl_table = new_columns.tbl_table;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+
+DROP TRIGGER IF EXISTS after_column_insertion ON tbl_column;
+CREATE TRIGGER after_column_insertion
+AFTER INSERT ON tbl_column
+REFERENCING NEW TABLE AS new_columns
+FOR EACH STATEMENT
+EXECUTE FUNCTION create_cells_on_new_column_insertion();
+
+COMMIT;
@@ -0,0 +1,15 @@
+-- Switches an existing database to sparse cell storage: empty cells are no longer materialized.
+-- Drops the cell-creation triggers and removes the records of the empty cells. Safe to run more than once.
+
+BEGIN;
+
+DROP TRIGGER IF EXISTS after_row_insertion ON tbl_row;
+DROP TRIGGER IF EXISTS after_column_insertion ON tbl_column;
+DROP FUNCTION IF EXISTS create_cells_on_new_row_insertion();
+DROP FUNCTION IF EXISTS create_cells_on_new_column_insertion();
+
+DELETE FROM cell WHERE value = '';
+
+COMMIT;
+
+VACUUM (ANALYZE) cell;
@@ -0,0 +1,23 @@
+-- Replaces the dense row_index and column_index with sparse ordering keys, row_order and column_order.
+-- Existing rows and columns keep their order, with keys 65536 apart. The zero-based indexes are now derived when read.
+
+BEGIN;
+
+ALTER TABLE tbl_row ADD COLUMN row_order BIGINT;
+UPDATE tbl_row SET row_order = (row_index + 1) * 65536::BIGINT;
+ALTER TABLE tbl_row ALTER COLUMN row_order SET NOT NULL;
+ALTER TABLE tbl_row DROP COLUMN row_index;
+ALTER TABLE tbl_row ADD UNIQUE (row_order, tbl_table) DEFERRABLE INITIALLY DEFERRED;
+CREATE INDEX tbl_row_table_index ON tbl_row (tbl_table, row_order);
+
+ALTER TABLE tbl_column ADD COLUMN column_order BIGINT;
+UPDATE tbl_column SET column_order = (column_index + 1) * 65536::BIGINT;
+ALTER TABLE tbl_column ALTER COLUMN column_order SET NOT NULL;
+ALTER TABLE tbl_column DROP COLUMN column_index;
+ALTER TABLE tbl_column ADD UNIQUE (column_order, tbl_table) DEFERRABLE INITIALLY DEFERRED;
+CREATE INDEX tbl_column_table_index ON tbl_column (tbl_table, column_order);
+
+COMMIT;
+
+ANALYZE tbl_row;
+ANALYZE tbl_column;
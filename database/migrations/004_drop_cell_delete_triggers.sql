@@ -0,0 +1,14 @@
+-- Drops the triggers deleting the cells of a deleted row or column: the ON DELETE CASCADE foreign keys of cell
+-- already remove them, the triggers only repeated the work once per deleted row or column.
+-- Adds the index on cell (tbl_column) used by the cascade when columns are deleted. Safe to run more than once.
+
+BEGIN;
+
+DROP TRIGGER IF EXISTS onDeleteColumn ON tbl_column;
+DROP TRIGGER IF EXISTS on_delete_row ON tbl_row;
+DROP FUNCTION IF EXISTS delete_column_cells_on_column_delete();
+DROP FUNCTION IF EXISTS delete_row_cells_on_row_delete();
+
+CREATE INDEX IF NOT EXISTS cell_column_index ON cell (tbl_column);
+
+COMMIT;
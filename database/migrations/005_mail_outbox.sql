@@ -0,0 +1,17 @@
+-- Adds the outbox of the mails sent asynchronously by the backend.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS mail_outbox
+(
+    id           UUID PRIMARY KEY,
+    recipient    VARCHAR(512)  NOT NULL,
+    subject      VARCHAR(200)  NOT NULL,
+    text         VARCHAR(2000) NOT NULL,
+    attempts     INT           NOT NULL DEFAULT 0,
+    next_attempt TIMESTAMP     NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS mail_outbox_next_attempt_index ON mail_outbox (next_attempt);
+
+COMMIT;
@@ -0,0 +1,8 @@
+-- Adds the trigram index used by the fuzzy search of the tables by title.
+-- The pg_trgm extension ships with the PostgreSQL contrib modules.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS tbl_table_title_trgm_index ON tbl_table USING GIN (title gin_trgm_ops);
+
+ANALYZE tbl_table;
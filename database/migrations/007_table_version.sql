@@ -0,0 +1,10 @@
+-- Adds the version of the tables, bumped by the backend on every change of a table or of its content
+-- and served as the ETag of the table content, and the index of the pages of the tables of a user.
+
+BEGIN;
+
+ALTER TABLE tbl_table ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+CREATE INDEX IF NOT EXISTS tbl_table_user_index ON tbl_table (user_id, creation_date);
+
+COMMIT;
@@ -0,0 +1,46 @@
+-- Adds the typed copy of the values of the cells of Numeric and Monetary columns, written by the backend along with
+-- the value, the functions parsing them and the indexes serving the numeric operations on a column.
+-- The cells already stored are converted in bulk. Safe to run more than once.
+
+BEGIN;
+
+ALTER TABLE cell ADD COLUMN IF NOT EXISTS numeric_value NUMERIC;
+ALTER TABLE cell ADD COLUMN IF NOT EXISTS minor_units BIGINT;
+ALTER TABLE cell ADD COLUMN IF NOT EXISTS currency VARCHAR(1);
+
+CREATE OR REPLACE FUNCTION cell_numeric_value(value TEXT)
+    RETURNS NUMERIC AS
+$$
+    SELECT CASE WHEN value ~ '^[-+]?([0-9]+[.]?[0-9]*|[.][0-9]+)([eE][-+]?[0-9]{1,3})?$' THEN value::NUMERIC END
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION cell_minor_units(value TEXT)
+    RETURNS BIGINT AS
+$$
+    SELECT CASE WHEN value ~ '^[^-+.0-9]?[-+]?[0-9]{1,16}([.][0-9]{1,2})?$'
+                THEN (regexp_replace(value, '^[^-+.0-9]', '')::NUMERIC * 100)::BIGINT END
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION cell_currency(value TEXT)
+    RETURNS VARCHAR AS
+$$
+    SELECT CASE WHEN cell_minor_units(value) IS NOT NULL THEN substring(value FROM '^[^-+.0-9]') END
+$$ LANGUAGE sql IMMUTABLE;
+
+UPDATE cell c
+SET numeric_value = CASE dt.name WHEN 'Numeric' THEN cell_numeric_value(c.value) END,
+    minor_units   = CASE dt.name WHEN 'Monetary' THEN cell_minor_units(c.value) END,
+    currency      = CASE dt.name WHEN 'Monetary' THEN cell_currency(c.value) END
+FROM tbl_column mc
+INNER JOIN data_type dt ON dt.id = mc.data_type
+WHERE mc.id = c.tbl_column
+  AND dt.name IN ('Numeric', 'Monetary');
+
+CREATE INDEX IF NOT EXISTS cell_column_numeric_value_index
+    ON cell (tbl_column, numeric_value) WHERE numeric_value IS NOT NULL;
+CREATE INDEX IF NOT EXISTS cell_column_minor_units_index
+    ON cell (tbl_column, currency, minor_units) WHERE minor_units IS NOT NULL;
+
+COMMIT;
+
+ANALYZE cell;
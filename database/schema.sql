@@ -23,6 +23,19 @@ CREATE TABLE invalid_jwts
     expiration_date TIMESTAMP NOT NULL
 );
 
+-- mails waiting to be sent, removed once sent or given up on
+CREATE TABLE mail_outbox
+(
+    id           UUID PRIMARY KEY,
+    recipient    VARCHAR(512)  NOT NULL,
+    subject      VARCHAR(200)  NOT NULL,
+    text         VARCHAR(2000) NOT NULL,
+    attempts     INT           NOT NULL DEFAULT 0,
+    next_attempt TIMESTAMP     NOT NULL DEFAULT now()
+);
+
+CREATE INDEX mail_outbox_next_attempt_index ON mail_outbox (next_attempt);
+
 
 CREATE TABLE data_type
 (
@@ -45,23 +58,32 @@ CREATE TABLE tbl_table
     description    VARCHAR(500) DEFAULT ''                NOT NULL,
     creation_date  TIMESTAMP    DEFAULT now()             NOT NULL,
     last_edit_date TIMESTAMP    DEFAULT NULL,
+    -- bumped by every change of the table or of its content, see TableDAO#bumpVersionForUser
+    version        BIGINT       DEFAULT 0                 NOT NULL,
     user_id        UUID
         CONSTRAINT tbl_table_users__fk
             REFERENCES users ON DELETE CASCADE
 );
 
+-- serves the pages of the tables of a user, the most recent first
+CREATE INDEX tbl_table_user_index ON tbl_table (user_id, creation_date);
+
+-- serves the fuzzy search of the tables by title
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX tbl_table_title_trgm_index ON tbl_table USING GIN (title gin_trgm_ops);
+
 
 CREATE TABLE tbl_column
 (
     id              UUID PRIMARY KEY,
     tbl_table       UUID,
     data_type       SMALLINT,
-    column_index    INT NOT NULL,
+    column_order    BIGINT NOT NULL,
     column_name     VARCHAR(300),
 
     FOREIGN KEY (tbl_table) REFERENCES tbl_table (id) ON DELETE CASCADE,
     FOREIGN KEY (data_type) REFERENCES data_type (id),
-    UNIQUE(column_index, tbl_table) DEFERRABLE INITIALLY DEFERRED
+    UNIQUE(column_order, tbl_table) DEFERRABLE INITIALLY DEFERRED
 );
 
 
@@ -69,115 +91,63 @@ CREATE TABLE tbl_row
 (
     id UUID         PRIMARY KEY,
     tbl_table       UUID,
-    row_index       INT NOT NULL,
+    row_order       BIGINT NOT NULL,
 
     FOREIGN KEY (tbl_table) REFERENCES tbl_table (id) ON DELETE CASCADE,
-    UNIQUE(row_index, tbl_table) DEFERRABLE INITIALLY DEFERRED
+    UNIQUE(row_order, tbl_table) DEFERRABLE INITIALLY DEFERRED
 );
 
+-- rows and columns are ordered by sparse keys, their zero-based index is derived when read
+-- the unique constraints above lead with the ordering key, these serve the range scans of a table's rows and columns
+CREATE INDEX tbl_column_table_index ON tbl_column (tbl_table, column_order);
+CREATE INDEX tbl_row_table_index ON tbl_row (tbl_table, row_order);
+
 
+-- cells are stored sparsely: only non-empty cells have a record, a missing (row, column) pair is an empty cell
 CREATE TABLE cell
 (
     id              UUID PRIMARY KEY,
     tbl_row         UUID,
     tbl_column      UUID,
     value           VARCHAR(1000) NOT NULL DEFAULT '',
+    -- typed copy of the value in the cells of Numeric and Monetary columns, NULL when it does not parse
+    numeric_value   NUMERIC,
+    minor_units     BIGINT,
+    currency        VARCHAR(1),
 
     FOREIGN KEY (tbl_column) REFERENCES tbl_column(id) ON DELETE CASCADE,
     FOREIGN KEY (tbl_row) REFERENCES tbl_row(id) ON DELETE CASCADE,
     UNIQUE(tbl_row, tbl_column)
 );
 
-------------------------------------------------------------------------------------
-
-CREATE OR REPLACE FUNCTION delete_column_cells_on_column_delete()
-    RETURNS trigger AS
-$$
-BEGIN
-    DELETE FROM cell WHERE tbl_column = OLD.id;
-    RETURN OLD;
-END;
-$$ LANGUAGE plpgsql;
+-- the unique constraint above serves the lookups by row, this one the cascade and the lookups by column
+CREATE INDEX cell_column_index ON cell (tbl_column);
 
+-- sorting, filtering and aggregating the cells of a Numeric or Monetary column by their typed value
+CREATE INDEX cell_column_numeric_value_index ON cell (tbl_column, numeric_value) WHERE numeric_value IS NOT NULL;
+CREATE INDEX cell_column_minor_units_index ON cell (tbl_column, currency, minor_units) WHERE minor_units IS NOT NULL;
 
-DROP TRIGGER IF EXISTS onDeleteColumn ON tbl_column;
-CREATE TRIGGER onDeleteColumn
-    AFTER DELETE
-    ON tbl_column
-    FOR EACH ROW
-EXECUTE FUNCTION delete_column_cells_on_column_delete();
-
-
-CREATE OR REPLACE FUNCTION delete_row_cells_on_row_delete()
-    RETURNS trigger AS
+-- parse the values written by the frontend: numbers, like '-12.5' or '1e3', and amounts of money as a currency
+-- symbol and a number with up to two decimals, like '$12.50', kept in minor units (1250)
+CREATE OR REPLACE FUNCTION cell_numeric_value(value TEXT)
+    RETURNS NUMERIC AS
 $$
-BEGIN
-    DELETE FROM cell WHERE tbl_row = OLD.id;
-    RETURN OLD;
-END;
-$$ LANGUAGE plpgsql;
-
+    SELECT CASE WHEN value ~ '^[-+]?([0-9]+[.]?[0-9]*|[.][0-9]+)([eE][-+]?[0-9]{1,3})?$' THEN value::NUMERIC END
+$$ LANGUAGE sql IMMUTABLE;
 
-DROP TRIGGER IF EXISTS on_delete_row ON tbl_row;
-CREATE TRIGGER on_delete_row
-    AFTER DELETE
-    ON tbl_row
-    FOR EACH ROW
-EXECUTE FUNCTION delete_row_cells_on_row_delete();
-
-
-CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
-
-
-CREATE OR REPLACE FUNCTION create_cells_on_new_row_insertion()
-    RETURNS trigger AS
+CREATE OR REPLACE FUNCTION cell_minor_units(value TEXT)
+    RETURNS BIGINT AS
 $$
-DECLARE
-    rec tbl_column%ROWTYPE;
-BEGIN
-    FOR rec IN
-        SELECT *
-        FROM tbl_column
-        WHERE tbl_table = NEW.tbl_table
-    LOOP
-        INSERT INTO cell (id, tbl_row, tbl_column, value) VALUES (uuid_generate_v4(), NEW.id, rec.id, '');
-    END LOOP;
-
-    RETURN NEW;
-END;
-$$ LANGUAGE plpgsql;
-
+    SELECT CASE WHEN value ~ '^[^-+.0-9]?[-+]?[0-9]{1,16}([.][0-9]{1,2})?$'
+                THEN (regexp_replace(value, '^[^-+.0-9]', '')::NUMERIC * 100)::BIGINT END
+$$ LANGUAGE sql IMMUTABLE;
 
-DROP TRIGGER IF EXISTS after_row_insertion ON tbl_row;
-CREATE TRIGGER after_row_insertion
-AFTER INSERT ON tbl_row
-FOR EACH ROW
-EXECUTE FUNCTION create_cells_on_new_row_insertion();
-
-
-
-CREATE OR REPLACE FUNCTION create_cells_on_new_column_insertion()
-    RETURNS trigger AS
+CREATE OR REPLACE FUNCTION cell_currency(value TEXT)
+    RETURNS VARCHAR AS
 $$
-DECLARE
-    rec tbl_row%ROWTYPE;
-BEGIN
-    FOR rec IN
-        SELECT *
-        FROM tbl_row
-        WHERE tbl_table = NEW.tbl_table
-    LOOP
-        INSERT INTO cell (id, tbl_row, tbl_column, value) VALUES (uuid_generate_v4(), rec.id, NEW.id, '');
-    END LOOP;
-
-    RETURN NEW;
-END;
-$$ LANGUAGE plpgsql;
-
-
-DROP TRIGGER IF EXISTS after_column_insertion ON tbl_column;
-CREATE TRIGGER after_column_insertion
-AFTER INSERT ON tbl_column
-FOR EACH ROW
-EXECUTE FUNCTION create_cells_on_new_column_insertion();
+    SELECT CASE WHEN cell_minor_units(value) IS NOT NULL THEN substring(value FROM '^[^-+.0-9]') END
+$$ LANGUAGE sql IMMUTABLE;
 
+------------------------------------------------------------------------------------
+
+CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
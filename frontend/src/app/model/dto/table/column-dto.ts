@@ -118,3 +118,42 @@ export interface ColumnsDeleteDTO {
 export interface ColumnsDeletedDTO {
   indexes: number[]
 }
+
+/**
+ * Payload sent from the frontend to request creation of several columns of the same data type at once.
+ *
+ * @property dataTypeId
+ *   Numeric code (≥ 0) for the new columns' data type.
+ * @property columnIndex
+ *   Zero-based position at which to insert the first new column.
+ *   Set to `null` to append at the end.
+ * @property count
+ *   Number of columns to create (1 to 1000).
+ * @property cellsValues
+ *   Optional values of the new columns, one array per column in row order; `null` creates empty columns.
+ */
+export interface ColumnsCreateDTO {
+  dataTypeId: number,
+  columnIndex: number | null,
+  count: number,
+  cellsValues: string[][] | null
+}
+
+/**
+ * Response returned by the backend after successfully creating several columns.
+ *
+ * @property tableId
+ *   UUID of the table to which the new columns belong.
+ * @property dataTypeId
+ *   Numeric code identifying the columns' data type.
+ * @property columnIndex
+ *   Zero-based position of the first new column.
+ * @property ids
+ *   UUIDs of the new columns, in index order.
+ */
+export interface ColumnsCreatedDTO {
+  tableId: string,
+  dataTypeId: number,
+  columnIndex: number,
+  ids: string[]
+}
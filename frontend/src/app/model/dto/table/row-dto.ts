@@ -51,6 +51,39 @@ export interface RowCreatedDTO {
   cellsValues: string[]
 }
 
+/**
+ * Payload sent from the frontend to request creation of several rows at once.
+ *
+ * @property rowIndex
+ *   Zero-based position at which to insert the first new row.
+ *   Set to `null` to append at the end.
+ * @property count
+ *   Number of rows to create (1 to 10000).
+ * @property cellsValues
+ *   Optional values of the new rows, one array per row in column order; `null` creates empty rows.
+ */
+export interface RowsCreateDTO {
+  rowIndex: number | null,
+  count: number,
+  cellsValues: string[][] | null
+}
+
+/**
+ * Response returned by the backend after successfully creating several rows.
+ *
+ * @property tableId
+ *   UUID of the table to which the new rows belong.
+ * @property rowIndex
+ *   Zero-based position of the first new row.
+ * @property ids
+ *   UUIDs of the new rows, in index order.
+ */
+export interface RowsCreatedDTO {
+  tableId: string,
+  rowIndex: number,
+  ids: string[]
+}
+
 /**
  * Payload sent from the frontend to delete one or more rows.
  *
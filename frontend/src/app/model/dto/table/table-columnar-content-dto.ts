@@ -0,0 +1,26 @@
+import {ColumnDTO} from './column-dto';
+
+/**
+ * Media type of the columnar representation of a table's content.
+ * It is duplicated in the backend.
+ */
+export const TABLE_COLUMNAR_JSON: string = 'application/vnd.tabula.columnar+json';
+
+/**
+ * Compact representation of a full table fetched from the backend.
+ *
+ * @property id
+ *   UUID of the table.
+ * @property header
+ *   Array of {@link ColumnDTO} ordered by column index.
+ * @property rowIds
+ *   UUIDs of the rows ordered by row index.
+ * @property values
+ *   Cell values in row-major order: the value at row `r` and column `c` is `values[r * header.length + c]`.
+ */
+export interface TableColumnarContentDTO {
+  id: string,
+  header: ColumnDTO[],
+  rowIds: string[],
+  values: string[]
+}
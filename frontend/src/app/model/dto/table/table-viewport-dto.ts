@@ -0,0 +1,30 @@
+import {ColumnDTO} from './column-dto';
+import {RowDTO} from './row-dto';
+
+/**
+ * Represents a rectangular window of a table fetched from the backend.
+ *
+ * @property id
+ *   UUID of the table.
+ * @property rowsNumber
+ *   Total number of rows of the table.
+ * @property columnsNumber
+ *   Total number of columns of the table.
+ * @property fromRow
+ *   Zero-based index of the first row of the window.
+ * @property fromColumn
+ *   Zero-based index of the first column of the window.
+ * @property header
+ *   Array of {@link ColumnDTO} of the columns inside the window.
+ * @property content
+ *   Array of {@link RowDTO} of the rows inside the window, with only the cells inside the window.
+ */
+export interface TableViewportDTO {
+  id: string,
+  rowsNumber: number,
+  columnsNumber: number,
+  fromRow: number,
+  fromColumn: number,
+  header: ColumnDTO[],
+  content: RowDTO[]
+}
@@ -1,14 +1,25 @@
 import {inject, Injectable} from '@angular/core';
-import {HttpClient} from '@angular/common/http';
+import {HttpClient, HttpParams} from '@angular/common/http';
 import {Observable} from 'rxjs';
 import {Pair} from '../model/pair';
 import {TableContentDTO} from '../model/dto/table/table-content-dto';
-import {RowCreatedDTO, RowCreateDTO, RowsDeletedDTO, RowsDeleteDTO,} from '../model/dto/table/row-dto';
+import {TableViewportDTO} from '../model/dto/table/table-viewport-dto';
+import {TABLE_COLUMNAR_JSON, TableColumnarContentDTO} from '../model/dto/table/table-columnar-content-dto';
+import {
+  RowCreatedDTO,
+  RowCreateDTO,
+  RowsCreatedDTO,
+  RowsCreateDTO,
+  RowsDeletedDTO,
+  RowsDeleteDTO,
+} from '../model/dto/table/row-dto';
 import {
   ColumnCreatedDTO,
   ColumnCreateDTO,
   ColumnPatchDTO,
   ColumnPatchedDTO,
+  ColumnsCreatedDTO,
+  ColumnsCreateDTO,
   ColumnsDeletedDTO,
   ColumnsDeleteDTO,
 } from '../model/dto/table/column-dto';
@@ -55,6 +66,51 @@ export class TableApiService {
     return this.httpClient.get<TableContentDTO>(url);
   }
 
+  /**
+   * Retrieves the full table in the compact columnar form, where cells are reduced to their values.
+   * Stores the last-used tableId for subsequent operations.
+   *
+   * @param tableId
+   *   UUID of the table to fetch.
+   * @returns
+   *   Observable emitting a {@link TableColumnarContentDTO}.
+   */
+  getTableColumnar(tableId: string): Observable<TableColumnarContentDTO> {
+    this._tableId = tableId;
+    const url: string = `${this.BASE_URL}/${tableId}/content`;
+
+    return this.httpClient.get<TableColumnarContentDTO>(url, {headers: {Accept: TABLE_COLUMNAR_JSON}});
+  }
+
+  /**
+   * Retrieves a window of the table: rows in [fromRow, toRow) and, optionally, columns in [fromColumn, toColumn).
+   *
+   * @param fromRow - Zero-based index of the first row (inclusive).
+   * @param toRow - Zero-based index of the last row (exclusive).
+   * @param fromColumn - Zero-based index of the first column (inclusive); null starts from the first column.
+   * @param toColumn - Zero-based index of the last column (exclusive); null goes up to the last column.
+   * @param tableId - UUID of target table; defaults to current tableId.
+   * @returns Observable emitting {@link TableViewportDTO}.
+   */
+  getTableViewport(fromRow: number,
+                   toRow: number,
+                   fromColumn: number | null = null,
+                   toColumn: number | null = null,
+                   tableId: string = this.tableId): Observable<TableViewportDTO> {
+
+    let params: HttpParams = new HttpParams()
+      .set('fromRow', fromRow)
+      .set('toRow', toRow);
+
+    if (fromColumn !== null)
+      params = params.set('fromColumn', fromColumn);
+    if (toColumn !== null)
+      params = params.set('toColumn', toColumn);
+
+    const url: string = `${this.BASE_URL}/${tableId}/content/viewport`;
+    return this.httpClient.get<TableViewportDTO>(url, {params: params});
+  }
+
   /**
    * Creates a new row in the specified table.
    *
@@ -78,6 +134,30 @@ export class TableApiService {
     return this.httpClient.post<RowCreatedDTO>(url, row);
   }
 
+  /**
+   * Creates several rows at once in the specified table.
+   *
+   * @param rowIndex - Zero-based position of the first new row; null appends at end.
+   * @param count - Number of rows to create.
+   * @param cellsValues - Optional values of the new rows, one array per row; null creates empty rows.
+   * @param tableId - UUID of target table; defaults to current tableId.
+   * @returns Observable emitting {@link RowsCreatedDTO}.
+   */
+  addNewRows(rowIndex: number | null,
+             count: number,
+             cellsValues: string[][] | null = null,
+             tableId: string = this.tableId): Observable<RowsCreatedDTO> {
+
+    const rows: RowsCreateDTO = {
+      rowIndex: rowIndex,
+      count: count,
+      cellsValues: cellsValues
+    }
+
+    const url: string = `${this.BASE_URL}/${tableId}/content/rows/bulk`;
+    return this.httpClient.post<RowsCreatedDTO>(url, rows);
+  }
+
   /**
    * Creates a new column in the specified table.
    *
@@ -104,6 +184,33 @@ export class TableApiService {
     return this.httpClient.post<ColumnCreatedDTO>(url, newColumn);
   }
 
+  /**
+   * Creates several columns of the same data type at once in the specified table.
+   *
+   * @param dataTypeId - Numeric code (≥ 0) for the new columns' data type.
+   * @param columnIndex - Zero-based position of the first new column; null appends at end.
+   * @param count - Number of columns to create.
+   * @param cellsValues - Optional values of the new columns, one array per column; null creates empty columns.
+   * @param tableId - UUID of target table; defaults to current tableId.
+   * @returns Observable emitting {@link ColumnsCreatedDTO}.
+   */
+  addNewColumns(dataTypeId: number,
+                columnIndex: number | null,
+                count: number,
+                cellsValues: string[][] | null = null,
+                tableId: string = this.tableId): Observable<ColumnsCreatedDTO> {
+
+    const newColumns: ColumnsCreateDTO = {
+      dataTypeId: dataTypeId,
+      columnIndex: columnIndex,
+      count: count,
+      cellsValues: cellsValues
+    };
+
+    const url = `${this.BASE_URL}/${tableId}/content/columns/bulk`;
+    return this.httpClient.post<ColumnsCreatedDTO>(url, newColumns);
+  }
+
   /**
    * Updates an existing column's data type.
    *